@@ -0,0 +1,7 @@
+package ru.yandex.practicum.exceptions;
+
+public class TaskVersionConflictException extends RuntimeException {
+    public TaskVersionConflictException(String message) {
+        super(message);
+    }
+}
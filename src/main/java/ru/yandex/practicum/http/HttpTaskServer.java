@@ -7,27 +7,37 @@ import ru.yandex.practicum.http.handler.*;
 import ru.yandex.practicum.service.Managers;
 import ru.yandex.practicum.service.TaskManager;
 import ru.yandex.practicum.utils.DurationAdapter;
+import ru.yandex.practicum.utils.LinkedIntSet;
+import ru.yandex.practicum.utils.LinkedIntSetAdapter;
 import ru.yandex.practicum.utils.LocalDateTimeAdapter;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
     private final HttpServer server;
     private final TaskManager taskManager;
+    private final ExecutorService executor;
 
     public HttpTaskServer() throws IOException {
-        this.taskManager = Managers.getDefault();
+        // Запросы обрабатываются в нескольких потоках, история просмотров у каждого клиента своя
+        this.taskManager = Managers.getMultiClient();
         this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.executor = Executors.newFixedThreadPool(THREADS);
+        server.setExecutor(executor);
 
         server.createContext("/tasks", new TasksHandler(taskManager));
         server.createContext("/subtasks", new SubtasksHandler(taskManager));
         server.createContext("/epics", new EpicsHandler(taskManager));
         server.createContext("/history", new HistoryHandler(taskManager));
         server.createContext("/prioritized", new PrioritizedTasksHandler(taskManager));
+        server.createContext("/search", new SearchHandler(taskManager));
     }
 
     public void start() {
@@ -38,11 +48,13 @@ public class HttpTaskServer {
     public void stop() {
         System.out.println("HTTP сервер остановлен.");
         server.stop(0);
+        executor.shutdown();
     }
 
     private static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LinkedIntSet.class, new LinkedIntSetAdapter())
             .create();
 
     public static Gson getGson() {
@@ -4,37 +4,84 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.service.HistoryRegistry;
+import ru.yandex.practicum.service.TaskManager;
 import ru.yandex.practicum.utils.DurationAdapter;
+import ru.yandex.practicum.utils.LinkedIntSet;
+import ru.yandex.practicum.utils.LinkedIntSetAdapter;
 import ru.yandex.practicum.utils.LocalDateTimeAdapter;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
 
 public abstract class BaseHttpHandler implements HttpHandler {
+    // Метка запуска сервера в ETag: после перезапуска версии задач начинаются заново
+    private static final String ETAG_EPOCH = Long.toHexString(System.currentTimeMillis());
+    // Версия, которая не совпадёт ни с одной задачей: условное обновление гарантированно отклоняется
+    private static final long STALE_VERSION = -1;
+
     protected static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LinkedIntSet.class, new LinkedIntSetAdapter())
             .create();
 
+    // Заголовок с ключом клиента; без него используется Authorization, а без обоих — общая история
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int MAX_CLIENT_KEY_LENGTH = 256;
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        // Просмотры задач и /history на время запроса относятся к разделу истории вызывающего клиента
+        HistoryRegistry.ClientScope client = HistoryRegistry.withClient(clientKey(exchange));
         try {
             handleRequest(exchange);
         } catch (IllegalArgumentException e) {
             sendNotAcceptable(exchange, e.getMessage());
         } catch (Exception e) {
             sendInternalServerError(exchange, "Ошибка обработки запроса: " + e.getMessage());
+        } finally {
+            client.close();
         }
     }
 
     protected abstract void handleRequest(HttpExchange exchange) throws IOException;
 
+    /**
+     * Ключ клиента из X-Client-Id (слишком длинный идентификатор не используется) или из Authorization.
+     * Токен не хранится в реестре как есть: ключом служит его SHA-256, так что длина токена не важна.
+     */
+    static String clientKey(HttpExchange exchange) {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isBlank() && clientId.trim().length() <= MAX_CLIENT_KEY_LENGTH) {
+            return "id:" + clientId.trim();
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        return authorization != null && !authorization.isBlank() ? "token:" + sha256(authorization.trim()) : null;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e); // Обязателен для любой JVM
+        }
+    }
+
     protected void sendResponse(HttpExchange exchange, Object response) throws IOException {
 
         String jsonResponse = gson.toJson(response);
@@ -42,7 +89,11 @@ public abstract class BaseHttpHandler implements HttpHandler {
     }
 
     protected void sendResponse(HttpExchange exchange, String response, int statusCode) throws IOException {
-        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        sendJsonBytes(exchange, response.getBytes(StandardCharsets.UTF_8), statusCode);
+    }
+
+    // Отправляет уже сериализованный JSON (например, закэшированный)
+    protected void sendJsonBytes(HttpExchange exchange, byte[] bytes, int statusCode) throws IOException {
         exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
         exchange.sendResponseHeaders(statusCode, bytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
@@ -117,4 +168,95 @@ public abstract class BaseHttpHandler implements HttpHandler {
             throw new IllegalArgumentException("Некорректный формат пути: " + path, e);
         }
     }
-}
\ No newline at end of file
+
+    // Разбирает строку запроса (?a=1&b=2) в словарь; повторяющиеся параметры перезаписываются последним
+    protected Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Значение параметра ?status= без учёта регистра; неизвестный статус — IllegalArgumentException
+    protected Status parseStatus(String value) {
+        return Status.valueOf(value.toUpperCase());
+    }
+
+    // Строгий ETag одной задачи: id и версия однозначно определяют её содержимое в пределах запуска сервера
+    protected static String etagOf(Task task) {
+        return "\"" + task.getId() + "-" + task.getVersion() + "-" + ETAG_EPOCH + "\"";
+    }
+
+    // Слабый ETag списка: свёртка id и версий элементов, считается без сериализации
+    protected static String etagOf(Collection<? extends Task> tasks) {
+        long hash = 1;
+        for (Task task : tasks) {
+            hash = 31 * hash + task.getId();
+            hash = 31 * hash + task.getVersion();
+        }
+        return "W/\"" + tasks.size() + "-" + Long.toHexString(hash) + "-" + ETAG_EPOCH + "\"";
+    }
+
+    // Отправляет ответ с ETag или 304 без тела, если у клиента уже есть эта версия (If-None-Match)
+    protected void sendWithETag(HttpExchange exchange, Object response, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matchesETag(ifNoneMatch, etag)) {
+            // Непрочитанный запрос HttpServer считает незавершённым и закрывает соединение; дочитываем его,
+            // чтобы следующий опрос шёл по тому же соединению
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        sendResponse(exchange, response);
+    }
+
+    /**
+     * Версия задачи из заголовка If-Match для условного обновления: 0, если заголовка нет, и
+     * {@link TaskManager#ANY_VERSION} для «*» — обновится только существующая задача.
+     * Некорректное значение — IllegalArgumentException.
+     */
+    protected long expectedVersion(HttpExchange exchange, int taskId) {
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return 0;
+        }
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return TaskManager.ANY_VERSION;
+        }
+        String prefix = "\"" + taskId + "-";
+        if (!value.startsWith(prefix) || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("Заголовок If-Match не относится к задаче " + taskId + ": " + ifMatch);
+        }
+        String[] parts = value.substring(prefix.length(), value.length() - 1).split("-");
+        try {
+            long version = Long.parseLong(parts[0]);
+            // Версии не сохраняются в файл, поэтому ETag прошлого запуска сервера заведомо устарел
+            return parts.length == 2 && ETAG_EPOCH.equals(parts[1]) ? version : STALE_VERSION;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный заголовок If-Match: " + ifMatch, e);
+        }
+    }
+
+    // If-None-Match может содержать несколько ETag через запятую или «*»; слабые и строгие сравниваются по значению
+    private static boolean matchesETag(String header, String etag) {
+        String expected = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || expected.equals(value.startsWith("W/") ? value.substring(2) : value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,7 +1,12 @@
 package ru.yandex.practicum.http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
 import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
@@ -54,8 +59,21 @@ public class EpicsHandler extends BaseHttpHandler {
     }
 
     private void handleGetAllEpics(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        if (query.containsKey("status")) {
+            Status status;
+            try {
+                status = parseStatus(query.get("status"));
+            } catch (IllegalArgumentException e) {
+                sendJsonErrorMessage(exchange, "Неизвестный статус: " + query.get("status"), 400);
+                return;
+            }
+            List<Task> epics = taskManager.getByStatus(TaskType.EPIC, status);
+            sendWithETag(exchange, epics, etagOf(epics));
+            return;
+        }
         List<Epic> epics = taskManager.getAllEpics();
-        sendResponse(exchange, epics);
+        sendWithETag(exchange, epics, etagOf(epics));
     }
 
     private void handleGetEpicById(HttpExchange exchange) throws IOException {
@@ -66,7 +84,7 @@ public class EpicsHandler extends BaseHttpHandler {
             if (epic == null) {
                 sendJsonErrorMessage(exchange, "Эпик с id " + epicId + " не найден.", 404);
             } else {
-                sendResponse(exchange, epic);
+                sendWithETag(exchange, epic, etagOf(epic));
             }
         } catch (NumberFormatException e) {
             sendJsonErrorMessage(exchange, "Неверный формат ID эпика.", 400);
@@ -80,7 +98,8 @@ public class EpicsHandler extends BaseHttpHandler {
                 sendJsonErrorMessage(exchange, "Эпик с id " + epicId + " не найден.", 404);
                 return;
             }
-            sendResponse(exchange, taskManager.getSubtasksForEpic(epicId));
+            List<Subtask> subtasks = taskManager.getSubtasksForEpic(epicId);
+            sendWithETag(exchange, subtasks, etagOf(subtasks));
         } catch (NumberFormatException e) {
             sendJsonErrorMessage(exchange, "Неверный формат ID эпика.", 400);
         }
@@ -104,8 +123,21 @@ public class EpicsHandler extends BaseHttpHandler {
                 sendJsonErrorMessage(exchange, "Эпик с id " + epic.getId() + " не найден.", 404);
                 return;
             }
-            // Если найден, обновляем
-            taskManager.updateTask(epic);
+            // Если найден, обновляем (с If-Match — только если эпик не менялся)
+            try {
+                long expectedVersion = expectedVersion(exchange, epic.getId());
+                if (expectedVersion != 0) {
+                    epic.setVersion(expectedVersion);
+                }
+                taskManager.updateTask(epic);
+            } catch (TaskVersionConflictException e) {
+                sendJsonErrorMessage(exchange, e.getMessage(), 412);
+                return;
+            } catch (IllegalArgumentException e) {
+                sendJsonErrorMessage(exchange, e.getMessage(), 400);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", etagOf(epic));
             sendJsonMessage(exchange, "Эпик с id " + epic.getId() + " успешно обновлён.", 200);
         } else {
             // Если ID нет, создаём новый эпик
@@ -4,6 +4,7 @@ import com.sun.net.httpserver.HttpExchange;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -31,7 +32,24 @@ public class HistoryHandler extends BaseHttpHandler {
         }
     }
 
+    // ?limit=N — только N последних просмотров
     private void handleGetHistory(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, taskManager.getHistory());
+        Map<String, String> query = parseQuery(exchange);
+        if (!query.containsKey("limit")) {
+            sendResponse(exchange, taskManager.getHistory());
+            return;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(query.get("limit"));
+        } catch (NumberFormatException e) {
+            sendJsonErrorMessage(exchange, "Некорректный limit: " + query.get("limit"), 400);
+            return;
+        }
+        if (limit < 0) {
+            sendJsonErrorMessage(exchange, "limit не может быть отрицательным.", 400);
+            return;
+        }
+        sendResponse(exchange, taskManager.getHistory(limit));
     }
 }
@@ -1,12 +1,40 @@
 package ru.yandex.practicum.http.handler;
 
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.service.PrioritizedCursor;
+import ru.yandex.practicum.service.PrioritizedSnapshot;
 import ru.yandex.practicum.service.TaskManager;
+import ru.yandex.practicum.service.TimeSlot;
+import ru.yandex.practicum.service.WorkingHours;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedTasksHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
+    // Сериализованный ответ для последней версии снимка: между изменениями задач JSON не пересобирается
+    private volatile CachedBody cachedBody;
+
+    private record CachedBody(long version, byte[] bytes) {
+    }
+
+    // Тело запроса авторасстановки: время и рабочие часы строками, чтобы ошибки формата давали 400
+    private static class AutoScheduleRequest {
+        List<Integer> taskIds;
+        String notBefore;
+        String workStart;
+        String workEnd;
+    }
 
     public PrioritizedTasksHandler(TaskManager taskManager) {
         if (taskManager == null) {
@@ -22,7 +50,16 @@ public class PrioritizedTasksHandler extends BaseHttpHandler {
 
         try {
             if ("GET".equalsIgnoreCase(method) && "/prioritized".equalsIgnoreCase(path)) {
-                handleGetPrioritizedTasks(exchange);
+                Map<String, String> query = parseQuery(exchange);
+                if (query.isEmpty()) {
+                    handleGetPrioritizedTasks(exchange);
+                } else {
+                    handleGetPrioritizedRange(exchange, query);
+                }
+            } else if ("GET".equalsIgnoreCase(method) && "/prioritized/free-slots".equalsIgnoreCase(path)) {
+                handleGetFreeSlots(exchange, parseQuery(exchange));
+            } else if ("POST".equalsIgnoreCase(method) && "/prioritized/auto-schedule".equalsIgnoreCase(path)) {
+                handleAutoSchedule(exchange);
             } else {
                 sendMethodNotAllowed(exchange);
             }
@@ -32,6 +69,98 @@ public class PrioritizedTasksHandler extends BaseHttpHandler {
     }
 
     private void handleGetPrioritizedTasks(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, taskManager.getPrioritizedTasks());
+        PrioritizedSnapshot snapshot = taskManager.getPrioritizedSnapshot();
+        CachedBody body = cachedBody;
+        if (body == null || body.version() != snapshot.version()) {
+            body = new CachedBody(snapshot.version(), gson.toJson(snapshot.tasks()).getBytes(StandardCharsets.UTF_8));
+            cachedBody = body;
+        }
+        sendJsonBytes(exchange, body.bytes(), 200);
+    }
+
+    // ?from=...&to=... — задачи с началом в [from, to); с параметром limit (и cursor) — постраничная выдача
+    private void handleGetPrioritizedRange(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDateTime from;
+        LocalDateTime to;
+        PrioritizedCursor cursor;
+        Integer limit;
+        try {
+            from = query.containsKey("from") ? LocalDateTime.parse(query.get("from")) : null;
+            to = query.containsKey("to") ? LocalDateTime.parse(query.get("to")) : null;
+            cursor = query.containsKey("cursor") ? PrioritizedCursor.decode(query.get("cursor")) : null;
+            limit = query.containsKey("limit") ? Integer.valueOf(query.get("limit")) : null;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            sendJsonErrorMessage(exchange, "Некорректные параметры запроса: " + e.getMessage(), 400);
+            return;
+        }
+
+        if (limit == null && cursor == null) {
+            sendResponse(exchange, taskManager.getPrioritizedTasks(from, to));
+            return;
+        }
+        if (limit == null || limit <= 0) {
+            sendJsonErrorMessage(exchange, "Для постраничной выдачи нужен положительный limit.", 400);
+            return;
+        }
+
+        List<Task> page = taskManager.getPrioritizedPage(from, to, cursor, limit);
+        Map<String, Object> response = new HashMap<>();
+        response.put("tasks", page);
+        // Курсор следующей страницы есть, только если текущая заполнена целиком
+        response.put("nextCursor", page.size() == limit ? PrioritizedCursor.of(page.get(page.size() - 1)).encode()
+                : null);
+        sendResponse(exchange, response);
+    }
+
+    // ?duration=PT90M&notBefore=...&limit=N — первые N свободных промежутков (по умолчанию один, начиная с текущего момента)
+    private void handleGetFreeSlots(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if (!query.containsKey("duration")) {
+            sendJsonErrorMessage(exchange, "Не указан параметр duration.", 400);
+            return;
+        }
+        List<TimeSlot> slots;
+        try {
+            Duration duration = Duration.parse(query.get("duration"));
+            LocalDateTime notBefore = query.containsKey("notBefore") ? LocalDateTime.parse(query.get("notBefore"))
+                    : LocalDateTime.now();
+            int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 1;
+            slots = taskManager.findFreeSlots(duration, notBefore, limit);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            sendJsonErrorMessage(exchange, "Некорректные параметры запроса: " + e.getMessage(), 400);
+            return;
+        }
+        sendResponse(exchange, slots);
+    }
+
+    /**
+     * Тело {"taskIds": [...], "notBefore": "...", "workStart": "09:00", "workEnd": "18:00"}: задачи ставятся
+     * по порядку в самые ранние свободные места. notBefore по умолчанию — текущий момент; без рабочих часов
+     * задачи ставятся круглые сутки. В ответе — задачи с назначенным временем начала.
+     */
+    private void handleAutoSchedule(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        List<Task> scheduled;
+        try {
+            AutoScheduleRequest request = gson.fromJson(body, AutoScheduleRequest.class);
+            if (request == null) {
+                sendJsonErrorMessage(exchange, "Пустое тело запроса.", 400);
+                return;
+            }
+            LocalDateTime notBefore = request.notBefore != null ? LocalDateTime.parse(request.notBefore)
+                    : LocalDateTime.now();
+            WorkingHours workingHours = null;
+            if (request.workStart != null || request.workEnd != null) {
+                workingHours = new WorkingHours(request.workStart != null ? LocalTime.parse(request.workStart) : null,
+                        request.workEnd != null ? LocalTime.parse(request.workEnd) : null);
+            }
+            scheduled = taskManager.autoSchedule(request.taskIds, notBefore, workingHours);
+        } catch (TaskVersionConflictException e) {
+            sendJsonErrorMessage(exchange, e.getMessage(), 412); // Задачу изменили во время расстановки
+            return;
+        } catch (JsonParseException | DateTimeParseException | IllegalArgumentException e) {
+            sendJsonErrorMessage(exchange, "Некорректный запрос расстановки: " + e.getMessage(), 400);
+            return;
+        }
+        sendResponse(exchange, scheduled);
     }
 }
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.practicum.service.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class SearchHandler extends BaseHttpHandler {
+    private static final int DEFAULT_LIMIT = 50;
+    private final TaskManager taskManager;
+
+    public SearchHandler(TaskManager taskManager) {
+        if (taskManager == null) {
+            throw new IllegalArgumentException("TaskManager cannot be null");
+        }
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if ("GET".equalsIgnoreCase(method) && "/search".equalsIgnoreCase(path)) {
+                handleSearch(exchange);
+            } else {
+                sendMethodNotAllowed(exchange);
+            }
+        } catch (Exception e) {
+            sendInternalServerError(exchange, "Internal server error: " + e.getMessage());
+        }
+    }
+
+    // ?q=текст&limit=N — id найденных задач по убыванию релевантности
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        String text = query.get("q");
+        if (text == null || text.isBlank()) {
+            sendJsonErrorMessage(exchange, "Не указан поисковый запрос q.", 400);
+            return;
+        }
+        int limit;
+        try {
+            limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_LIMIT;
+        } catch (NumberFormatException e) {
+            sendJsonErrorMessage(exchange, "Некорректный limit: " + query.get("limit"), 400);
+            return;
+        }
+        if (limit <= 0) {
+            sendJsonErrorMessage(exchange, "limit должен быть положительным.", 400);
+            return;
+        }
+        sendResponse(exchange, taskManager.search(text, limit));
+    }
+}
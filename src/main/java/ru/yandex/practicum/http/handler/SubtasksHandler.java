@@ -1,7 +1,10 @@
 package ru.yandex.practicum.http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
@@ -52,18 +55,31 @@ public class SubtasksHandler extends BaseHttpHandler {
     }
 
     private void handleGetAllSubtasks(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        if (query.containsKey("status")) {
+            Status status;
+            try {
+                status = parseStatus(query.get("status"));
+            } catch (IllegalArgumentException e) {
+                sendJsonErrorMessage(exchange, "Неизвестный статус: " + query.get("status"), 400);
+                return;
+            }
+            List<Task> subtasks = taskManager.getByStatus(TaskType.SUBTASK, status);
+            sendWithETag(exchange, subtasks, etagOf(subtasks));
+            return;
+        }
         List<Subtask> subtasks = taskManager.getAllSubtasks();
-        sendResponse(exchange, subtasks);
+        sendWithETag(exchange, subtasks, etagOf(subtasks));
     }
 
     private void handleGetSubtaskById(HttpExchange exchange) throws IOException {
         try {
             int subtaskId = extractIdFromPath(exchange.getRequestURI().getPath(), "/subtasks/");
-            Subtask subtask = (Subtask) taskManager.getTaskById(subtaskId);
+            Subtask subtask = (Subtask) taskManager.getTaskById(subtaskId, TaskType.SUBTASK);
             if (subtask == null) {
                 sendJsonErrorMessage(exchange, "Подзадача с id " + subtaskId + " не найдена", 404);
             } else {
-                sendResponse(exchange, subtask);
+                sendWithETag(exchange, subtask, etagOf(subtask));
             }
         } catch (NumberFormatException e) {
             sendJsonErrorMessage(exchange, "Неверный формат идентификатора подзадачи.", 400);
@@ -103,7 +119,7 @@ public class SubtasksHandler extends BaseHttpHandler {
     private void handleDeleteSubtaskById(HttpExchange exchange) throws IOException {
         try {
             int subtaskId = extractIdFromPath(exchange.getRequestURI().getPath(), "/subtasks/");
-            Subtask subtask = (Subtask) taskManager.getTaskById(subtaskId);
+            Subtask subtask = (Subtask) taskManager.getTaskById(subtaskId, TaskType.SUBTASK);
 
             if (subtask == null) {
                 sendJsonErrorMessage(exchange, "Подзадача с id " + subtaskId + " не найдена", 404);
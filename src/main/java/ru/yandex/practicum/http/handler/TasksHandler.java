@@ -1,11 +1,15 @@
 package ru.yandex.practicum.http.handler;
 
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
+import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Task;
 import ru.yandex.practicum.service.TaskManager;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +37,8 @@ public class TasksHandler extends BaseHttpHandler {
                 } else {
                     sendNotFound(exchange, "Некорректный путь: " + path);
                 }
+            } else if ("POST".equalsIgnoreCase(method) && path.matches("/tasks/batch/?")) {
+                handleCreateTasksBatch(exchange);
             } else if ("POST".equalsIgnoreCase(method)) {
                 handleCreateTask(exchange);
             } else if ("DELETE".equalsIgnoreCase(method)) {
@@ -51,9 +57,23 @@ public class TasksHandler extends BaseHttpHandler {
         }
     }
 
+    // С параметром ?status= возвращаются задачи всех типов с этим статусом (по индексу, без перебора)
     private void handleGetAllTasks(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        if (query.containsKey("status")) {
+            Status status;
+            try {
+                status = parseStatus(query.get("status"));
+            } catch (IllegalArgumentException e) {
+                sendJsonErrorMessage(exchange, "Неизвестный статус: " + query.get("status"), 400);
+                return;
+            }
+            List<Task> tasks = taskManager.getByStatus(status);
+            sendWithETag(exchange, tasks, etagOf(tasks));
+            return;
+        }
         List<Task> tasks = taskManager.getAllTasks();
-        sendResponse(exchange, tasks);
+        sendWithETag(exchange, tasks, etagOf(tasks));
     }
 
     private void handleGetTaskById(HttpExchange exchange) throws IOException {
@@ -63,7 +83,7 @@ public class TasksHandler extends BaseHttpHandler {
             if (task == null) {
                 sendJsonErrorMessage(exchange, "Задача с id " + taskId + " не найдена.", 404);
             } else {
-                sendResponse(exchange, task);
+                sendWithETag(exchange, task, etagOf(task));
             }
         } catch (NumberFormatException e) {
             sendJsonErrorMessage(exchange, "Неверный формат ID задачи.", 400);
@@ -81,14 +101,62 @@ public class TasksHandler extends BaseHttpHandler {
             return;
         }
 
+        // Версия из If-Match важнее версии в теле: обновление применится, только если задача не менялась
+        if (task.getId() != 0) {
+            try {
+                long expectedVersion = expectedVersion(exchange, task.getId());
+                if (expectedVersion != 0) {
+                    task.setVersion(expectedVersion);
+                }
+            } catch (IllegalArgumentException e) {
+                sendJsonErrorMessage(exchange, e.getMessage(), 400);
+                return;
+            }
+        }
+
         try {
             if (task.getId() == 0) {
                 int newId = taskManager.addTask(task);
                 sendJsonResponse(exchange, Map.of("id", newId), 201); // Вернуть id созданной задачи
             } else {
                 taskManager.updateTask(task);
+                exchange.getResponseHeaders().set("ETag", etagOf(task));
                 sendJsonMessage(exchange, "Задача с id " + task.getId() + " успешно обновлена.", 200);
             }
+        } catch (TaskVersionConflictException e) {
+            sendJsonErrorMessage(exchange, e.getMessage(), 412);
+        } catch (IllegalArgumentException e) {
+            sendJsonErrorMessage(exchange, e.getMessage(), 406);
+        }
+    }
+
+    // POST /tasks/batch: массив задач добавляется целиком или не добавляется вовсе
+    private void handleCreateTasksBatch(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Task[] tasks;
+        try {
+            tasks = gson.fromJson(body, Task[].class);
+        } catch (JsonParseException e) {
+            sendJsonErrorMessage(exchange, "Некорректный формат пакета задач.", 400);
+            return;
+        }
+
+        if (tasks == null || tasks.length == 0) {
+            sendJsonErrorMessage(exchange, "Пакет задач не может быть пустым.", 400);
+            return;
+        }
+        for (Task task : tasks) {
+            if (task == null || task.getTitle() == null || task.getTitle().isBlank() ||
+                    task.getDescription() == null || task.getDescription().isBlank()) {
+                sendJsonErrorMessage(exchange, "Некорректные данные задачи: название и " +
+                        "описание не могут быть пустыми.", 400);
+                return;
+            }
+        }
+
+        try {
+            List<Integer> ids = taskManager.addAll(Arrays.asList(tasks));
+            sendJsonResponse(exchange, Map.of("ids", ids), 201);
         } catch (IllegalArgumentException e) {
             sendJsonErrorMessage(exchange, e.getMessage(), 406);
         }
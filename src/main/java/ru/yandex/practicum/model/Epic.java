@@ -1,35 +1,88 @@
 package ru.yandex.practicum.model;
 
+import ru.yandex.practicum.utils.IntObjectMap;
+import ru.yandex.practicum.utils.LinkedIntSet;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
 
 /**
  * @author vsmordvincev
  */
 public class Epic extends Task {
-    private final List<Integer> subtaskIds;
+    // Порядок добавления сохраняется; в JSON сериализуется массивом id (см. LinkedIntSetAdapter)
+    private LinkedIntSet subtaskIds;
     private LocalDateTime endTime;
+    // Агрегаты по подзадачам не сериализуются и создаются лениво (Gson не вызывает конструктор)
+    private transient Rollup rollup;
 
     public Epic(String title, String description) {
         super(title, description, Status.NEW, null, null);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new LinkedIntSet();
         this.endTime = null;
     }
 
-    public List<Integer> getSubtaskIds() {
+    public LinkedIntSet getSubtaskIds() {
+        if (subtaskIds == null) {
+            subtaskIds = new LinkedIntSet();
+        }
         return subtaskIds;
     }
 
+    /**
+     * Привязывает подзадачу к эпику и пересчитывает статус, продолжительность, начало и окончание эпика
+     * за O(log n) по сохранённым агрегатам, не перебирая остальные подзадачи.
+     */
+    public void addSubtask(Subtask subtask) {
+        getSubtaskIds().add(subtask.getId());
+        getRollup().put(subtask);
+        applyRollup();
+    }
 
-    public void addSubtask(int subtaskId) {
-        subtaskIds.add(subtaskId);
+    // Привязывает несколько подзадач сразу, пересчитывая поля эпика один раз
+    public void addSubtasks(Collection<Subtask> subtasks) {
+        Rollup rollup = getRollup();
+        for (Subtask subtask : subtasks) {
+            getSubtaskIds().add(subtask.getId());
+            rollup.put(subtask);
+        }
+        applyRollup();
+    }
 
+    // Пересчитывает агрегаты после изменения подзадачи, уже привязанной к эпику
+    public void updateSubtask(Subtask subtask) {
+        addSubtask(subtask);
     }
 
     public void removeSubtask(int subtaskId) {
-        subtaskIds.remove((Integer) subtaskId);
+        getSubtaskIds().remove(subtaskId);
+        getRollup().remove(subtaskId);
+        applyRollup();
+    }
 
+    public void clearSubtasks() {
+        getSubtaskIds().clear();
+        getRollup().clear();
+        applyRollup();
+    }
+
+    /**
+     * Копия эпика без агрегатов: эпик меняется на месте при каждом изменении подзадач, поэтому тому, кто читает
+     * его без блокировки (например, сериализует ответ), отдаётся копия.
+     */
+    public Epic copy() {
+        Epic copy = new Epic(getTitle(), getDescription());
+        copy.setId(getId());
+        copy.setVersion(getVersion());
+        copy.setStatus(getStatus());
+        copy.setDuration(getDuration());
+        copy.setStartTime(getStartTime());
+        copy.endTime = endTime;
+        getSubtaskIds().forEach(copy.subtaskIds::add);
+        return copy;
     }
 
     public LocalDateTime getEndTime() {
@@ -45,6 +98,109 @@ public class Epic extends Task {
         return TaskType.EPIC;
     }
 
+    private Rollup getRollup() {
+        if (rollup == null) {
+            rollup = new Rollup();
+        }
+        return rollup;
+    }
+
+    private void applyRollup() {
+        Rollup rollup = getRollup();
+        setStatus(rollup.status());
+        setDuration(rollup.totalDuration);
+        setStartTime(rollup.startTimes.isEmpty() ? null : rollup.startTimes.firstKey());
+        setEndTime(rollup.endTimes.isEmpty() ? null : rollup.endTimes.lastKey());
+    }
+
+    // Вклад подзадачи в агрегаты эпика на момент последнего изменения
+    private static class Contribution {
+        final Status status;
+        final Duration duration;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus();
+            this.duration = subtask.getDuration();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getEndTime();
+        }
+    }
+
+    // Счётчики статусов, суммарная продолжительность и упорядоченные мультимножества начал и окончаний
+    private static class Rollup {
+        final IntObjectMap<Contribution> contributions = new IntObjectMap<>();
+        final int[] statusCounts = new int[Status.values().length];
+        final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+        Duration totalDuration;
+        int durationCount;
+
+        void put(Subtask subtask) {
+            remove(subtask.getId());
+            Contribution contribution = new Contribution(subtask);
+            contributions.put(subtask.getId(), contribution);
+            if (contribution.status != null) {
+                statusCounts[contribution.status.ordinal()]++;
+            }
+            if (contribution.duration != null) {
+                totalDuration = totalDuration == null ? contribution.duration
+                        : totalDuration.plus(contribution.duration);
+                durationCount++;
+            }
+            increment(startTimes, contribution.startTime);
+            increment(endTimes, contribution.endTime);
+        }
+
+        void remove(int subtaskId) {
+            Contribution contribution = contributions.remove(subtaskId);
+            if (contribution == null) {
+                return;
+            }
+            if (contribution.status != null) {
+                statusCounts[contribution.status.ordinal()]--;
+            }
+            if (contribution.duration != null) {
+                durationCount--;
+                totalDuration = durationCount == 0 ? null : totalDuration.minus(contribution.duration);
+            }
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+
+        void clear() {
+            contributions.clear();
+            Arrays.fill(statusCounts, 0);
+            startTimes.clear();
+            endTimes.clear();
+            totalDuration = null;
+            durationCount = 0;
+        }
+
+        Status status() {
+            int total = contributions.size();
+            if (total == 0 || statusCounts[Status.NEW.ordinal()] == total) {
+                return Status.NEW;
+            }
+            if (statusCounts[Status.DONE.ordinal()] == total) {
+                return Status.DONE;
+            }
+            return Status.IN_PROGRESS;
+        }
+
+        private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.merge(time, 1, Integer::sum);
+            }
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
 
     @Override
     public String toString() {
@@ -61,4 +217,3 @@ public class Epic extends Task {
     }
 
 }
-
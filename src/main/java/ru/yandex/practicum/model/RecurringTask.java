@@ -0,0 +1,48 @@
+package ru.yandex.practicum.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Повторяющаяся задача: первое повторение начинается в startTime и длится duration, следующие идут через
+ * каждые interval до момента until (не включая его; null — без конца). Повторения не хранятся, а вычисляются
+ * по правилу только для запрошенного промежутка времени.
+ */
+public class RecurringTask extends Task {
+    private final Duration interval;
+    private final LocalDateTime until;
+
+    public RecurringTask(String title, String description, Status status, Duration duration,
+                         LocalDateTime startTime, Duration interval, LocalDateTime until) {
+        super(title, description, status, duration, startTime);
+        this.interval = interval;
+        this.until = until;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    @Override
+    public TaskType getType() {
+        return TaskType.RECURRING;
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringTask{" +
+                "id=" + getId() +
+                ", title='" + getTitle() + '\'' +
+                ", description='" + getDescription() + '\'' +
+                ", status=" + getStatus() +
+                ", duration=" + getDuration() +
+                ", startTime=" + getStartTime() +
+                ", interval=" + interval +
+                ", until=" + until +
+                '}';
+    }
+}
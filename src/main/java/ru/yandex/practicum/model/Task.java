@@ -15,6 +15,7 @@ public class Task {
     private Status status;
     private Duration duration;
     private LocalDateTime startTime;
+    private long version; // Растёт при каждом изменении задачи; 0 — версия не известна клиенту
 
       public Task(String title, String description, Status status, Duration duration, LocalDateTime startTime) {
         this.title = title;
@@ -32,6 +33,14 @@ public class Task {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Status getStatus() {
         return status;
     }
@@ -3,5 +3,6 @@ package ru.yandex.practicum.model;
 public enum TaskType {
     TASK,
     SUBTASK,
-    EPIC
+    EPIC,
+    RECURRING
 }
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * История, в которую просмотры записываются асинхронно: чтение задачи только кладёт просмотр в ограниченную
+ * очередь ({@link ViewLog}), а в саму историю просмотры переносит фоновый поток пачками до {@link #BATCH_SIZE}.
+ * <p>
+ * Очередь не блокирует читателей задач: если она заполнена, просмотр отбрасывается и учитывается
+ * в {@link #getDroppedViews()}; глубина очереди — {@link #getQueueDepth()}. Перед чтением истории и удалением
+ * из неё очередь переносится до конца под той же блокировкой, что и у фонового потока, поэтому
+ * {@link #getHistory()} видит все просмотры, записанные до вызова (flush on read).
+ * <p>
+ * Обёрнутая история используется только под блокировкой, так что подходит и однопоточная
+ * {@link InMemoryHistoryManager}. {@link #close()} останавливает фоновый поток; просмотры после этого
+ * переносятся только при чтении.
+ */
+public class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+    static final int DEFAULT_QUEUE_SIZE = 4096;
+    static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final HistoryManager delegate;
+    private final Consumer<Task> apply;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ViewLog queue;
+    private final AtomicLong droppedViews = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncHistoryManager(HistoryManager delegate) {
+        this(delegate, DEFAULT_QUEUE_SIZE);
+    }
+
+    AsyncHistoryManager(HistoryManager delegate, int queueSize) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("HistoryManager cannot be null");
+        }
+        this.delegate = delegate;
+        this.apply = delegate::add;
+        this.queue = new ViewLog(queueSize);
+        this.worker = new Thread(this::applyInBackground, "history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        long sequence = queue.tryClaim();
+        if (sequence < 0) {
+            droppedViews.incrementAndGet(); // Перегрузка: читатель задачи не ждёт места в очереди
+            return;
+        }
+        queue.publish(sequence, task);
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            queue.drainAll(apply); // Иначе ранний просмотр из очереди вернул бы задачу в историю
+            delegate.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            queue.drainAll(apply);
+            return delegate.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        lock.lock();
+        try {
+            queue.drainAll(apply);
+            return delegate.getHistory(limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Просмотры в очереди, ещё не перенесённые в историю
+    public int getQueueDepth() {
+        return queue.depth();
+    }
+
+    // Просмотры, отброшенные из-за заполненной очереди
+    public long getDroppedViews() {
+        return droppedViews.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applyInBackground() {
+        while (!closed) {
+            int applied;
+            lock.lock();
+            try {
+                applied = queue.drain(BATCH_SIZE, apply);
+            } finally {
+                lock.unlock();
+            }
+            if (applied < BATCH_SIZE) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS); // Очередь разобрана: ждём следующих просмотров
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Автоматическая расстановка задач без времени начала по свободным промежуткам шкалы: каждая задача
+ * по порядку ставится в самое раннее место, куда она помещается целиком (earliest-fit).
+ * <p>
+ * Свободные промежутки шкалы читаются лениво и режутся по рабочим часам на «окна». Над прочитанными окнами
+ * строится дерево отрезков с максимумом свободного времени: самое раннее подходящее окно находится спуском
+ * от корня за O(log G), а после размещения задачи окно укорачивается (с минутным зазором) обновлением одного
+ * листа. Для N задач и G просмотренных окон это O((N + G) log G) вместо O(N * G) при поиске каждого места
+ * заново с начала шкалы. Шкала при этом не меняется: менеджер применяет результат через {@link #apply}.
+ */
+final class AutoScheduler {
+
+    private AutoScheduler() {
+    }
+
+    /**
+     * Находит задачи для расстановки и проверяет их: каждая должна существовать, не быть эпиком,
+     * не иметь времени начала и иметь положительную продолжительность.
+     */
+    static List<Task> collect(List<Integer> taskIds, IntFunction<Task> lookup) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            throw new IllegalArgumentException("Не переданы задачи для расстановки.");
+        }
+        Set<Integer> seen = new HashSet<>();
+        List<Task> tasks = new ArrayList<>(taskIds.size());
+        for (Integer id : taskIds) {
+            if (id == null || !seen.add(id)) {
+                throw new IllegalArgumentException("Некорректный или повторяющийся id задачи: " + id);
+            }
+            Task task = lookup.apply(id);
+            if (task == null || task.getType() == TaskType.EPIC) {
+                throw new IllegalArgumentException("Задача с id " + id + " не найдена.");
+            }
+            if (task.getStartTime() != null) {
+                throw new IllegalArgumentException("У задачи с id " + id + " уже задано время начала.");
+            }
+            Duration duration = task.getDuration();
+            if (duration == null || duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("У задачи с id " + id + " не задана продолжительность.");
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Возвращает время начала для каждой задачи в том же порядке. gaps — свободные промежутки шкалы
+     * по возрастанию, последний открытый; workingHours == null — задачи можно ставить круглые сутки.
+     */
+    static List<LocalDateTime> schedule(Iterator<TimeSlot> gaps, List<Task> tasks, WorkingHours workingHours) {
+        if (workingHours != null) {
+            for (Task task : tasks) {
+                if (task.getDuration().compareTo(workingHours.length()) > 0) {
+                    throw new IllegalArgumentException("Задача с id " + task.getId() +
+                            " длиннее рабочего дня: " + task.getDuration());
+                }
+            }
+        }
+        Iterator<TimeSlot> source = workingHours == null ? gaps : new WorkingWindows(gaps, workingHours);
+        Windows windows = new Windows();
+        List<LocalDateTime> starts = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            long needed = task.getDuration().getSeconds();
+            int index = windows.firstFitting(needed);
+            while (index < 0) {
+                // Открытый промежуток (или целый рабочий день в нём) вмещает любую задачу; промежутков нет,
+                // только если шкалу до горизонта поиска заняли повторения повторяющихся задач
+                if (!source.hasNext()) {
+                    throw new IllegalArgumentException("Для задачи с id " + task.getId() + " не нашлось места.");
+                }
+                windows.append(source.next());
+                index = windows.firstFitting(needed);
+            }
+            LocalDateTime start = windows.starts[index];
+            starts.add(start);
+            windows.shrink(index, start.plus(task.getDuration()).plus(IntervalIndex.SLOT_STEP));
+        }
+        return starts;
+    }
+
+    /**
+     * Переносит задачи на найденные места через update и возвращает перенесённые копии. Если обновление
+     * какой-то задачи отклонено (например, её версия изменилась), уже перенесённые задачи возвращаются
+     * в прежнее состояние без времени начала и исключение пробрасывается: расстановка применяется целиком
+     * или не применяется вовсе. Откат идёт без проверки версии: вызывающий держит блокировку, без которой
+     * перенесённую задачу со временем никто другой изменить не может.
+     */
+    static List<Task> apply(List<Task> tasks, List<LocalDateTime> starts, Consumer<Task> update) {
+        List<Task> scheduled = new ArrayList<>(tasks.size());
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                Task placed = withStartTime(tasks.get(i), starts.get(i));
+                update.accept(placed);
+                scheduled.add(placed);
+            }
+        } catch (RuntimeException e) {
+            for (int i = scheduled.size() - 1; i >= 0; i--) {
+                Task restored = withStartTime(tasks.get(i), null);
+                restored.setVersion(0);
+                update.accept(restored);
+            }
+            throw e;
+        }
+        return scheduled;
+    }
+
+    // Копия задачи с заданным временем начала; версия сохраняется, чтобы обновление не затёрло чужое изменение
+    static Task withStartTime(Task task, LocalDateTime start) {
+        Task placed = task.getType() == TaskType.SUBTASK
+                ? new Subtask(task.getTitle(), task.getDescription(), task.getStatus(),
+                        ((Subtask) task).getEpicId(), task.getDuration(), start)
+                : new Task(task.getTitle(), task.getDescription(), task.getStatus(), task.getDuration(), start);
+        placed.setId(task.getId());
+        placed.setVersion(task.getVersion());
+        return placed;
+    }
+
+    // Окна для расстановки с деревом отрезков по максимальному свободному времени (в секундах)
+    private static final class Windows {
+        private static final long CLOSED = -1;
+        private static final long UNBOUNDED = Long.MAX_VALUE;
+
+        private LocalDateTime[] starts = new LocalDateTime[16];
+        private LocalDateTime[] ends = new LocalDateTime[16];
+        private long[] tree = newTree(16);
+        private int size;
+
+        void append(TimeSlot window) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                long[] grown = newTree(size * 2);
+                System.arraycopy(tree, size, grown, size * 2, size); // Листья, внутренние узлы — заново
+                tree = grown;
+                for (int node = size * 2 - 1; node > 0; node--) {
+                    tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+                }
+            }
+            starts[size] = window.start();
+            ends[size] = window.end();
+            update(size++);
+        }
+
+        // Индекс самого раннего окна, где свободно не меньше needed секунд, или -1
+        int firstFitting(long needed) {
+            if (tree[1] < needed) {
+                return -1;
+            }
+            int node = 1;
+            int leaves = starts.length;
+            while (node < leaves) {
+                node = tree[2 * node] >= needed ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+
+        void shrink(int index, LocalDateTime newStart) {
+            starts[index] = newStart;
+            update(index);
+        }
+
+        private void update(int index) {
+            LocalDateTime start = starts[index];
+            LocalDateTime end = ends[index];
+            long free = end == null ? UNBOUNDED : start.isAfter(end) ? CLOSED : Duration.between(start, end).getSeconds();
+            int node = starts.length + index;
+            tree[node] = free;
+            for (node /= 2; node > 0; node /= 2) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        private static long[] newTree(int leaves) {
+            long[] tree = new long[2 * leaves];
+            Arrays.fill(tree, CLOSED);
+            return tree;
+        }
+    }
+
+    // Свободные промежутки, разрезанные по рабочим часам: по окну на каждый день, пустые окна пропускаются
+    private static final class WorkingWindows implements Iterator<TimeSlot> {
+        private final Iterator<TimeSlot> gaps;
+        private final WorkingHours hours;
+        private TimeSlot gap;
+        private LocalDate day;
+        private TimeSlot next;
+
+        WorkingWindows(Iterator<TimeSlot> gaps, WorkingHours hours) {
+            this.gaps = gaps;
+            this.hours = hours;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (gap == null) {
+                    if (!gaps.hasNext()) {
+                        return false;
+                    }
+                    gap = gaps.next();
+                    day = gap.start().toLocalDate();
+                }
+                LocalDateTime dayStart = day.atTime(hours.start());
+                LocalDateTime dayEnd = day.atTime(hours.end());
+                if (gap.end() != null && dayStart.isAfter(gap.end())) {
+                    gap = null; // Промежуток закончился до начала этого рабочего дня
+                    continue;
+                }
+                LocalDateTime start = gap.start().isAfter(dayStart) ? gap.start() : dayStart;
+                LocalDateTime end = gap.end() != null && gap.end().isBefore(dayEnd) ? gap.end() : dayEnd;
+                day = day.plusDays(1);
+                if (start.isBefore(end)) {
+                    next = new TimeSlot(start, end);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public TimeSlot next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            TimeSlot window = next;
+            next = null;
+            return window;
+        }
+    }
+}
@@ -0,0 +1,845 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+import ru.yandex.practicum.utils.IntObjectMap;
+import ru.yandex.practicum.utils.LinkedIntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Менеджер задач с компактным хранением для очень больших досок.
+ * <p>
+ * Вместо объекта на задачу поля хранятся записями фиксированного размера ({@link TaskRecords}): тип и статус
+ * (byte), начало в минутах от эпохи (long), продолжительность в минутах (int), id эпика (int), номера названия
+ * и описания в хранилище строк ({@link StringStore}) и версия (long). Объекты {@link Task}, {@link Epic}
+ * и {@link Subtask} создаются только при чтении и являются копиями: изменить задачу можно только через
+ * {@link #updateTask}. Поля эпика (статус, начало, продолжительность, окончание) собираются из подзадач при чтении.
+ * <p>
+ * Время хранится с точностью до минуты. Отсортированный список и проверка пересечений работают
+ * по {@link CompactTimeline}; выборки по статусу и полнотекстовый поиск — последовательным проходом
+ * по записям без отдельных индексов: памяти они не требуют, но выполняются за O(N).
+ * <p>
+ * По умолчанию записи лежат в колонках в куче ({@link HeapTaskRecords}), а одинаковые строки хранятся один раз
+ * ({@link StringTable}). Замер на 1 010 000 задач, подзадач и эпиков со временем и повторяющимися названиями
+ * (JDK 17, сжатые указатели, занятая куча после сборки мусора): InMemoryTaskManager — около 900 байт на задачу,
+ * CompactTaskManager — около 66 байт (34 байта колонок, 20 байт шкалы времени, остальное — запас ёмкости
+ * массивов).
+ * <p>
+ * В режиме {@link Managers#getOffHeap()} записи и строки лежат вне кучи ({@link OffHeapTaskRecords},
+ * {@link OffHeapStringArena}); в куче остаются шкала времени и списки подзадач эпиков — массивы примитивов,
+ * которые сборщик мусора не обходит. На том же замере это около 37 байт кучи на задачу, полная сборка мусора
+ * занимает единицы миллисекунд против секунды у InMemoryTaskManager. Цена — чтение строк: поиск декодирует
+ * каждое название и описание заново.
+ */
+public class CompactTaskManager implements TaskManager {
+    private static final byte NO_STATUS = -1;
+    private static final int NO_DURATION = -1;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final String[] NO_TERMS = new String[0];
+
+    private final TaskRecords records;
+    private final StringStore strings;
+    private int nextId = 1;
+
+    private final CompactTimeline timeline = new CompactTimeline();
+    // Подзадачи эпика в порядке добавления и счётчики их статусов для статуса эпика
+    private final IntObjectMap<EpicLinks> epicLinks = new IntObjectMap<>();
+    // Зависимости есть у немногих задач, поэтому их граф хранится отдельно от записей
+    private final DependencyGraph dependencies = new DependencyGraph();
+    // Повторяющиеся задачи — правила, а не записи: их немного, и повторения не занимают места
+    private final RecurrenceIndex recurrences = new RecurrenceIndex();
+    private final HistoryManager historyManager;
+    private final TaskEventBus eventBus = new TaskEventBus();
+
+    private long prioritizedVersion;
+    private volatile PrioritizedSnapshot prioritizedSnapshot;
+
+    private static final class EpicLinks {
+        final LinkedIntSet subtaskIds = new LinkedIntSet();
+        final int[] statusCounts = new int[STATUSES.length];
+    }
+
+    public CompactTaskManager(HistoryManager historyManager) {
+        this(historyManager, 16);
+    }
+
+    public CompactTaskManager(HistoryManager historyManager, int expectedTasks) {
+        this(historyManager, new HeapTaskRecords(expectedTasks), new StringTable());
+    }
+
+    CompactTaskManager(HistoryManager historyManager, TaskRecords records, StringStore strings) {
+        this.historyManager = historyManager;
+        this.records = records;
+        this.strings = strings;
+    }
+
+    @Override
+    public TaskEventBus getEventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public int addTask(Task task) {
+        if (task.getType() == TaskType.RECURRING) {
+            return addRecurringTask((RecurringTask) task);
+        }
+        if (task.getType() != TaskType.EPIC && overlaps(startOf(task), endOf(task), 0)) {
+            throw new IllegalArgumentException("Новая задача пересекается по времени выполнения с существующей задачей.");
+        }
+        task.setId(nextId++);
+        insert(task, TaskEventType.CREATED);
+        return task.getId();
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return addTask(subtask);
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return addTask(epic);
+    }
+
+    /**
+     * Добавляет пачку задач по принципу «всё или ничего». Пересечения проверяются до вставки; шкала времени
+     * пополняется одним слиянием, а статус каждого затронутого эпика пересчитывается один раз на пачку.
+     */
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> batch) {
+        List<Task> timedTasks = new ArrayList<>();
+        for (Task task : batch) {
+            if (task == null || task.getType() == null) {
+                throw new IllegalArgumentException("Пакет содержит пустую задачу.");
+            }
+            if (task.getType() == TaskType.RECURRING) {
+                throw new IllegalArgumentException("Повторяющиеся задачи добавляются по одной.");
+            }
+            if (task.getType() != TaskType.EPIC && endOf(task) != CompactTimeline.NO_END) {
+                timedTasks.add(task);
+            }
+        }
+        timedTasks.sort(Comparator.comparing(Task::getStartTime));
+        long previousEnd = CompactTimeline.NO_END;
+        for (Task task : timedTasks) {
+            long start = startOf(task);
+            if (previousEnd != CompactTimeline.NO_END && start <= previousEnd
+                    || overlaps(start, endOf(task), 0)) {
+                throw new IllegalArgumentException("Задачи пакета пересекаются по времени выполнения между собой " +
+                        "или с существующими задачами.");
+            }
+            previousEnd = Math.max(previousEnd, endOf(task));
+        }
+
+        List<Integer> ids = new ArrayList<>(batch.size());
+        List<Task> scheduled = new ArrayList<>();
+        Set<Integer> changedEpics = new LinkedHashSet<>();
+        for (Task task : batch) {
+            task.setId(nextId++);
+            records.allocate(task.getId(), typeCode(task.getType()));
+            writeFields(task, false);
+            task.setVersion(1);
+            records.setVersion(task.getId(), 1);
+            publish(TaskEventType.CREATED, task.getId());
+            if (task.getType() == TaskType.EPIC) {
+                epicLinks.put(task.getId(), new EpicLinks());
+                records.setStatus(task.getId(), (byte) Status.NEW.ordinal());
+            } else {
+                if (task.getType() == TaskType.SUBTASK && link(task.getId())) {
+                    changedEpics.add(((Subtask) task).getEpicId());
+                }
+                if (task.getStartTime() != null) {
+                    scheduled.add(task);
+                }
+            }
+            ids.add(task.getId());
+        }
+        scheduled.sort(Comparator.comparingLong(CompactTaskManager::startOf).thenComparingInt(Task::getId));
+        CompactTimeline added = new CompactTimeline(scheduled.size());
+        scheduled.forEach(task -> added.append(task.getId(), startOf(task), endOf(task)));
+        timeline.addAll(added);
+        changedEpics.forEach(this::epicChanged);
+        invalidatePrioritized();
+        return ids;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        if (!exists(id)) {
+            return null;
+        }
+        Task task = view(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Task getTaskById(int id, TaskType type) {
+        if (!exists(id) || typeOf(id) != type) {
+            return null; // Задачи нет или у неё другой тип
+        }
+        return getTaskById(id);
+    }
+
+    @Override
+    public Epic getEpicById(int epicId) {
+        return exists(epicId) && typeOf(epicId) == TaskType.EPIC ? epicView(epicId) : null;
+    }
+
+    // Задачи, подзадачи, затем эпики, как у InMemoryTaskManager
+    @Override
+    public List<Task> getAllTasks() {
+        List<Task> all = new ArrayList<>();
+        for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK, TaskType.EPIC)) {
+            collect(type, null, all);
+        }
+        return all;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Epic> getAllEpics() {
+        return (List<Epic>) (List<?>) collect(TaskType.EPIC, null, new ArrayList<>());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Subtask> getAllSubtasks() {
+        return (List<Subtask>) (List<?>) collect(TaskType.SUBTASK, null, new ArrayList<>());
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        return collect(type, status, new ArrayList<>());
+    }
+
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> result = new ArrayList<>();
+        for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK, TaskType.EPIC)) {
+            collect(type, status, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        byte typeCode = typeCode(type);
+        byte statusCode = (byte) status.ordinal();
+        int count = 0;
+        for (int id = 1; id < nextId; id++) {
+            if (records.contains(id) && records.getType(id) == typeCode && records.getStatus(id) == statusCode) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Слова каждой строки выделяются не больше одного раза за запрос
+    @Override
+    public List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество результатов должно быть положительным: " + limit);
+        }
+        String[] terms = SearchIndex.tokenize(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        IntObjectMap<String[]> termsByString = new IntObjectMap<>();
+        List<SearchIndex.Match> matches = new ArrayList<>();
+        for (int id = 1; id < nextId; id++) {
+            if (!records.contains(id)) {
+                continue;
+            }
+            int score = SearchIndex.score(termsOf(records.getTitle(id), termsByString),
+                    termsOf(records.getDescription(id), termsByString), terms);
+            if (score > 0) {
+                matches.add(new SearchIndex.Match(id, score));
+            }
+        }
+        return matches.stream()
+                .sorted(SearchIndex.Match.ORDER)
+                .limit(limit)
+                .map(SearchIndex.Match::id)
+                .toList();
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        if (updatedTask.getType() == TaskType.RECURRING) {
+            throw new IllegalArgumentException("Повторяющуюся задачу нельзя изменить: её можно удалить и добавить заново.");
+        }
+        int id = updatedTask.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Некорректный id задачи: " + id);
+        }
+        if (!exists(id) && updatedTask.getVersion() != 0) {
+            throw new TaskVersionConflictException("Задача с id " + id + " не найдена, ожидалась версия " +
+                    updatedTask.getVersion());
+        }
+        if (!exists(id)) {
+            // Как и InMemoryTaskManager, обновление неизвестной задачи добавляет её с переданным id
+            if (updatedTask.getType() != TaskType.EPIC
+                    && overlaps(startOf(updatedTask), endOf(updatedTask), id)) {
+                throw new IllegalArgumentException("Обновленная задача пересекается по времени выполнения " +
+                        "с существующей задачей.");
+            }
+            nextId = Math.max(nextId, id + 1);
+            insert(updatedTask, TaskEventType.UPDATED);
+            return;
+        }
+        if (typeOf(id) != updatedTask.getType()) {
+            throw new IllegalArgumentException("Задача с id " + id + " имеет другой тип: " + typeOf(id));
+        }
+        // Сравнение с версией, которую видел клиент: чужое изменение не перезаписывается молча
+        long version = records.getVersion(id);
+        if (updatedTask.getVersion() != 0 && updatedTask.getVersion() != ANY_VERSION
+                && updatedTask.getVersion() != version) {
+            throw new TaskVersionConflictException("Задача с id " + id + " уже изменена: версия " +
+                    version + ", ожидалась " + updatedTask.getVersion());
+        }
+        if (updatedTask.getType() == TaskType.EPIC) {
+            byte rollupStatus = records.getStatus(id); // Статус эпика задаётся подзадачами, а не клиентом
+            writeFields(updatedTask, true);
+            records.setStatus(id, rollupStatus);
+            records.setVersion(id, version + 1);
+            updatedTask.setVersion(version + 1);
+            publish(TaskEventType.UPDATED, id);
+            return;
+        }
+        if (overlaps(startOf(updatedTask), endOf(updatedTask), id)) {
+            throw new IllegalArgumentException("Обновленная задача пересекается по времени выполнения " +
+                    "с существующей задачей.");
+        }
+
+        int oldEpicId = records.getEpicId(id);
+        boolean wasLinked = updatedTask.getType() == TaskType.SUBTASK && unlink(id);
+        unschedule(id);
+        writeFields(updatedTask, true);
+        records.setVersion(id, version + 1);
+        updatedTask.setVersion(version + 1);
+        publish(TaskEventType.UPDATED, id);
+        if (updatedTask.getType() == TaskType.SUBTASK) {
+            int epicId = ((Subtask) updatedTask).getEpicId();
+            if (wasLinked && oldEpicId != epicId) {
+                epicChanged(oldEpicId); // Подзадачу перенесли в другой эпик
+            }
+            if (link(id)) {
+                epicChanged(epicId);
+            }
+        }
+        schedule(id);
+        invalidatePrioritized();
+        if (dependencies.contains(id)) {
+            dependencies.update(view(id)); // Время хранится с точностью до минуты — граф получает его так же
+        }
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        if (!exists(id)) {
+            return;
+        }
+        publish(TaskEventType.REMOVED, id);
+        switch (typeOf(id)) {
+            case TASK:
+                unschedule(id);
+                freeRecord(id);
+                break;
+            case SUBTASK:
+                unschedule(id);
+                int epicId = records.getEpicId(id);
+                if (unlink(id)) {
+                    epicChanged(epicId);
+                }
+                freeRecord(id);
+                break;
+            case EPIC:
+                // Удаление эпика и всех его подзадач
+                EpicLinks links = epicLinks.remove(id);
+                links.subtaskIds.forEach(subtaskId -> {
+                    publish(TaskEventType.REMOVED, subtaskId);
+                    unschedule(subtaskId);
+                    freeRecord(subtaskId);
+                });
+                freeRecord(id);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + typeOf(id));
+        }
+        invalidatePrioritized();
+    }
+
+    @Override
+    public void removeAllTasks() {
+        timeline.removeIf(id -> typeOf(id) == TaskType.TASK);
+        for (int id = 1; id < nextId; id++) {
+            if (typeOf(id) == TaskType.TASK) {
+                publish(TaskEventType.REMOVED, id);
+                freeRecord(id);
+            }
+        }
+        invalidatePrioritized();
+    }
+
+    // Удаляются все эпики и привязанные к ним подзадачи
+    @Override
+    public void removeAllEpics() {
+        timeline.removeIf(id -> typeOf(id) == TaskType.SUBTASK && isLinked(id));
+        epicLinks.forEach((links, epicId) -> {
+            links.subtaskIds.forEach(subtaskId -> {
+                publish(TaskEventType.REMOVED, subtaskId);
+                freeRecord(subtaskId);
+            });
+            publish(TaskEventType.REMOVED, epicId);
+            freeRecord(epicId);
+        });
+        epicLinks.clear();
+        invalidatePrioritized();
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        timeline.removeIf(id -> typeOf(id) == TaskType.SUBTASK);
+        epicLinks.forEach((links, epicId) -> {
+            links.subtaskIds.clear();
+            Arrays.fill(links.statusCounts, 0);
+            epicChanged(epicId); // Эпик без подзадач снова NEW
+        });
+        for (int id = 1; id < nextId; id++) {
+            if (typeOf(id) == TaskType.SUBTASK) {
+                publish(TaskEventType.REMOVED, id);
+                freeRecord(id);
+            }
+        }
+        invalidatePrioritized();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksForEpic(int epicId) {
+        EpicLinks links = epicLinks.get(epicId);
+        if (links == null) {
+            return List.of(); // Возвращаем пустой список, если эпик не найден
+        }
+        List<Subtask> result = new ArrayList<>(links.subtaskIds.size());
+        links.subtaskIds.forEach(subtaskId -> result.add(subtaskView(subtaskId)));
+        return result;
+    }
+
+    @Override
+    public Map<Epic, List<Subtask>> getEpicAndSubtasks(int epicId) {
+        Map<Epic, List<Subtask>> epicAndSubtasks = new HashMap<>();
+        Epic epic = getEpicById(epicId);
+        if (epic != null) {
+            epicAndSubtasks.put(epic, getSubtasksForEpic(epicId));
+        }
+        return epicAndSubtasks;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getPrioritizedSnapshot().tasks();
+    }
+
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        PrioritizedSnapshot snapshot = prioritizedSnapshot;
+        if (snapshot == null) {
+            snapshot = new PrioritizedSnapshot(prioritizedVersion,
+                    List.copyOf(prioritizedRange(null, null, null, Integer.MAX_VALUE)));
+            prioritizedSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return prioritizedRange(from, to, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+        return prioritizedRange(from, to, after, limit);
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return IntervalIndex.first(findFreeSlots(duration, notBefore, 1));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime notBefore, int count) {
+        if (recurrences.isEmpty()) {
+            return timeline.findGaps(duration, notBefore, count);
+        }
+        IntervalIndex.checkGapQuery(duration, notBefore, count);
+        return IntervalIndex.firstFitting(recurrences.subtract(timeline.gaps(notBefore)), duration, count);
+    }
+
+    // Как в InMemoryTaskManager: места вычисляются по шкале до первого изменения, отклонённый перенос откатывается
+    @Override
+    public List<Task> autoSchedule(List<Integer> taskIds, LocalDateTime notBefore, WorkingHours workingHours) {
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого расставлять задачи.");
+        }
+        List<Task> unscheduled = AutoScheduler.collect(taskIds, id -> exists(id) ? view(id) : null);
+        List<LocalDateTime> starts = AutoScheduler.schedule(recurrences.subtract(timeline.gaps(notBefore)), unscheduled,
+                workingHours);
+        return AutoScheduler.apply(unscheduled, starts, this::updateTask);
+    }
+
+    @Override
+    public int addRecurringTask(RecurringTask task) {
+        RecurrenceIndex.validate(task);
+        if (recurrences.findOverlap(task) != null || RecurrenceIndex.overlapsTimeline(task, timeline.lastEnd(),
+                (start, end) -> timeline.findOverlap(CompactTimeline.toMinutes(start),
+                        CompactTimeline.toMinutes(end), 0) != 0)) {
+            throw new IllegalArgumentException("Повторения задачи пересекаются по времени выполнения " +
+                    "с существующими задачами.");
+        }
+        task.setId(nextId++);
+        task.setVersion(1);
+        recurrences.add(task);
+        eventBus.publish(TaskEventType.CREATED, task.getId(), TaskType.RECURRING, task.getVersion());
+        return task.getId();
+    }
+
+    @Override
+    public void removeRecurringTask(int id) {
+        RecurringTask task = recurrences.remove(id);
+        if (task != null) {
+            eventBus.publish(TaskEventType.REMOVED, id, TaskType.RECURRING, task.getVersion());
+        }
+    }
+
+    @Override
+    public List<RecurringTask> getRecurringTasks() {
+        return recurrences.tasks();
+    }
+
+    @Override
+    public List<Occurrence> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        return recurrences.occurrences(from, to);
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        dependencies.addDependency(dependencyTask(taskId), dependencyTask(dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        dependencies.removeDependency(taskId, dependsOnId);
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return dependencies.dependenciesOf(taskId);
+    }
+
+    @Override
+    public LocalDateTime getEarliestStart(int taskId) {
+        if (!exists(taskId)) {
+            return null;
+        }
+        return dependencies.contains(taskId) ? dependencies.earliestStart(taskId) : view(taskId).getStartTime();
+    }
+
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        return dependencies.criticalPath(getSubtasksForEpic(epicId));
+    }
+
+    // Количество различных строк в хранилище: показывает, насколько помогает хранение строк один раз
+    int distinctStrings() {
+        return strings.size();
+    }
+
+    /**
+     * Задачи со временем начала в полуинтервале [from, to) по шкале, затем, если диапазон не задан,
+     * задачи без времени по возрастанию id. Курсор с пустым временем указывает в хвост без времени.
+     */
+    private List<Task> prioritizedRange(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit) {
+        int lower = from != null ? timeline.firstAtOrAfter(CompactTimeline.ceilMinutes(from)) : 0;
+        int upper = to != null ? timeline.firstAtOrAfter(CompactTimeline.ceilMinutes(to)) : timeline.size();
+        int untimedAfter = 0;
+        if (after != null && after.startTime() != null) {
+            lower = Math.max(lower, timeline.firstAfter(CompactTimeline.toMinutes(after.startTime()), after.id()));
+        } else if (after != null) {
+            lower = upper;
+            untimedAfter = after.id();
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, 64));
+        for (int i = lower; i < upper && result.size() < limit; i++) {
+            result.add(view(timeline.idAt(i)));
+        }
+        if (from == null && to == null) {
+            for (int id = untimedAfter + 1; id < nextId && result.size() < limit; id++) {
+                TaskType type = typeOf(id);
+                if (type != null && type != TaskType.EPIC && records.getStartMinute(id) == CompactTimeline.NO_TIME) {
+                    result.add(view(id));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void insert(Task task, TaskEventType event) {
+        int id = task.getId();
+        records.allocate(id, typeCode(task.getType()));
+        writeFields(task, false);
+        task.setVersion(1);
+        records.setVersion(id, 1);
+        publish(event, id);
+        switch (task.getType()) {
+            case SUBTASK:
+                if (link(id)) {
+                    epicChanged(((Subtask) task).getEpicId()); // Статус эпика мог измениться
+                }
+                break;
+            case EPIC:
+                epicLinks.put(id, new EpicLinks());
+                records.setStatus(id, (byte) Status.NEW.ordinal());
+                return; // Эпики не добавляются в отсортированный список
+            case TASK:
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + task.getType());
+        }
+        schedule(id);
+        invalidatePrioritized();
+    }
+
+    // Новые строки берутся до освобождения старых, чтобы неизменное название не удалялось из таблицы строк
+    private void writeFields(Task task, boolean replacing) {
+        int id = task.getId();
+        int title = strings.acquire(task.getTitle());
+        int description = strings.acquire(task.getDescription());
+        if (replacing) {
+            strings.release(records.getTitle(id));
+            strings.release(records.getDescription(id));
+        }
+        records.setTitle(id, title);
+        records.setDescription(id, description);
+        records.setStatus(id, task.getStatus() == null ? NO_STATUS : (byte) task.getStatus().ordinal());
+        boolean epic = task.getType() == TaskType.EPIC;
+        records.setStartMinute(id, epic ? CompactTimeline.NO_TIME : CompactTimeline.toMinutes(task.getStartTime()));
+        records.setDurationMinutes(id, epic || task.getDuration() == null ? NO_DURATION
+                : Math.toIntExact(task.getDuration().toMinutes()));
+        records.setEpicId(id, task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : 0);
+    }
+
+    private void freeRecord(int id) {
+        dependencies.remove(id);
+        strings.release(records.getTitle(id));
+        strings.release(records.getDescription(id));
+        records.free(id);
+    }
+
+    private void schedule(int id) {
+        long start = records.getStartMinute(id);
+        if (start != CompactTimeline.NO_TIME) {
+            timeline.add(id, start, endMinutes(id));
+        }
+    }
+
+    private void unschedule(int id) {
+        long start = records.getStartMinute(id);
+        if (start != CompactTimeline.NO_TIME) {
+            timeline.remove(id, start);
+        }
+    }
+
+    // Привязывает подзадачу к её эпику; false, если такого эпика нет
+    private boolean link(int subtaskId) {
+        EpicLinks links = epicLinks.get(records.getEpicId(subtaskId));
+        if (links == null) {
+            return false;
+        }
+        links.subtaskIds.add(subtaskId);
+        byte status = records.getStatus(subtaskId);
+        if (status != NO_STATUS) {
+            links.statusCounts[status]++;
+        }
+        return true;
+    }
+
+    private boolean unlink(int subtaskId) {
+        EpicLinks links = epicLinks.get(records.getEpicId(subtaskId));
+        if (links == null || !links.subtaskIds.remove(subtaskId)) {
+            return false;
+        }
+        byte status = records.getStatus(subtaskId);
+        if (status != NO_STATUS) {
+            links.statusCounts[status]--;
+        }
+        return true;
+    }
+
+    private boolean isLinked(int subtaskId) {
+        EpicLinks links = epicLinks.get(records.getEpicId(subtaskId));
+        return links != null && links.subtaskIds.contains(subtaskId);
+    }
+
+    // Статус эпика по счётчикам подзадач, как в Epic: все NEW — NEW, все DONE — DONE, иначе IN_PROGRESS
+    private void epicChanged(int epicId) {
+        EpicLinks links = epicLinks.get(epicId);
+        int total = links.subtaskIds.size();
+        Status status;
+        if (total == 0 || links.statusCounts[Status.NEW.ordinal()] == total) {
+            status = Status.NEW;
+        } else if (links.statusCounts[Status.DONE.ordinal()] == total) {
+            status = Status.DONE;
+        } else {
+            status = Status.IN_PROGRESS;
+        }
+        records.setStatus(epicId, (byte) status.ordinal());
+        records.setVersion(epicId, records.getVersion(epicId) + 1);
+        publish(TaskEventType.EPIC_ROLLUP_CHANGED, epicId);
+    }
+
+    private void publish(TaskEventType type, int id) {
+        eventBus.publish(type, id, typeOf(id), records.getVersion(id));
+    }
+
+    private void invalidatePrioritized() {
+        prioritizedVersion++;
+        prioritizedSnapshot = null;
+    }
+
+    private boolean exists(int id) {
+        return id < nextId && records.contains(id);
+    }
+
+    private TaskType typeOf(int id) {
+        return records.contains(id) ? TYPES[records.getType(id) - 1] : null;
+    }
+
+    private static byte typeCode(TaskType type) {
+        return (byte) (type.ordinal() + 1);
+    }
+
+    private List<Task> collect(TaskType type, Status status, List<Task> target) {
+        byte typeCode = typeCode(type);
+        for (int id = 1; id < nextId; id++) {
+            if (records.contains(id) && records.getType(id) == typeCode
+                    && (status == null || records.getStatus(id) == status.ordinal())) {
+                target.add(view(id));
+            }
+        }
+        return target;
+    }
+
+    private String[] termsOf(int stringId, IntObjectMap<String[]> termsByString) {
+        if (stringId == StringStore.NONE) {
+            return NO_TERMS;
+        }
+        String[] terms = termsByString.get(stringId);
+        if (terms == null) {
+            terms = SearchIndex.tokenize(strings.get(stringId));
+            termsByString.put(stringId, terms);
+        }
+        return terms;
+    }
+
+    // Пересечение с задачами на шкале (кроме excludedId) или с повторениями повторяющихся задач
+    private boolean overlaps(long start, long end, int excludedId) {
+        return timeline.findOverlap(start, end, excludedId) != 0
+                || recurrences.findOverlap(CompactTimeline.toDateTime(start), CompactTimeline.toDateTime(end)) != 0;
+    }
+
+    private Task dependencyTask(int id) {
+        if (!exists(id) || typeOf(id) == TaskType.EPIC) {
+            throw new IllegalArgumentException("Задача с id " + id + " не найдена или является эпиком.");
+        }
+        return view(id);
+    }
+
+    private Task view(int id) {
+        switch (typeOf(id)) {
+            case SUBTASK:
+                return subtaskView(id);
+            case EPIC:
+                return epicView(id);
+            default:
+                Task task = new Task(strings.get(records.getTitle(id)), strings.get(records.getDescription(id)),
+                        statusOf(id), durationOf(id), CompactTimeline.toDateTime(records.getStartMinute(id)));
+                task.setId(id);
+                task.setVersion(records.getVersion(id));
+                return task;
+        }
+    }
+
+    private Subtask subtaskView(int id) {
+        Subtask subtask = new Subtask(strings.get(records.getTitle(id)), strings.get(records.getDescription(id)),
+                statusOf(id), records.getEpicId(id), durationOf(id),
+                CompactTimeline.toDateTime(records.getStartMinute(id)));
+        subtask.setId(id);
+        subtask.setVersion(records.getVersion(id));
+        return subtask;
+    }
+
+    // Поля эпика пересчитываются самим Epic по копиям подзадач
+    private Epic epicView(int id) {
+        Epic epic = new Epic(strings.get(records.getTitle(id)), strings.get(records.getDescription(id)));
+        epic.setId(id);
+        epic.addSubtasks(getSubtasksForEpic(id));
+        epic.setVersion(records.getVersion(id));
+        return epic;
+    }
+
+    private Status statusOf(int id) {
+        byte status = records.getStatus(id);
+        return status == NO_STATUS ? null : STATUSES[status];
+    }
+
+    private Duration durationOf(int id) {
+        int minutes = records.getDurationMinutes(id);
+        return minutes == NO_DURATION ? null : Duration.ofMinutes(minutes);
+    }
+
+    private long endMinutes(int id) {
+        long start = records.getStartMinute(id);
+        int minutes = records.getDurationMinutes(id);
+        return start == CompactTimeline.NO_TIME || minutes == NO_DURATION ? CompactTimeline.NO_END : start + minutes;
+    }
+
+    private static long startOf(Task task) {
+        return CompactTimeline.toMinutes(task.getStartTime());
+    }
+
+    private static long endOf(Task task) {
+        return task.getStartTime() == null || task.getDuration() == null ? CompactTimeline.NO_END
+                : startOf(task) + task.getDuration().toMinutes();
+    }
+}
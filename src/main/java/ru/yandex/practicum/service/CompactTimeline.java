@@ -0,0 +1,279 @@
+package ru.yandex.practicum.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * Шкала времени {@link CompactTaskManager} в виде трёх параллельных массивов, отсортированных по паре
+ * (начало, id): минуты начала, минуты окончания и id задачи. Заменяет TreeSet и {@link IntervalIndex}
+ * без объекта на каждую задачу: 20 байт на запись вместо узлов дерева и записи в индексе интервалов.
+ * <p>
+ * Задачи с началом, но без продолжительности, занимают место в порядке, но не в проверке пересечений
+ * (у них {@link #NO_END}). Интервалы с окончанием попарно не пересекаются, поэтому, как и в IntervalIndex,
+ * поиск пересечения идёт от конца новой задачи назад и останавливается на первом закончившемся раньше.
+ * Вставка одной записи сдвигает хвост массивов; пачки вставляются слиянием за один проход.
+ */
+class CompactTimeline {
+    static final long NO_TIME = Long.MIN_VALUE;
+    static final long NO_END = Long.MIN_VALUE;
+
+    private long[] starts;
+    private long[] ends;
+    private int[] ids;
+    private int size;
+
+    CompactTimeline() {
+        this(16);
+    }
+
+    CompactTimeline(int capacity) {
+        starts = new long[Math.max(capacity, 1)];
+        ends = new long[starts.length];
+        ids = new int[starts.length];
+    }
+
+    // Минуты от начала эпохи (UTC); секунды отбрасываются
+    static long toMinutes(LocalDateTime time) {
+        return time == null ? NO_TIME : Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Наименьшая минута, которая не раньше time
+    static long ceilMinutes(LocalDateTime time) {
+        return -Math.floorDiv(-time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime toDateTime(long minutes) {
+        return minutes == NO_TIME ? null : LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Самое позднее окончание на шкале (у последней записи с окончанием) или null
+    LocalDateTime lastEnd() {
+        for (int i = size - 1; i >= 0; i--) {
+            if (ends[i] != NO_END) {
+                return toDateTime(ends[i]);
+            }
+        }
+        return null;
+    }
+
+    int idAt(int index) {
+        return ids[index];
+    }
+
+    void add(int id, long start, long end) {
+        int index = -search(start, id) - 1;
+        if (index < 0) {
+            return; // Запись уже есть
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        set(index, id, start, end);
+        size++;
+    }
+
+    // Дописывает запись в конец; вызывающий гарантирует, что она не меньше последней
+    void append(int id, long start, long end) {
+        ensureCapacity(size + 1);
+        set(size++, id, start, end);
+    }
+
+    // Сливает с другой шкалой за O(N + M) вместо M вставок со сдвигом
+    void addAll(CompactTimeline batch) {
+        if (batch.size == 0) {
+            return;
+        }
+        int total = size + batch.size;
+        long[] mergedStarts = new long[Math.max(total, starts.length)];
+        long[] mergedEnds = new long[mergedStarts.length];
+        int[] mergedIds = new int[mergedStarts.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            boolean takeOwn = j == batch.size || i < size
+                    && compare(starts[i], ids[i], batch.starts[j], batch.ids[j]) < 0;
+            if (takeOwn) {
+                mergedStarts[k] = starts[i];
+                mergedEnds[k] = ends[i];
+                mergedIds[k] = ids[i++];
+            } else {
+                mergedStarts[k] = batch.starts[j];
+                mergedEnds[k] = batch.ends[j];
+                mergedIds[k] = batch.ids[j++];
+            }
+        }
+        starts = mergedStarts;
+        ends = mergedEnds;
+        ids = mergedIds;
+        size = total;
+    }
+
+    void remove(int id, long start) {
+        int index = search(start, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    // Удаляет все записи, id которых подходит под условие, за один проход
+    void removeIf(IntPredicate condition) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!condition.test(ids[i])) {
+                set(kept++, ids[i], starts[i], ends[i]);
+            }
+        }
+        size = kept;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Id задачи, пересекающейся с интервалом [start, end] (кроме excludedId), или 0
+    int findOverlap(long start, long end, int excludedId) {
+        if (start == NO_TIME || end == NO_END) {
+            return 0; // Задача без времени выполнения ни с чем не пересекается
+        }
+        for (int i = firstAtOrAfter(end + 1) - 1; i >= 0; i--) {
+            if (ends[i] == NO_END) {
+                continue;
+            }
+            if (ends[i] < start) {
+                return 0; // Все более ранние интервалы заканчиваются ещё раньше
+            }
+            if (ids[i] != excludedId) {
+                return ids[i];
+            }
+        }
+        return 0;
+    }
+
+    // Индекс первой записи с началом не раньше minute
+    int firstAtOrAfter(long minute) {
+        int index = search(minute, Integer.MIN_VALUE);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    // Индекс первой записи строго после пары (start, id)
+    int firstAfter(long start, int id) {
+        int index = search(start, id);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    /**
+     * То же, что {@link IntervalIndex#findGaps}: первые limit промежутков не раньше notBefore, в которые
+     * помещается задача длительностью duration, с зазором в минуту до и после занятых интервалов.
+     */
+    List<TimeSlot> findGaps(Duration duration, LocalDateTime notBefore, int limit) {
+        IntervalIndex.checkGapQuery(duration, notBefore, limit);
+        return IntervalIndex.firstFitting(gaps(notBefore), duration, limit);
+    }
+
+    // Все свободные промежутки от notBefore по порядку, как в IntervalIndex.gaps
+    Iterator<TimeSlot> gaps(LocalDateTime notBefore) {
+        LocalDateTime start = notBefore;
+        int first = firstAtOrAfter(toMinutes(notBefore) + 1); // Первая запись, начатая строго позже notBefore
+        for (int i = first - 1; i >= 0; i--) {
+            if (ends[i] != NO_END) {
+                LocalDateTime previousEnd = toDateTime(ends[i]);
+                if (!previousEnd.isBefore(notBefore)) {
+                    start = previousEnd.plus(IntervalIndex.SLOT_STEP); // notBefore внутри занятого интервала
+                }
+                break;
+            }
+        }
+        LocalDateTime firstStart = start;
+        return new Iterator<>() {
+            private LocalDateTime candidate = firstStart;
+            private int index = first;
+            private TimeSlot next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !finished) {
+                    if (index == size) {
+                        next = new TimeSlot(candidate, null); // После последней задачи шкала свободна
+                        finished = true;
+                        break;
+                    }
+                    int i = index++;
+                    if (ends[i] == NO_END) {
+                        continue;
+                    }
+                    LocalDateTime latestEnd = toDateTime(starts[i]).minus(IntervalIndex.SLOT_STEP);
+                    if (candidate.isBefore(latestEnd)) {
+                        next = new TimeSlot(candidate, latestEnd);
+                    }
+                    LocalDateTime afterSlot = toDateTime(ends[i]).plus(IntervalIndex.SLOT_STEP);
+                    candidate = afterSlot.isAfter(candidate) ? afterSlot : candidate;
+                }
+                return next != null;
+            }
+
+            @Override
+            public TimeSlot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TimeSlot gap = next;
+                next = null;
+                return gap;
+            }
+        };
+    }
+
+    // Двоичный поиск пары (start, id): индекс или -(точка вставки) - 1, как в Arrays.binarySearch
+    private int search(long start, int id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compare(starts[middle], ids[middle], start, id);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int compare(long start1, int id1, long start2, int id2) {
+        int byStart = Long.compare(start1, start2);
+        return byStart != 0 ? byStart : Integer.compare(id1, id2);
+    }
+
+    private void set(int index, int id, long start, long end) {
+        starts[index] = start;
+        ends[index] = end;
+        ids[index] = id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newLength = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+            ids = Arrays.copyOf(ids, newLength);
+        }
+    }
+}
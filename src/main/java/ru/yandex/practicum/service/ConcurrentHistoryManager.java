@@ -0,0 +1,102 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * История просмотров для многих потоков: просмотры пишутся в общий журнал без блокировок, а упорядоченная
+ * история ({@link InMemoryHistoryManager}) обновляется из журнала под блокировкой.
+ * <p>
+ * Журнал ({@link ViewLog}) — кольцевой буфер. Писатель атомарно берёт следующий номер, кладёт задачу в ячейку
+ * и публикует номер; номер задаёт общий порядок просмотров, поэтому при переносе в историю
+ * «последний просмотр побеждает» так же, как в однопоточной истории. Перенос (compaction) идёт строго
+ * по номерам и останавливается на первой ещё не опубликованной ячейке. Переносит тот, кому нужна история
+ * (чтение, удаление), или писатель, которому не хватило места в журнале.
+ * <p>
+ * Чтение и удаление сначала дожидаются публикации всех номеров, выданных к началу операции (писатель публикует
+ * сразу после получения номера, так что ожидание короткое), и переносят их. Поэтому {@link #getHistory()} —
+ * согласованный снимок: в нём есть все просмотры, завершившиеся до вызова, и нет «дыр» между ними, а удаление
+ * не может быть отменено просмотром, записанным раньше него. Запись просмотра не выделяет память.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    static final int DEFAULT_LOG_SIZE = 1024;
+
+    private final InMemoryHistoryManager history;
+    private final Consumer<Task> apply;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ViewLog log;
+    private final int logSize;
+
+    public ConcurrentHistoryManager(int capacity) {
+        this(capacity, DEFAULT_LOG_SIZE);
+    }
+
+    ConcurrentHistoryManager(int capacity, int logSize) {
+        this.log = new ViewLog(logSize);
+        this.logSize = logSize;
+        this.history = new InMemoryHistoryManager(capacity);
+        this.apply = history::add;
+    }
+
+    public int getCapacity() {
+        return history.getCapacity();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        long sequence = log.claim();
+        while (!log.fits(sequence)) {
+            // Журнал полон: переносим опубликованное сами. Более ранние номера помещаются в журнал и публикуются
+            // без ожидания, поэтому перенос рано или поздно освободит и нашу ячейку. Блокировку только пробуем:
+            // её владелец может ждать публикации нашего номера, а место тем временем уже могло освободиться
+            if (lock.tryLock()) {
+                try {
+                    log.drain(logSize, apply);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            Thread.yield(); // Не крутимся вхолостую: тот, кого ждём, может стоять в очереди на процессор
+        }
+        log.publish(sequence, task);
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            log.drainAll(apply);
+            history.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            log.drainAll(apply);
+            return history.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        lock.lock();
+        try {
+            log.drainAll(apply);
+            return history.getHistory(limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
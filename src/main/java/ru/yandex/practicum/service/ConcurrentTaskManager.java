@@ -0,0 +1,295 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный менеджер задач для многопоточного HTTP-сервера.
+ * <p>
+ * Хранение делегируется {@link InMemoryTaskManager}, а доступ к нему разделяется блокировкой чтения-записи:
+ * операции чтения выполняются параллельно, изменяющие операции — эксклюзивно. Запись не дробится на более
+ * мелкие блокировки намеренно: любая задача со временем затрагивает общую шкалу времени (проверка пересечений),
+ * а подзадача ещё и агрегаты эпика, поэтому проверка и изменение должны выполняться атомарно.
+ * Эпики меняются на месте (привязка подзадач, агрегаты), поэтому читающие методы отдают их копии, снятые
+ * под блокировкой чтения: ответ сериализуется уже после её освобождения. Задачи и подзадачи при обновлении
+ * заменяются новыми объектами, их можно отдавать как есть.
+ * История просмотров пишется и при чтении, поэтому обычная история оборачивается в синхронизированный менеджер
+ * (потокобезопасные истории, например {@link ConcurrentHistoryManager}, используются как есть).
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.delegate = new InMemoryTaskManager(SynchronizedHistoryManager.wrap(historyManager));
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    private <R> R read(Supplier<R> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <R> R write(Supplier<R> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Копия эпика (задачи и подзадачи отдаются как есть); вызывается под блокировкой, защищающей эпик
+    @SuppressWarnings("unchecked")
+    static <T extends Task> T detach(T task) {
+        return task instanceof Epic epic ? (T) epic.copy() : task;
+    }
+
+    static <T extends Task> List<T> detach(List<T> tasks) {
+        List<T> result = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            result.add(detach(task));
+        }
+        return result;
+    }
+
+    static Map<Epic, List<Subtask>> detach(Map<Epic, List<Subtask>> epicAndSubtasks) {
+        Map<Epic, List<Subtask>> result = new HashMap<>();
+        epicAndSubtasks.forEach((epic, subtasks) -> result.put(epic.copy(), subtasks));
+        return result;
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int addTask(Task task) {
+        return write(() -> delegate.addTask(task));
+    }
+
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> tasks) {
+        return write(() -> delegate.addAll(tasks));
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> detach(delegate.getTaskById(id)));
+    }
+
+    @Override
+    public Task getTaskById(int id, TaskType type) {
+        return read(() -> detach(delegate.getTaskById(id, type)));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(() -> detach(delegate.getAllTasks()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> detach(delegate.getAllEpics()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(delegate::getAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        return read(() -> detach(delegate.getByStatus(type, status)));
+    }
+
+    @Override
+    public List<Task> getByStatus(Status status) {
+        return read(() -> detach(delegate.getByStatus(status)));
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        return read(() -> delegate.countByStatus(type, status));
+    }
+
+    @Override
+    public List<Integer> search(String query, int limit) {
+        return read(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        write(() -> delegate.removeTaskById(id));
+    }
+
+    @Override
+    public void removeAllTasks() {
+        write(delegate::removeAllTasks);
+    }
+
+    @Override
+    public void removeAllEpics() {
+        write(delegate::removeAllEpics);
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        write(delegate::removeAllSubtasks);
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        write(() -> delegate.updateTask(updatedTask));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksForEpic(int epicId) {
+        return read(() -> delegate.getSubtasksForEpic(epicId));
+    }
+
+    @Override
+    public Map<Epic, List<Subtask>> getEpicAndSubtasks(int epicId) {
+        return read(() -> detach(delegate.getEpicAndSubtasks(epicId)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> detach(delegate.getHistory()));
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return read(() -> detach(delegate.getHistory(limit)));
+    }
+
+    // Шина сама рассчитана на чтение из многих потоков, а публикация идёт под блокировкой записи
+    @Override
+    public TaskEventBus getEventBus() {
+        return delegate.getEventBus();
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return write(() -> delegate.addSubtask(subtask));
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return write(() -> delegate.addEpic(epic));
+    }
+
+    @Override
+    public Epic getEpicById(int epicId) {
+        return read(() -> detach(delegate.getEpicById(epicId)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(delegate::getPrioritizedTasks);
+    }
+
+    // Снимок может лениво собираться сразу несколькими читателями: результат для одной версии одинаков
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        return read(delegate::getPrioritizedSnapshot);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> delegate.getPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit) {
+        return read(() -> delegate.getPrioritizedPage(from, to, after, limit));
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return read(() -> delegate.findFreeSlot(duration, notBefore));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime notBefore, int count) {
+        return read(() -> delegate.findFreeSlots(duration, notBefore, count));
+    }
+
+    @Override
+    public List<Task> autoSchedule(List<Integer> taskIds, LocalDateTime notBefore, WorkingHours workingHours) {
+        return write(() -> delegate.autoSchedule(taskIds, notBefore, workingHours));
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.addDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        write(() -> delegate.removeDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return read(() -> delegate.getDependencies(taskId));
+    }
+
+    @Override
+    public LocalDateTime getEarliestStart(int taskId) {
+        return read(() -> delegate.getEarliestStart(taskId));
+    }
+
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        return read(() -> delegate.getCriticalPath(epicId));
+    }
+
+    @Override
+    public int addRecurringTask(RecurringTask task) {
+        return write(() -> delegate.addRecurringTask(task));
+    }
+
+    @Override
+    public void removeRecurringTask(int id) {
+        write(() -> delegate.removeRecurringTask(id));
+    }
+
+    @Override
+    public List<RecurringTask> getRecurringTasks() {
+        return read(delegate::getRecurringTasks);
+    }
+
+    @Override
+    public List<Occurrence> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        return read(() -> delegate.getOccurrences(from, to));
+    }
+}
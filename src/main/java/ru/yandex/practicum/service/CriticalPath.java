@@ -0,0 +1,12 @@
+package ru.yandex.practicum.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Критический путь эпика: цепочка задач от первой до последней, каждая из которых не может начаться раньше
+ * окончания предыдущей, и самое раннее окончание последней (null и пустой список, если ни у одной задачи
+ * нет времени начала).
+ */
+public record CriticalPath(List<Integer> taskIds, LocalDateTime earliestFinish) {
+}
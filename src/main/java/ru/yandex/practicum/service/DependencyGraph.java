@@ -0,0 +1,298 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.utils.IntObjectMap;
+import ru.yandex.practicum.utils.LinkedIntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Граф зависимостей «задача не может начаться раньше окончания другой» с самым ранним началом каждой задачи.
+ * <p>
+ * Самое раннее начало — наибольшее из собственного времени начала задачи и окончаний всех задач, от которых она
+ * зависит; раннее окончание — начало плюс продолжительность. У задачи без времени начала и без датированных
+ * предшественников раннего начала нет (null). Для каждой задачи запоминается «ведущий» предшественник, который
+ * задал её раннее начало: по этим ссылкам восстанавливается критический путь.
+ * <p>
+ * Значения поддерживаются инкрементально. После изменения задачи или ребра пересчитывается только подграф,
+ * достижимый из неё, в топологическом порядке, и только у тех вершин, у которых изменилось раннее окончание
+ * хотя бы одного предшественника. Если раннее окончание самой задачи не изменилось, пересчёт заканчивается
+ * на ней. В граф попадают только задачи, у которых есть хотя бы одна зависимость или зависимая задача.
+ */
+class DependencyGraph {
+    private static final int NO_DRIVER = 0;
+
+    private final IntObjectMap<Node> nodes = new IntObjectMap<>();
+
+    private static final class Node {
+        final int id;
+        final LinkedIntSet predecessors = new LinkedIntSet();
+        final LinkedIntSet successors = new LinkedIntSet();
+        LocalDateTime start;
+        Duration duration;
+        LocalDateTime earliestStart;
+        LocalDateTime earliestFinish;
+        int driver = NO_DRIVER; // Предшественник, окончание которого задало раннее начало
+
+        Node(Task task) {
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.duration = task.getDuration();
+        }
+
+        boolean isIsolated() {
+            return predecessors.isEmpty() && successors.isEmpty();
+        }
+    }
+
+    /**
+     * Добавляет зависимость task от dependsOn. Ребро, замыкающее цикл (в том числе на саму задачу),
+     * отклоняется с IllegalArgumentException: проверка обходит только задачи, зависящие от task.
+     */
+    void addDependency(Task task, Task dependsOn) {
+        int id = task.getId();
+        int dependsOnId = dependsOn.getId();
+        if (id == dependsOnId || reaches(id, dependsOnId)) {
+            throw new IllegalArgumentException("Зависимость задачи " + id + " от задачи " + dependsOnId +
+                    " образует цикл.");
+        }
+        Node node = nodeFor(task);
+        Node predecessor = nodeFor(dependsOn);
+        if (node.predecessors.add(dependsOnId)) {
+            predecessor.successors.add(id);
+            propagate(node);
+        }
+    }
+
+    boolean removeDependency(int id, int dependsOnId) {
+        Node node = nodes.get(id);
+        if (node == null || !node.predecessors.remove(dependsOnId)) {
+            return false;
+        }
+        Node predecessor = nodes.get(dependsOnId);
+        predecessor.successors.remove(id);
+        dropIfIsolated(predecessor);
+        if (!dropIfIsolated(node)) {
+            propagate(node);
+        }
+        return true;
+    }
+
+    // Новые время начала и продолжительность задачи; задачи вне графа игнорируются
+    void update(Task task) {
+        Node node = nodes.get(task.getId());
+        if (node == null || Objects.equals(node.start, task.getStartTime())
+                && Objects.equals(node.duration, task.getDuration())) {
+            return;
+        }
+        node.start = task.getStartTime();
+        node.duration = task.getDuration();
+        propagate(node);
+    }
+
+    // Удаляет задачу вместе со всеми её зависимостями; зависевшие от неё задачи пересчитываются
+    void remove(int id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return;
+        }
+        for (int predecessorId : node.predecessors.toArray()) {
+            Node predecessor = nodes.get(predecessorId);
+            predecessor.successors.remove(id);
+            dropIfIsolated(predecessor);
+        }
+        for (int successorId : node.successors.toArray()) {
+            Node successor = nodes.get(successorId);
+            successor.predecessors.remove(id);
+            if (!dropIfIsolated(successor)) {
+                propagate(successor);
+            }
+        }
+    }
+
+    // Удаляет все задачи, id которых подходит под условие
+    void removeIf(IntPredicate condition) {
+        List<Integer> removed = new ArrayList<>();
+        nodes.forEach((node, id) -> {
+            if (condition.test(id)) {
+                removed.add(id);
+            }
+        });
+        removed.forEach(this::remove);
+    }
+
+    void clear() {
+        nodes.clear();
+    }
+
+    // id задач, от которых зависит задача, в порядке добавления зависимостей
+    List<Integer> dependenciesOf(int id) {
+        Node node = nodes.get(id);
+        return node == null ? List.of() : node.predecessors.stream().boxed().toList();
+    }
+
+    // Самое раннее начало с учётом зависимостей; для задач вне графа — null (вызывающий берёт время задачи)
+    LocalDateTime earliestStart(int id) {
+        Node node = nodes.get(id);
+        return node == null ? null : node.earliestStart;
+    }
+
+    boolean contains(int id) {
+        return nodes.containsKey(id);
+    }
+
+    /**
+     * Критический путь для набора задач: среди них выбирается задача с самым поздним ранним окончанием,
+     * и от неё по ведущим предшественникам строится цепочка, которая это окончание определяет (предшественники
+     * могут быть и вне набора). Задачи вне графа участвуют со своим временем; без времени — не участвуют.
+     * Стоит O(размер набора + длина пути), без обхода графа.
+     */
+    CriticalPath criticalPath(Iterable<? extends Task> tasks) {
+        Task last = null;
+        LocalDateTime lastFinish = null;
+        for (Task task : tasks) {
+            Node node = nodes.get(task.getId());
+            LocalDateTime finish = node != null ? node.earliestFinish : task.getEndTime();
+            if (finish != null && (lastFinish == null || finish.isAfter(lastFinish))) {
+                last = task;
+                lastFinish = finish;
+            }
+        }
+        if (last == null) {
+            return new CriticalPath(List.of(), null);
+        }
+        Deque<Integer> path = new ArrayDeque<>();
+        path.addFirst(last.getId());
+        for (Node node = nodes.get(last.getId()); node != null && node.driver != NO_DRIVER;
+                node = nodes.get(node.driver)) {
+            path.addFirst(node.driver);
+        }
+        return new CriticalPath(List.copyOf(path), lastFinish);
+    }
+
+    private Node nodeFor(Task task) {
+        Node node = nodes.get(task.getId());
+        if (node == null) {
+            node = new Node(task);
+            recompute(node);
+            nodes.put(node.id, node);
+        }
+        return node;
+    }
+
+    private boolean dropIfIsolated(Node node) {
+        if (!node.isIsolated()) {
+            return false;
+        }
+        nodes.remove(node.id);
+        return true;
+    }
+
+    // Достижима ли задача target из задачи from по рёбрам «от предшественника к зависимой»
+    private boolean reaches(int from, int target) {
+        Node start = nodes.get(from);
+        if (start == null || !nodes.containsKey(target)) {
+            return false;
+        }
+        LinkedIntSet visited = new LinkedIntSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        visited.add(from);
+        while (!stack.isEmpty()) {
+            for (int successorId : stack.pop().successors.toArray()) {
+                if (successorId == target) {
+                    return true;
+                }
+                if (visited.add(successorId)) {
+                    stack.push(nodes.get(successorId));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Пересчитывает вершину и, если её раннее окончание изменилось, зависящие от неё задачи. Достижимый подграф
+     * упорядочивается обходом в глубину (обратный порядок выхода — топологический), после чего каждая вершина
+     * пересчитывается один раз, когда уже пересчитаны все её предшественники из подграфа.
+     */
+    private void propagate(Node changed) {
+        LocalDateTime oldFinish = changed.earliestFinish;
+        recompute(changed);
+        if (Objects.equals(oldFinish, changed.earliestFinish)) {
+            return;
+        }
+        List<Node> order = topologicalOrder(changed);
+        LinkedIntSet dirty = new LinkedIntSet();
+        changed.successors.forEach(dirty::add);
+        for (int i = order.size() - 2; i >= 0; i--) { // Последний в списке — сама изменённая вершина
+            Node node = order.get(i);
+            if (!dirty.contains(node.id)) {
+                continue;
+            }
+            LocalDateTime before = node.earliestFinish;
+            recompute(node);
+            if (!Objects.equals(before, node.earliestFinish)) {
+                node.successors.forEach(dirty::add);
+            }
+        }
+    }
+
+    // Вершины, достижимые из root, в порядке выхода из обхода в глубину (root — последним)
+    private List<Node> topologicalOrder(Node root) {
+        List<Node> order = new ArrayList<>();
+        LinkedIntSet visited = new LinkedIntSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<int[]> pending = new ArrayDeque<>(); // Ещё не пройденные зависимые задачи каждой вершины стека
+        Deque<Integer> positions = new ArrayDeque<>();
+        visited.add(root.id);
+        stack.push(root);
+        pending.push(root.successors.toArray());
+        positions.push(0);
+        while (!stack.isEmpty()) {
+            int[] successors = pending.peek();
+            int position = positions.pop();
+            if (position == successors.length) {
+                order.add(stack.pop());
+                pending.pop();
+                continue;
+            }
+            positions.push(position + 1);
+            int successorId = successors[position];
+            if (visited.add(successorId)) {
+                Node successor = nodes.get(successorId);
+                stack.push(successor);
+                pending.push(successor.successors.toArray());
+                positions.push(0);
+            }
+        }
+        return order;
+    }
+
+    private void recompute(Node node) {
+        LocalDateTime earliest = node.start;
+        int driver = NO_DRIVER;
+        for (int predecessorId : node.predecessors.toArray()) {
+            LocalDateTime finish = nodes.get(predecessorId).earliestFinish;
+            if (finish != null && (earliest == null || finish.isAfter(earliest))) {
+                earliest = finish;
+                driver = predecessorId;
+            }
+        }
+        node.earliestStart = earliest;
+        node.driver = driver;
+        node.earliestFinish = earliest == null ? null
+                : node.duration == null ? earliest : earliest.plus(node.duration);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+}
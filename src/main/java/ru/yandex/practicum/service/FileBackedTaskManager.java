@@ -11,12 +11,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
 
-    private static final String CSV_HEADER = "id,type,name,status,description,duration,startTime,epic";
+    // interval и until заполняются только у повторяющихся задач: правило хранится одной строкой
+    private static final String CSV_HEADER = "id,type,name,status,description,duration,startTime,epic,interval,until";
 
     public FileBackedTaskManager(File file, HistoryManager historyManager) {
         super(historyManager);
@@ -54,6 +56,11 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                     .map(this::taskToString)
                     .forEach(taskString -> writeTaskString(writer, taskString, "подзадачи"));
 
+            // Записываем повторяющиеся задачи (только правила, без повторений)
+            getRecurringTasks().stream()
+                    .map(this::taskToString)
+                    .forEach(taskString -> writeTaskString(writer, taskString, "повторяющейся задачи"));
+
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения данных в файл: " + file.getName(), e);
         }
@@ -66,6 +73,14 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return taskId;
     }
 
+    // Файл перезаписывается один раз на всю пачку
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> tasks) {
+        List<Integer> ids = super.addAll(tasks);
+        save();
+        return ids;
+    }
+
     @Override
     public void updateTask(Task updatedTask) {
         super.updateTask(updatedTask);
@@ -96,6 +111,19 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
     }
 
+    @Override
+    public int addRecurringTask(RecurringTask task) {
+        int taskId = super.addRecurringTask(task);
+        save();
+        return taskId;
+    }
+
+    @Override
+    public void removeRecurringTask(int id) {
+        super.removeRecurringTask(id);
+        save();
+    }
+
     @Override
     public int addEpic(Epic epic) {
         int epicId = super.addEpic(epic);
@@ -129,6 +157,13 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             result.append(",").append(subtask.getEpicId());
         }
 
+        // У повторяющейся задачи поле эпика пустое, за ним — интервал в минутах и окончание повторений
+        if (type == TaskType.RECURRING) {
+            RecurringTask recurringTask = (RecurringTask) task;
+            result.append(",,").append(recurringTask.getInterval().toMinutes()).append(",")
+                    .append(recurringTask.getUntil() != null ? recurringTask.getUntil() : "null");
+        }
+
         return result.toString();
     }
 
@@ -158,11 +193,10 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                                         super.addTaskWithPredefinedId(task);
                                         break;
                                     case SUBTASK:
-                                        super.addTaskWithPredefinedId(task);
-                                        Epic epic = getEpicById(((Subtask) task).getEpicId());
-                                        if (epic != null) {
-                                            updateEpicFields(epic);
-                                        }
+                                        super.addTaskWithPredefinedId(task); // Агрегаты эпика обновятся сами
+                                        break;
+                                    case RECURRING:
+                                        super.addRecurringTaskWithPredefinedId((RecurringTask) task);
                                         break;
                                     default:
                                         throw new ManagerLoadException("Нe известный тип задачи: " + task.getType());
@@ -231,6 +265,16 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 Subtask subtask = new Subtask(name, description, status, epicId, duration, startTime);
                 subtask.setId(id);
                 return subtask;
+            case RECURRING:
+                if (parts.length < 10) {
+                    throw new IllegalArgumentException("Отсутствует правило повторения.");
+                }
+                Duration interval = Duration.ofMinutes(Long.parseLong(parts[8]));
+                LocalDateTime until = "null".equals(parts[9]) ? null : LocalDateTime.parse(parts[9]);
+                RecurringTask recurringTask = new RecurringTask(name, description, status, duration, startTime,
+                        interval, until);
+                recurringTask.setId(id);
+                return recurringTask;
             default:
                 throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
 
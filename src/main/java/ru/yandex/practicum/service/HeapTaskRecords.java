@@ -0,0 +1,146 @@
+package ru.yandex.practicum.service;
+
+import java.util.Arrays;
+
+/**
+ * Записи задач в куче в виде колонок: параллельные массивы примитивов, элемент {@code id - 1} описывает задачу
+ * с этим id. Массивы без ссылок сборщик мусора не обходит, поэтому объём хранилища почти не влияет на паузы.
+ */
+class HeapTaskRecords implements TaskRecords {
+    private static final byte EMPTY = 0; // В колонке типа: записи нет
+
+    private byte[] types;
+    private byte[] statuses;
+    private long[] startMinutes;
+    private int[] durationMinutes;
+    private int[] epicIds;
+    private int[] titles;
+    private int[] descriptions;
+    private long[] versions;
+
+    HeapTaskRecords(int expectedTasks) {
+        int capacity = Math.max(expectedTasks, 1);
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        startMinutes = new long[capacity];
+        durationMinutes = new int[capacity];
+        epicIds = new int[capacity];
+        titles = new int[capacity];
+        descriptions = new int[capacity];
+        versions = new long[capacity];
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id > 0 && id <= types.length && types[id - 1] != EMPTY;
+    }
+
+    @Override
+    public void allocate(int id, byte type) {
+        ensureCapacity(id);
+        int slot = id - 1;
+        types[slot] = type;
+        statuses[slot] = 0;
+        startMinutes[slot] = 0;
+        durationMinutes[slot] = 0;
+        epicIds[slot] = 0;
+        titles[slot] = 0;
+        descriptions[slot] = 0;
+        versions[slot] = 0;
+    }
+
+    @Override
+    public void free(int id) {
+        types[id - 1] = EMPTY;
+    }
+
+    @Override
+    public byte getType(int id) {
+        return types[id - 1];
+    }
+
+    @Override
+    public byte getStatus(int id) {
+        return statuses[id - 1];
+    }
+
+    @Override
+    public void setStatus(int id, byte status) {
+        statuses[id - 1] = status;
+    }
+
+    @Override
+    public long getStartMinute(int id) {
+        return startMinutes[id - 1];
+    }
+
+    @Override
+    public void setStartMinute(int id, long minute) {
+        startMinutes[id - 1] = minute;
+    }
+
+    @Override
+    public int getDurationMinutes(int id) {
+        return durationMinutes[id - 1];
+    }
+
+    @Override
+    public void setDurationMinutes(int id, int minutes) {
+        durationMinutes[id - 1] = minutes;
+    }
+
+    @Override
+    public int getEpicId(int id) {
+        return epicIds[id - 1];
+    }
+
+    @Override
+    public void setEpicId(int id, int epicId) {
+        epicIds[id - 1] = epicId;
+    }
+
+    @Override
+    public int getTitle(int id) {
+        return titles[id - 1];
+    }
+
+    @Override
+    public void setTitle(int id, int title) {
+        titles[id - 1] = title;
+    }
+
+    @Override
+    public int getDescription(int id) {
+        return descriptions[id - 1];
+    }
+
+    @Override
+    public void setDescription(int id, int description) {
+        descriptions[id - 1] = description;
+    }
+
+    @Override
+    public long getVersion(int id) {
+        return versions[id - 1];
+    }
+
+    @Override
+    public void setVersion(int id, long version) {
+        versions[id - 1] = version;
+    }
+
+    private void ensureCapacity(int maxId) {
+        if (maxId <= types.length) {
+            return;
+        }
+        int capacity = Math.max(maxId, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+}
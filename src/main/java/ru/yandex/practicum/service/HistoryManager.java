@@ -12,4 +12,5 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    List<Task> getHistory(int limit); // Последние limit просмотров, от старых к новым
 }
@@ -0,0 +1,200 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отдельная история просмотров для каждого клиента. Клиент задаётся на время запроса через
+ * {@link #withClient(String)}; все вызовы истории в этом потоке (в том числе просмотры внутри
+ * {@code getTaskById}) идут в его раздел. Вне такого блока и для клиентов без ключа используется общий раздел —
+ * прежняя общая история.
+ * <p>
+ * Разделы ({@link InMemoryHistoryManager} с ёмкостью partitionCapacity) создаются при первом обращении.
+ * Реестр — LRU по последнему обращению: если суммарное число записей во всех разделах превышает maxEntries
+ * или разделов клиентов становится больше maxPartitions, вытесняются разделы, к которым дольше всего
+ * не обращались (общий раздел не вытесняется). Раздел занимает память и почти без записей, поэтому число
+ * разделов ограничено отдельно: поток запросов с новыми ключами клиентов не может создать их без предела.
+ * Так память ограничена сверху независимо от числа клиентов, а неактивные клиенты освобождают её первыми.
+ * <p>
+ * Реестр потокобезопасен: под общей блокировкой выполняются только поиск раздела и вытеснение, сами разделы
+ * защищены каждый своей блокировкой, так что разные клиенты не мешают друг другу. Просмотры должны записываться
+ * в потоке запроса, поэтому реестр нельзя оборачивать в {@link AsyncHistoryManager}.
+ */
+public class HistoryRegistry implements HistoryManager {
+    // Ключ клиента текущего запроса; null — общий раздел
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final int partitionCapacity;
+    private final long maxEntries;
+    private final int maxPartitions;
+    private final Partition shared;
+    private final LinkedHashMap<String, Partition> partitions = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalEntries = new AtomicLong();
+
+    // История клиента; изменяется только под собственной блокировкой, вытесненная больше не используется
+    private final class Partition {
+        final InMemoryHistoryManager history = new InMemoryHistoryManager(partitionCapacity);
+        boolean evicted;
+
+        synchronized boolean add(Task task) {
+            if (evicted) {
+                return false; // Раздел вытеснили между поиском и записью: запишем в новый
+            }
+            int before = history.size();
+            history.add(task);
+            totalEntries.addAndGet(history.size() - before);
+            return true;
+        }
+
+        synchronized void remove(int id) {
+            if (!evicted) {
+                int before = history.size();
+                history.remove(id);
+                totalEntries.addAndGet(history.size() - before);
+            }
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            totalEntries.addAndGet(-history.size());
+        }
+    }
+
+    public HistoryRegistry(int partitionCapacity, long maxEntries, int maxPartitions) {
+        if (partitionCapacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть положительной: " + partitionCapacity);
+        }
+        if (maxEntries < partitionCapacity) {
+            throw new IllegalArgumentException("Общий лимит записей меньше ёмкости одного раздела: " + maxEntries);
+        }
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("Число разделов должно быть положительным: " + maxPartitions);
+        }
+        this.partitionCapacity = partitionCapacity;
+        this.maxEntries = maxEntries;
+        this.maxPartitions = maxPartitions;
+        this.shared = new Partition();
+    }
+
+    /**
+     * Делает клиента текущим для потока до закрытия возвращённого блока (try-with-resources); после закрытия
+     * восстанавливается предыдущий клиент. clientKey == null или пустой — общий раздел.
+     */
+    public static ClientScope withClient(String clientKey) {
+        String previous = CURRENT_CLIENT.get();
+        CURRENT_CLIENT.set(clientKey == null || clientKey.isEmpty() ? null : clientKey);
+        return () -> {
+            if (previous == null) {
+                CURRENT_CLIENT.remove();
+            } else {
+                CURRENT_CLIENT.set(previous);
+            }
+        };
+    }
+
+    // Блок, в котором действует клиент; close не бросает проверяемых исключений
+    public interface ClientScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        while (!partition(true).add(task)) {
+            Thread.onSpinWait();
+        }
+        if (totalEntries.get() > maxEntries) {
+            evictEldest();
+        }
+    }
+
+    // Удалённая задача пропадает из истории всех клиентов
+    @Override
+    public void remove(int id) {
+        List<Partition> all;
+        synchronized (this) {
+            all = new ArrayList<>(partitions.values());
+        }
+        all.add(shared);
+        for (Partition partition : all) {
+            partition.remove(id);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        Partition partition = partition(false);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        synchronized (partition) {
+            return partition.history.getHistory();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Количество просмотров не может быть отрицательным: " + limit);
+        }
+        Partition partition = partition(false);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        synchronized (partition) {
+            return partition.history.getHistory(limit);
+        }
+    }
+
+    // Число разделов клиентов (без общего)
+    public synchronized int getPartitionCount() {
+        return partitions.size();
+    }
+
+    // Записи во всех разделах, включая общий
+    public long getTotalEntries() {
+        return totalEntries.get();
+    }
+
+    // Раздел текущего клиента; create == false — без создания (null, если клиента ещё нет)
+    private Partition partition(boolean create) {
+        String client = CURRENT_CLIENT.get();
+        if (client == null) {
+            return shared;
+        }
+        synchronized (this) {
+            Partition partition = partitions.get(client); // Обращение переносит раздел в конец LRU
+            if (partition == null && create) {
+                if (partitions.size() >= maxPartitions) {
+                    evict(partitions.values().iterator()); // Место для нового клиента — за счёт самого давнего
+                }
+                partition = new Partition();
+                partitions.put(client, partition);
+            }
+            return partition;
+        }
+    }
+
+    // Вытесняет давно не использованные разделы, пока записей больше лимита; последний использованный остаётся
+    private synchronized void evictEldest() {
+        Iterator<Partition> eldest = partitions.values().iterator();
+        while (totalEntries.get() > maxEntries && partitions.size() > 1) {
+            evict(eldest);
+        }
+    }
+
+    // Вызывается под блокировкой реестра
+    private void evict(Iterator<Partition> eldest) {
+        Partition partition = eldest.next();
+        eldest.remove();
+        partition.evict();
+    }
+}
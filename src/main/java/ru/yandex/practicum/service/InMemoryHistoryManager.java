@@ -1,29 +1,59 @@
 package ru.yandex.practicum.service;
 
 import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.utils.IntIntMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * История просмотров: двусвязный список от старых просмотров к новым и индекс ячеек по id задачи.
+ * Ёмкость ограничивает число задач в истории: при переполнении вытесняется самый старый просмотр (голова списка)
+ * за O(1). Без ограничения история растёт вместе с числом просмотренных задач.
+ * <p>
+ * Список хранится не узлами, а ячейками в параллельных массивах: задача, номер предыдущей и следующей ячейки.
+ * Освободившиеся ячейки связываются в список свободных через {@code next} и используются повторно, а индекс
+ * id → ячейка — {@link IntIntMap} без упаковки ключей. Повторный просмотр только перевешивает ячейку в хвост,
+ * новый просмотр занимает свободную (или вытесненную) ячейку, так что запись просмотра не выделяет память;
+ * массивы растут удвоением, но не больше ёмкости.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
+    private static final int NIL = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private final IntIntMap slotsById = new IntIntMap();
+    private Task[] tasks;
+    private int[] prev;
+    private int[] next;
+    private int head = NIL;
+    private int tail = NIL;
+    private int free = NIL; // Начало списка свободных ячеек
+    private int used; // Ячейки, которые хоть раз были заняты; дальше массивы ещё не тронуты
+
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
 
-    private final Map<Integer, Node<Task>> taskMap = new HashMap<>();
-    private Node<Task> head;
-    private Node<Task> tail;
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость истории должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        int slots = Math.min(capacity, INITIAL_SLOTS);
+        tasks = new Task[slots];
+        prev = new int[slots];
+        next = new int[slots];
+    }
 
-    // Вспомогательный класс для двусвязного списка
-    private static class Node<T> {
-        T value;
-        Node<T> next;
-        Node<T> prev;
+    public int getCapacity() {
+        return capacity;
+    }
 
-        Node(T value, Node<T> prev, Node<T> next) {
-            this.value = value;
-            this.prev = prev;
-            this.next = next;
-        }
+    // Число задач в истории
+    public int size() {
+        return slotsById.size();
     }
 
     @Override
@@ -31,63 +61,107 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return; // Если задача равна null, просто выходим из метода
         }
-        // Удаляем задачу из списка, если она уже существует
-        remove(task.getId());
-
-        // Добавляем задачу в конец списка (считаем это последним просмотром)
-        linkLast(task);
+        int slot = slotsById.get(task.getId());
+        if (slot != IntIntMap.MISSING) {
+            // Задача уже в истории: переносим её ячейку в конец списка (считаем это последним просмотром)
+            tasks[slot] = task;
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+        if (slotsById.size() == capacity) {
+            remove(tasks[head].getId()); // Вытесняем самый старый просмотр
+        }
+        slot = allocate();
+        tasks[slot] = task;
+        linkLast(slot);
+        slotsById.put(task.getId(), slot);
     }
 
     @Override
     public void remove(int id) {
-        // Получаем узел с задачей по id
-        Node<Task> node = taskMap.remove(id);
-        removeNode(node);
-
+        int slot = slotsById.remove(id);
+        if (slot == IntIntMap.MISSING) {
+            return;
+        }
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
     }
 
     @Override
     public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>(taskMap.size());
-        Node<Task> current = head;
-        while (current != null) {
-            history.add(current.value);
-            current = current.next;
+        List<Task> history = new ArrayList<>(slotsById.size());
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            history.add(tasks[slot]);
         }
         return history;
     }
 
-    private void linkLast(Task task) {
-        final Node<Task> newNode = new Node<>(task, tail, null);
-        if (tail == null) {
-            head = newNode;
-        } else {
-            tail.next = newNode;
+    // Отступаем от хвоста на limit ячеек и копируем только их; список изменяемый, как и у getHistory()
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Количество просмотров не может быть отрицательным: " + limit);
+        }
+        int size = Math.min(limit, slotsById.size());
+        List<Task> recent = new ArrayList<>(size);
+        if (size == 0) {
+            return recent;
         }
-        tail = newNode;
-        // Сохраняем задачу в хэш-таблице для быстрого доступа
-        taskMap.put(task.getId(), newNode);
+        int slot = tail;
+        for (int i = 1; i < size; i++) {
+            slot = prev[slot];
+        }
+        for (; slot != NIL; slot = next[slot]) {
+            recent.add(tasks[slot]);
+        }
+        return recent;
     }
 
-    // Удаляет узел из двусвязного списка
-    private void removeNode(Node<Task> node) {
-        if (node == null) {
-            return;
+    // Свободная ячейка: из списка свободных, иначе следующая нетронутая (при необходимости массивы растут)
+    private int allocate() {
+        if (free != NIL) {
+            int slot = free;
+            free = next[slot];
+            return slot;
         }
+        if (used == tasks.length) {
+            int grown = (int) Math.min((long) tasks.length * 2, capacity);
+            tasks = Arrays.copyOf(tasks, grown);
+            prev = Arrays.copyOf(prev, grown);
+            next = Arrays.copyOf(next, grown);
+        }
+        return used++;
+    }
 
-        Node<Task> prevNode = node.prev;
-        Node<Task> nextNode = node.next;
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
 
-        if (prevNode != null) {
-            prevNode.next = nextNode;
+    // Исключает ячейку из списка просмотров
+    private void unlink(int slot) {
+        int prevSlot = prev[slot];
+        int nextSlot = next[slot];
+        if (prevSlot != NIL) {
+            next[prevSlot] = nextSlot;
         } else {
-            head = nextNode;
+            head = nextSlot;
         }
-        if (nextNode != null) {
-            nextNode.prev = prevNode;
+        if (nextSlot != NIL) {
+            prev[nextSlot] = prevSlot;
         } else {
-            tail = prevNode;
+            tail = prevSlot;
         }
     }
 }
-
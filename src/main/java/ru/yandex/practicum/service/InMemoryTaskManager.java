@@ -1,21 +1,35 @@
 package ru.yandex.practicum.service;
 
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
 import ru.yandex.practicum.model.*;
+import ru.yandex.practicum.utils.IntObjectMap;
+import ru.yandex.practicum.utils.LinkedIntSet;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    private final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    private final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    // Единый индекс по id для всех трёх коллекций: поиск и проверка типа за одно обращение
+    private final IntObjectMap<Task> tasksById = new IntObjectMap<>();
+    // Корзины id по типу и статусу для выборок getByStatus без полного перебора
+    private final StatusIndex statusIndex = new StatusIndex();
+    // Полнотекстовый индекс по названиям и описаниям
+    private final SearchIndex searchIndex = new SearchIndex();
+    // Зависимости между задачами: раннее начало и критический путь эпиков
+    private final DependencyGraph dependencies = new DependencyGraph();
     private final HistoryManager historyManager;
+    // События об изменениях для подписчиков, работающих вне пути записи
+    private final TaskEventBus eventBus;
     private int nextId = 1;
 
-    private final Set<Task> prioritizedTasks = new TreeSet<>((task1, task2) -> {
+    // Порядок отсортированного списка; нужен и менеджеру с шардами для слияния списков шардов
+    static final Comparator<Task> PRIORITY_ORDER = (task1, task2) -> {
         if (task1.getStartTime() == null && task2.getStartTime() == null) {
-            return task1.getId() - task2.getId(); // Сравнение по ID, если нет startTime
+            return Integer.compare(task1.getId(), task2.getId()); // Сравнение по ID, если нет startTime
         } else if (task1.getStartTime() == null) {
             return 1; // Если task1 не имеет startTime, он идет после task2
         } else if (task2.getStartTime() == null) {
@@ -23,58 +37,122 @@ public class InMemoryTaskManager implements TaskManager {
         } else {
             return task1.getStartTime().compareTo(task2.getStartTime());
         }
-    });
+    };
 
-    private boolean isOverlapping(Task newTask, Task existingTask) {
-        if (newTask.getStartTime() == null || newTask.getEndTime() == null ||
-                existingTask.getStartTime() == null || existingTask.getEndTime() == null) {
-            return false; // Если одна из задач не имеет времени выполнения, пересечения нет
-        }
+    private final NavigableSet<Task> prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
 
-        // Проверяем пересечение отрезков
-        return !(newTask.getEndTime().isBefore(existingTask.getStartTime()) ||
-                newTask.getStartTime().isAfter(existingTask.getEndTime()));
-    }
+    // Индекс интервалов для быстрой проверки пересечений (содержит те же задачи, что и prioritizedTasks)
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    // Повторяющиеся задачи: хранятся правилами и участвуют в проверке пересечений без создания повторений
+    private final RecurrenceIndex recurrences = new RecurrenceIndex();
 
     // Метод для проверки пересечения новой задачи со всеми существующими задачами
     private boolean hasOverlappingTasks(Task newTask) {
-        return prioritizedTasks.stream()
-                .filter(existingTask -> !existingTask.equals(newTask)) // Исключаем саму себя (в случае обновления)
-                .anyMatch(existingTask -> isOverlapping(newTask, existingTask));
+        return intervalIndex.findOverlap(newTask) != null
+                || recurrences.findOverlap(newTask.getStartTime(), newTask.getEndTime()) != 0;
+    }
+
+    // Свободные промежутки шкалы без повторений повторяющихся задач
+    private Iterator<TimeSlot> freeGaps(LocalDateTime notBefore) {
+        return recurrences.subtract(intervalIndex.gaps(notBefore));
+    }
+
+    // Версия отсортированного списка и лениво собираемый снимок; сбрасывается при каждом изменении списка
+    private long prioritizedVersion;
+    private volatile PrioritizedSnapshot prioritizedSnapshot;
+
+    private void addPrioritized(Task task) {
+        if (task.getType() == TaskType.EPIC) {
+            return; // Эпики не добавляются в отсортированный список
+        }
+        prioritizedTasks.add(task);
+        intervalIndex.add(task);
+        invalidatePrioritized();
+    }
+
+    private void removePrioritized(Task task) {
+        prioritizedTasks.remove(task);
+        intervalIndex.remove(task.getId());
+        invalidatePrioritized();
+    }
+
+    // Поля эпика пересчитываются по подзадачам, поэтому их изменение — тоже новая версия эпика
+    private void epicChanged(Epic epic) {
+        statusIndex.update(epic);
+        epic.setVersion(epic.getVersion() + 1);
+        publish(TaskEventType.EPIC_ROLLUP_CHANGED, epic);
+    }
+
+    private void publish(TaskEventType type, Task task) {
+        eventBus.publish(type, task.getId(), task.getType(), task.getVersion());
+    }
+
+    private void invalidatePrioritized() {
+        prioritizedVersion++;
+        prioritizedSnapshot = null;
     }
 
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new TaskEventBus());
+    }
+
+    // Несколько менеджеров (шарды) могут публиковать события в общую шину
+    InMemoryTaskManager(HistoryManager historyManager, TaskEventBus eventBus) {
         this.historyManager = historyManager;
+        this.eventBus = eventBus;
     }
 
     public HistoryManager getHistoryManager() {
         return historyManager;
     }
 
+    @Override
+    public TaskEventBus getEventBus() {
+        return eventBus;
+    }
+
 
     @Override
     public int addTask(Task task) {
+        if (task.getType() == TaskType.RECURRING) {
+            return addRecurringTask((RecurringTask) task);
+        }
         if (hasOverlappingTasks(task)) {
             throw new IllegalArgumentException("Новая задача пересекается по времени выполнения с существующей задачей.");
         }
         task.setId(nextId++);
         addTaskWithPredefinedId(task);
-        prioritizedTasks.add(task);
+        addPrioritized(task);
+        return task.getId();
+    }
+
+    // Как addTask, но id уже выдан снаружи (менеджер с шардами распределяет id сам)
+    int addTaskWithAssignedId(Task task) {
+        if (hasOverlappingTasks(task)) {
+            throw new IllegalArgumentException("Новая задача пересекается по времени выполнения с существующей задачей.");
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+        addTaskWithPredefinedId(task);
+        addPrioritized(task);
         return task.getId();
     }
 
 
     protected void addTaskWithPredefinedId(Task task) {
+        task.setVersion(1);
+        tasksById.put(task.getId(), task);
+        statusIndex.update(task);
+        searchIndex.add(task);
+        publish(TaskEventType.CREATED, task);
         switch (task.getType()) {
             case SUBTASK:
                 Subtask subtask = (Subtask) task;
                 subtasks.put(task.getId(), subtask);
                 Epic epic = epics.get(subtask.getEpicId());
                 if (epic != null) {
-                    epic.addSubtask(subtask.getId());
-                    updateEpicStatus(epic);
-                    updateEpicFields(epic);
+                    epic.addSubtask(subtask);
+                    epicChanged(epic); // Статус эпика мог измениться
                 }
                 break;
             case EPIC:
@@ -89,58 +167,28 @@ public class InMemoryTaskManager implements TaskManager {
 
     }
 
-    protected void updateEpicFields(Epic epic) {
-        Duration totalDuration = null;
-        LocalDateTime earliestStartTime = null;
-        LocalDateTime latestEndTime = null;
-
-        // Рассчитываем общие значения на основе подзадач
-        for (Subtask subtask : getSubtasksForEpic(epic.getId())) {
-            if (subtask.getDuration() != null) {
-                totalDuration = (totalDuration == null) ? subtask.getDuration() : totalDuration
-                        .plus(subtask.getDuration());
-            }
-
-            if (subtask.getStartTime() != null) {
-                if (earliestStartTime == null || subtask.getStartTime().isBefore(earliestStartTime)) {
-                    earliestStartTime = subtask.getStartTime();
-                }
-            }
-
-            if (subtask.getEndTime() != null) {
-                if (latestEndTime == null || subtask.getEndTime().isAfter(latestEndTime)) {
-                    latestEndTime = subtask.getEndTime();
-                }
-            }
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasksById.get(id);
+        if (task != null) {
+            historyManager.add(task);  // Добавляем задачу любого типа в историю
         }
-
-        // Устанавливаем значения в эпик
-        epic.setDuration(totalDuration);
-        epic.setStartTime(earliestStartTime);
-        epic.setEndTime(latestEndTime);
+        return task;  // null, если задача не найдена
     }
 
+    // Поиск без записи в историю просмотров
+    Task findTask(int id) {
+        return tasksById.get(id);
+    }
 
     @Override
-    public Task getTaskById(int id) {
-        Task task = tasks.get(id);
-        if (task != null) {
-            historyManager.add(task);  // Добавляем обычную задачу в историю
-            return task;
-        } else {
-            Subtask subtask = subtasks.get(id);
-            if (subtask != null) {
-                historyManager.add(subtask);  // Добавляем подзадачу в историю
-                return subtask;
-            } else {
-                Epic epic = epics.get(id);
-                if (epic != null) {
-                    historyManager.add(epic);  // Добавляем эпик в историю
-                    return epic;
-                }
-            }
+    public Task getTaskById(int id, TaskType type) {
+        Task task = tasksById.get(id);
+        if (task == null || task.getType() != type) {
+            return null;  // Задачи нет или у неё другой тип
         }
-        return null;  // Возвращаем null, если задача не найдена
+        historyManager.add(task);
+        return task;
     }
 
     @Override
@@ -155,43 +203,60 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void removeTaskById(int id) {
-        // Удаление обычной задачи
-        Task task = tasks.remove(id);
-        if (task != null) {
-            prioritizedTasks.remove(task); // Удаляем задачу из TreeSet
+        Task task = tasksById.remove(id);
+        if (task == null) {
             return;
         }
-
-        // Удаление подзадачи
-        Subtask subtask = subtasks.remove(id);
-        if (subtask != null) {
-            prioritizedTasks.remove(subtask); // Удаляем подзадачу из TreeSet
-            Epic epic = epics.get(subtask.getEpicId());
-            if (epic != null) {
-                epic.removeSubtask(subtask.getId());
-                updateEpicStatus(epic);
-                updateEpicFields(epic); // Обновление полей эпика после удаления подзадачи
-            }
-            return;
-        }
-
-        // Удаление эпика и всех его подзадач
-        Epic epic = epics.remove(id);
-        if (epic != null) {
-            for (Integer subtaskId : epic.getSubtaskIds()) {
-                Subtask removedSubtask = subtasks.remove(subtaskId);
-                if (removedSubtask != null) {
-                    prioritizedTasks.remove(removedSubtask); // Удаляем подзадачи из TreeSet
+        statusIndex.remove(id, task.getType());
+        searchIndex.remove(id);
+        dependencies.remove(id);
+        publish(TaskEventType.REMOVED, task);
+        switch (task.getType()) {
+            case TASK:
+                tasks.remove(id);
+                removePrioritized(task); // Удаляем задачу из TreeSet
+                break;
+            case SUBTASK:
+                Subtask subtask = subtasks.remove(id);
+                removePrioritized(subtask); // Удаляем подзадачу из TreeSet
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(subtask.getId()); // Обновление полей эпика после удаления подзадачи
+                    epicChanged(epic);
                 }
-            }
+                break;
+            case EPIC:
+                // Удаление эпика и всех его подзадач
+                Epic removedEpic = epics.remove(id);
+                removedEpic.getSubtaskIds().forEach(subtaskId -> {
+                    Subtask removedSubtask = subtasks.remove(subtaskId);
+                    if (removedSubtask != null) {
+                        tasksById.remove(subtaskId);
+                        statusIndex.remove(subtaskId, TaskType.SUBTASK);
+                        searchIndex.remove(subtaskId);
+                        dependencies.remove(subtaskId);
+                        publish(TaskEventType.REMOVED, removedSubtask);
+                        removePrioritized(removedSubtask); // Удаляем подзадачи из TreeSet
+                    }
+                });
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + task.getType());
         }
     }
 
     // Метод для удаления всех обычных задач
     @Override
     public void removeAllTasks() {
-        tasks.values().forEach(prioritizedTasks::remove);
+        tasks.values().forEach(task -> {
+            tasksById.remove(task.getId());
+            searchIndex.remove(task.getId());
+            dependencies.remove(task.getId());
+            publish(TaskEventType.REMOVED, task);
+            removePrioritized(task);
+        });
         tasks.clear();
+        statusIndex.clear(TaskType.TASK);
     }
 
     // Метод для удаления всех эпиков и связанных с ними подзадач
@@ -202,11 +267,20 @@ public class InMemoryTaskManager implements TaskManager {
             epic.getSubtaskIds().forEach(subtaskId -> {
                 Task subtask = subtasks.remove(subtaskId);
                 if (subtask != null) {
-                    prioritizedTasks.remove(subtask); // Удаляем подзадачи из отсортированного списка
+                    tasksById.remove(subtaskId);
+                    statusIndex.remove(subtaskId, TaskType.SUBTASK);
+                    searchIndex.remove(subtaskId);
+                    dependencies.remove(subtaskId);
+                    publish(TaskEventType.REMOVED, subtask);
+                    removePrioritized(subtask); // Удаляем подзадачи из отсортированного списка
                 }
             });
+            tasksById.remove(epic.getId());
+            searchIndex.remove(epic.getId());
+            publish(TaskEventType.REMOVED, epic);
         });
         epics.clear();
+        statusIndex.clear(TaskType.EPIC);
     }
 
     // Метод для удаления всех подзадач и обновления статусов эпиков
@@ -214,53 +288,105 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeAllSubtasks() {
         // Для каждого эпика очищаем список подзадач и обновляем статус
         epics.values().forEach(epic -> {
-            epic.getSubtaskIds().clear();
-            updateEpicStatus(epic);
+            epic.clearSubtasks();
+            epicChanged(epic); // Эпик без подзадач снова NEW
+        });
+        subtasks.values().forEach(subtask -> {
+            tasksById.remove(subtask.getId());
+            searchIndex.remove(subtask.getId());
+            dependencies.remove(subtask.getId());
+            publish(TaskEventType.REMOVED, subtask);
+            removePrioritized(subtask);
         });
         subtasks.clear();
+        statusIndex.clear(TaskType.SUBTASK);
     }
 
     @Override
     public void updateTask(Task updatedTask) {
-        // Удаляем старую версию задачи из отсортированного списка, если это не эпик
-        if (updatedTask.getType() != TaskType.EPIC) {
-            Task oldTask = getTaskById(updatedTask.getId());
-            if (oldTask != null) {
-                prioritizedTasks.remove(oldTask);
-            }
+        if (updatedTask.getType() == TaskType.RECURRING) {
+            throw new IllegalArgumentException("Повторяющуюся задачу нельзя изменить: её можно удалить и добавить заново.");
+        }
+        // По единому индексу сразу отклоняем попытку сменить тип существующей задачи
+        Task existingTask = tasksById.get(updatedTask.getId());
+        if (existingTask != null && existingTask.getType() != updatedTask.getType()) {
+            throw new IllegalArgumentException("Задача с id " + updatedTask.getId() + " имеет другой тип: " +
+                    existingTask.getType());
+        }
+        // Сравнение с версией, которую видел клиент: чужое изменение не перезаписывается молча
+        if (existingTask == null && updatedTask.getVersion() != 0) {
+            // Клиент видел задачу, а её уже удалили: условное обновление не создаёт её заново
+            throw new TaskVersionConflictException("Задача с id " + updatedTask.getId() + " не найдена, ожидалась " +
+                    "версия " + updatedTask.getVersion());
+        }
+        if (existingTask != null && updatedTask.getVersion() != 0 && updatedTask.getVersion() != ANY_VERSION
+                && updatedTask.getVersion() != existingTask.getVersion()) {
+            throw new TaskVersionConflictException("Задача с id " + updatedTask.getId() + " уже изменена: версия " +
+                    existingTask.getVersion() + ", ожидалась " + updatedTask.getVersion());
         }
 
-        // Проверка на пересечение временных интервалов, если это не эпик
+        // Проверка на пересечение временных интервалов, если это не эпик (старая версия задачи исключается)
         if (updatedTask.getType() != TaskType.EPIC && hasOverlappingTasks(updatedTask)) {
             throw new IllegalArgumentException("Обновленная задача пересекается по времени выполнения " +
                     "с существующей задачей.");
         }
 
+        // Удаляем старую версию задачи из отсортированного списка, если это не эпик
+        if (updatedTask.getType() != TaskType.EPIC && existingTask != null) {
+            removePrioritized(existingTask);
+        }
+        updatedTask.setVersion(existingTask == null ? 1 : existingTask.getVersion() + 1);
+        tasksById.put(updatedTask.getId(), updatedTask);
+        statusIndex.update(updatedTask);
+        searchIndex.add(updatedTask);
+        if (updatedTask.getType() != TaskType.EPIC) {
+            dependencies.update(updatedTask); // Новые сроки сдвигают раннее начало зависимых задач
+        }
+        publish(TaskEventType.UPDATED, updatedTask);
+
         // Обновляем задачу в зависимости от типа
         switch (updatedTask.getType()) {
             case SUBTASK:
                 Subtask subtask = (Subtask) updatedTask;
-                subtasks.put(updatedTask.getId(), subtask);
+                Subtask oldSubtask = subtasks.put(updatedTask.getId(), subtask);
+                // Если подзадачу перенесли в другой эпик, отвязываем её от прежнего
+                if (oldSubtask != null && oldSubtask.getEpicId() != subtask.getEpicId()) {
+                    Epic oldEpic = epics.get(oldSubtask.getEpicId());
+                    if (oldEpic != null) {
+                        oldEpic.removeSubtask(subtask.getId());
+                        epicChanged(oldEpic);
+                    }
+                }
                 Epic epic = epics.get(subtask.getEpicId());
                 if (epic != null) {
-                    updateEpicStatus(epic);
-                    updateEpicFields(epic);
+                    epic.updateSubtask(subtask);
+                    epicChanged(epic);
                 }
                 // Добавляем обновлённую подзадачу в отсортированный список
-                prioritizedTasks.add(updatedTask);
+                addPrioritized(updatedTask);
                 break;
 
             case EPIC:
-                epics.put(updatedTask.getId(), (Epic) updatedTask);
-                updateEpicStatus((Epic) updatedTask);
-                updateEpicFields((Epic) updatedTask);
+                Epic updatedEpic = (Epic) updatedTask;
+                Epic oldEpic = epics.put(updatedTask.getId(), updatedEpic);
+                // Подзадачи остаются за эпиком: переносим их в новую версию и пересчитываем агрегаты
+                if (oldEpic != updatedEpic) {
+                    updatedEpic.clearSubtasks();
+                    if (oldEpic != null) {
+                        oldEpic.getSubtaskIds().stream()
+                                .mapToObj(subtasks::get)
+                                .filter(Objects::nonNull)
+                                .forEach(updatedEpic::addSubtask);
+                    }
+                }
+                statusIndex.update(updatedEpic); // Статус эпика задаётся подзадачами, а не клиентом
                 // Эпики не добавляются в отсортированный список
                 break;
 
             case TASK:
                 tasks.put(updatedTask.getId(), updatedTask);
                 // Добавляем обновлённую задачу в отсортированный список
-                prioritizedTasks.add(updatedTask);
+                addPrioritized(updatedTask);
                 break;
 
             default:
@@ -270,26 +396,15 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getSubtasksForEpic(int epicId) {
-        return Optional.ofNullable(epics.get(epicId))
-                .map(Epic::getSubtaskIds)
-                .orElse(List.of()) // Возвращаем пустой список, если эпик не найден
-                .stream()
-                .map(subtasks::get)
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return List.of(); // Возвращаем пустой список, если эпик не найден
+        }
+        return epic.getSubtaskIds().stream()
+                .mapToObj(subtasks::get)
                 .toList();
     }
 
-    // Метод для обновления статуса эпика
-
-    private void epicUpdateStatus(Subtask subtask) {
-        Epic epic = epics.get(subtask.getEpicId());
-        updateEpicStatus(epic);
-    }
-
-
-    private void epicUpdateStatus(Epic epic) {
-        updateEpicStatus(epic);
-    }
-
     // Возвращает список всех эпиков
     @Override
     public List<Epic> getAllEpics() {
@@ -319,70 +434,322 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
 
 
-    protected void updateEpicStatus(Epic epic) {
-        boolean allDone = true;
-        boolean allNew = true;
 
-        List<Subtask> subtasks = getSubtasksForEpic(epic.getId());
+    @Override
+    public Epic getEpicById(int epicId) {
+        return epics.get(epicId);
+    }
 
-        if (subtasks.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+    protected Map<Integer, Task> getTasks() {
+        return copyOf(tasks);
+    }
+
+    protected Map<Integer, Epic> getEpics() {
+        return copyOf(epics);
+    }
+
+    protected Map<Integer, Subtask> getSubtasks() {
+        return copyOf(subtasks);
+    }
+
+    private static <T extends Task> Map<Integer, T> copyOf(IntObjectMap<T> source) {
+        Map<Integer, T> copy = new HashMap<>(source.size() * 2);
+        source.forEach((task, id) -> copy.put(id, task));
+        return copy;
+    }
+
+    public int addEpic(Epic epic) {
+        return addTask(epic);
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return addTask(subtask); // Проверка пересечений и добавление в отсортированный список выполняются в addTask
+    }
+
+    /**
+     * Добавляет пачку задач по принципу «всё или ничего»: сначала вся пачка сортируется и проверяется
+     * на пересечения одним проходом слиянием с индексом интервалов, и только потом задачи вставляются.
+     * Агрегаты каждого затронутого эпика пересчитываются один раз на всю пачку.
+     */
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> batch) {
+        List<Task> timedTasks = new ArrayList<>();
+        for (Task task : batch) {
+            if (task == null || task.getType() == null) {
+                throw new IllegalArgumentException("Пакет содержит пустую задачу.");
+            }
+            if (task.getType() == TaskType.RECURRING) {
+                throw new IllegalArgumentException("Повторяющиеся задачи добавляются по одной.");
+            }
+            if (task.getType() != TaskType.EPIC && task.getStartTime() != null && task.getEndTime() != null) {
+                timedTasks.add(task);
+            }
+        }
+        timedTasks.sort(Comparator.comparing(Task::getStartTime));
+        if (intervalIndex.findOverlap(timedTasks) != null || timedTasks.stream()
+                .anyMatch(task -> recurrences.findOverlap(task.getStartTime(), task.getEndTime()) != 0)) {
+            throw new IllegalArgumentException("Задачи пакета пересекаются по времени выполнения между собой " +
+                    "или с существующими задачами.");
         }
 
-        for (Subtask subtask : subtasks) {
-            if (subtask.getStatus() != Status.DONE) {
-                allDone = false;
+        List<Integer> ids = new ArrayList<>(batch.size());
+        Map<Integer, List<Subtask>> subtasksByEpic = new LinkedHashMap<>();
+        for (Task task : batch) {
+            task.setId(nextId++);
+            if (task.getType() == TaskType.SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                tasksById.put(subtask.getId(), subtask);
+                subtasks.put(subtask.getId(), subtask);
+                subtask.setVersion(1);
+                statusIndex.update(subtask);
+                searchIndex.add(subtask);
+                publish(TaskEventType.CREATED, subtask);
+                subtasksByEpic.computeIfAbsent(subtask.getEpicId(), epicId -> new ArrayList<>()).add(subtask);
+            } else {
+                addTaskWithPredefinedId(task);
             }
-            if (subtask.getStatus() != Status.NEW) {
-                allNew = false;
+            addPrioritized(task);
+            ids.add(task.getId());
+        }
+        subtasksByEpic.forEach((epicId, epicSubtasks) -> {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                epic.addSubtasks(epicSubtasks);
+                epicChanged(epic);
             }
+        });
+        return ids;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getPrioritizedSnapshot().tasks();
+    }
+
+    // Между изменениями повторные чтения возвращают один и тот же снимок без копирования
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        PrioritizedSnapshot snapshot = prioritizedSnapshot;
+        if (snapshot == null) {
+            snapshot = new PrioritizedSnapshot(prioritizedVersion, List.copyOf(prioritizedTasks));
+            prioritizedSnapshot = snapshot;
         }
+        return snapshot;
+    }
 
-        if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+    // Задачи с началом в полуинтервале [from, to); любая граница может быть null
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(prioritizedRange(from, to, null));
+    }
+
+    // Не больше limit задач после курсора; обход view-поддерева без копирования остального списка
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
         }
+        List<Task> page = new ArrayList<>(Math.min(limit, 64));
+        for (Task task : prioritizedRange(from, to, after)) {
+            page.add(task);
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
     }
 
+    // Задачи нужного типа и статуса в порядке добавления; читается только одна корзина индекса
     @Override
-    public Epic getEpicById(int epicId) {
-        return epics.get(epicId);
+    public List<Task> getByStatus(TaskType type, Status status) {
+        LinkedIntSet ids = statusIndex.ids(type, status);
+        List<Task> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> result.add(tasksById.get(id)));
+        return result;
     }
 
-    protected Map<Integer, Task> getTasks() {
-        return new HashMap<>(tasks);
+    // Задачи всех типов с заданным статусом в том же порядке, что и getAllTasks
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> result = new ArrayList<>(countByStatus(TaskType.TASK, status)
+                + countByStatus(TaskType.SUBTASK, status) + countByStatus(TaskType.EPIC, status));
+        for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK, TaskType.EPIC)) {
+            statusIndex.ids(type, status).forEach(id -> result.add(tasksById.get(id)));
+        }
+        return result;
     }
 
-    protected Map<Integer, Epic> getEpics() {
-        return new HashMap<>(epics);
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        return statusIndex.count(type, status);
     }
 
-    protected Map<Integer, Subtask> getSubtasks() {
-        return new HashMap<>(subtasks);
+    @Override
+    public List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество результатов должно быть положительным: " + limit);
+        }
+        return searchIndex.search(query, limit);
     }
 
-    public int addEpic(Epic epic) {
-        return addTask(epic);
+    // Результаты поиска вместе с оценкой релевантности, чтобы их можно было слить с результатами других шардов
+    List<SearchIndex.Match> searchMatches(String query, int limit) {
+        return searchIndex.matches(query, limit);
     }
 
     @Override
-    public int addSubtask(Subtask subtask) {
-        if (hasOverlappingTasks(subtask)) {
-            throw new IllegalArgumentException("Новая задача пересекается по времени выполнения с существующей задачей.");
+    public TimeSlot findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return IntervalIndex.first(findFreeSlots(duration, notBefore, 1));
+    }
+
+    // Первые count промежутков, куда задача поместится без пересечений; последний может быть открытым
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime notBefore, int count) {
+        if (recurrences.isEmpty()) {
+            return intervalIndex.findGaps(duration, notBefore, count);
         }
-        prioritizedTasks.add(subtask);
-        return addTask(subtask);
+        IntervalIndex.checkGapQuery(duration, notBefore, count);
+        return IntervalIndex.firstFitting(freeGaps(notBefore), duration, count);
     }
 
+    /**
+     * Места для всех задач вычисляются до первого изменения, поэтому ошибка в любой из них ничего не меняет.
+     * Если же при переносе обновление какой-то задачи отклонено, уже перенесённые задачи возвращаются назад.
+     */
     @Override
-    public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+    public List<Task> autoSchedule(List<Integer> taskIds, LocalDateTime notBefore, WorkingHours workingHours) {
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого расставлять задачи.");
+        }
+        List<Task> unscheduled = AutoScheduler.collect(taskIds, tasksById::get);
+        List<LocalDateTime> starts = AutoScheduler.schedule(freeGaps(notBefore), unscheduled, workingHours);
+        return AutoScheduler.apply(unscheduled, starts, this::updateTask);
+    }
+
+    /**
+     * Правило проверяется по другим правилам за O(1) на пару (бесконечные правила) и по шкале — перебором
+     * повторений до окончания последней задачи на шкале.
+     */
+    @Override
+    public int addRecurringTask(RecurringTask task) {
+        RecurrenceIndex.validate(task);
+        if (recurrences.findOverlap(task) != null || RecurrenceIndex.overlapsTimeline(task, intervalIndex.lastEnd(),
+                (start, end) -> intervalIndex.findOverlap(start, end, 0) != null)) {
+            throw new IllegalArgumentException("Повторения задачи пересекаются по времени выполнения " +
+                    "с существующими задачами.");
+        }
+        task.setId(nextId++);
+        addRecurringTaskWithPredefinedId(task);
+        return task.getId();
+    }
+
+    protected void addRecurringTaskWithPredefinedId(RecurringTask task) {
+        task.setVersion(1);
+        recurrences.add(task);
+        publish(TaskEventType.CREATED, task);
+    }
+
+    @Override
+    public void removeRecurringTask(int id) {
+        RecurringTask task = recurrences.remove(id);
+        if (task != null) {
+            publish(TaskEventType.REMOVED, task);
+        }
+    }
+
+    @Override
+    public List<RecurringTask> getRecurringTasks() {
+        return recurrences.tasks();
+    }
+
+    @Override
+    public List<Occurrence> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        return recurrences.occurrences(from, to);
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        dependencies.addDependency(dependencyTask(taskId), dependencyTask(dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        dependencies.removeDependency(taskId, dependsOnId);
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return dependencies.dependenciesOf(taskId);
+    }
+
+    @Override
+    public LocalDateTime getEarliestStart(int taskId) {
+        Task task = tasksById.get(taskId);
+        if (task == null) {
+            return null;
+        }
+        return dependencies.contains(taskId) ? dependencies.earliestStart(taskId) : task.getStartTime();
+    }
+
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new CriticalPath(List.of(), null);
+        }
+        List<Task> epicSubtasks = new ArrayList<>(epic.getSubtaskIds().size());
+        epic.getSubtaskIds().forEach(subtaskId -> epicSubtasks.add(subtasks.get(subtaskId)));
+        return dependencies.criticalPath(epicSubtasks);
+    }
+
+    // Зависимости бывают только у задач и подзадач: сроки эпика складываются из сроков подзадач
+    private Task dependencyTask(int id) {
+        Task task = tasksById.get(id);
+        if (task == null || task.getType() == TaskType.EPIC) {
+            throw new IllegalArgumentException("Задача с id " + id + " не найдена или является эпиком.");
+        }
+        return task;
+    }
+
+    private NavigableSet<Task> prioritizedRange(LocalDateTime from, LocalDateTime to, PrioritizedCursor after) {
+        Task lower = from != null ? probe(from, 0) : null;
+        boolean lowerInclusive = true;
+        if (after != null) {
+            Task cursor = probe(after.startTime(), after.id());
+            if (lower == null || PRIORITY_ORDER.compare(cursor, lower) >= 0) {
+                lower = cursor;
+                lowerInclusive = false;
+            }
+        }
+        // При заданном диапазоне задачи без времени начала (они в конце списка) не попадают в выборку
+        Task upper = to != null ? probe(to, 0)
+                : from != null ? probe(null, Integer.MIN_VALUE) : null;
+
+        if (lower != null && upper != null) {
+            if (PRIORITY_ORDER.compare(lower, upper) > 0) {
+                return Collections.emptyNavigableSet();
+            }
+            return prioritizedTasks.subSet(lower, lowerInclusive, upper, false);
+        } else if (lower != null) {
+            return prioritizedTasks.tailSet(lower, lowerInclusive);
+        } else if (upper != null) {
+            return prioritizedTasks.headSet(upper, false);
+        }
+        return prioritizedTasks;
+    }
+
+    // Искусственная задача с нужным ключом сортировки для поиска границ в TreeSet
+    private static Task probe(LocalDateTime startTime, int id) {
+        Task probe = new Task(null, null, null, null, startTime);
+        probe.setId(id);
+        return probe;
     }
 
     protected void setNextId(int nextId) {
@@ -0,0 +1,229 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Индекс занятых интервалов времени для проверки пересечений задач.
+ * <p>
+ * Все интервалы в индексе попарно не пересекаются (это гарантирует сам менеджер, проверяя каждую
+ * задачу перед добавлением), поэтому при сортировке по началу концы интервалов тоже отсортированы.
+ * Благодаря этому поиск пересечения обходит только интервалы, начинающиеся не позже конца новой задачи,
+ * и останавливается на первом, который закончился раньше её начала: O(log N + k).
+ */
+class IntervalIndex {
+    // Минимальный зазор между задачами: стыковка вплотную считается пересечением
+    static final Duration SLOT_STEP = Duration.ofMinutes(1);
+
+    private final NavigableMap<LocalDateTime, Slot> byStart = new TreeMap<>();
+    private final Map<Integer, Slot> byId = new HashMap<>();
+
+    // Интервал запоминается в момент добавления, чтобы изменение объекта задачи снаружи не ломало индекс
+    private record Slot(Task task, LocalDateTime start, LocalDateTime end) {
+    }
+
+    // Добавляет задачу в индекс, если у неё задано время начала и окончания
+    void add(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null) {
+            return;
+        }
+        remove(task.getId());
+        Slot slot = new Slot(task, start, end);
+        byStart.put(start, slot);
+        byId.put(task.getId(), slot);
+    }
+
+    void remove(int id) {
+        Slot slot = byId.remove(id);
+        if (slot != null) {
+            byStart.remove(slot.start());
+        }
+    }
+
+    void clear() {
+        byStart.clear();
+        byId.clear();
+    }
+
+    // Возвращает первую задачу, пересекающуюся с переданной (кроме неё самой), или null
+    Task findOverlap(Task task) {
+        return findOverlap(task.getStartTime(), task.getEndTime(), task.getId());
+    }
+
+    Task findOverlap(LocalDateTime start, LocalDateTime end, int excludedId) {
+        if (start == null || end == null) {
+            return null; // Задача без времени выполнения ни с чем не пересекается
+        }
+        for (Slot slot : byStart.headMap(end, true).descendingMap().values()) {
+            if (slot.end().isBefore(start)) {
+                return null; // Все более ранние интервалы заканчиваются ещё раньше
+            }
+            if (slot.task().getId() != excludedId) {
+                return slot.task();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет пачку новых задач, отсортированную по времени начала, одним проходом слиянием с индексом.
+     * Интервалы обходятся в общем порядке начала, запоминая самый поздний конец; пересечение есть, если
+     * очередной интервал начинается не позже него. Пары из индекса между собой не пересекаются,
+     * поэтому найденный конфликт всегда затрагивает задачу из пачки. Возвращает задачу, с которой
+     * произошло пересечение, или null.
+     */
+    Task findOverlap(List<Task> sortedBatch) {
+        if (sortedBatch.isEmpty()) {
+            return null;
+        }
+        LocalDateTime first = sortedBatch.get(0).getStartTime();
+        LocalDateTime last = sortedBatch.get(sortedBatch.size() - 1).getEndTime();
+        for (Task task : sortedBatch) {
+            last = task.getEndTime().isAfter(last) ? task.getEndTime() : last;
+        }
+        LocalDateTime from = byStart.floorKey(first); // Интервал, начатый раньше пачки, может заходить в неё
+        Iterator<Slot> existing = byStart.subMap(from != null ? from : first, true, last, true)
+                .values().iterator();
+
+        Slot nextExisting = existing.hasNext() ? existing.next() : null;
+        int batchIndex = 0;
+        LocalDateTime maxEnd = null;
+        Task maxEndTask = null;
+        while (batchIndex < sortedBatch.size() || nextExisting != null) {
+            Task current;
+            LocalDateTime start;
+            LocalDateTime end;
+            boolean takeExisting = batchIndex == sortedBatch.size() || nextExisting != null
+                    && nextExisting.start().isBefore(sortedBatch.get(batchIndex).getStartTime());
+            if (takeExisting) {
+                current = nextExisting.task();
+                start = nextExisting.start();
+                end = nextExisting.end();
+                nextExisting = existing.hasNext() ? existing.next() : null;
+            } else {
+                current = sortedBatch.get(batchIndex++);
+                start = current.getStartTime();
+                end = current.getEndTime();
+            }
+            if (maxEnd != null && !start.isAfter(maxEnd)) {
+                return takeExisting ? current : maxEndTask;
+            }
+            if (maxEnd == null || end.isAfter(maxEnd)) {
+                maxEnd = end;
+                maxEndTask = current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ищет первые limit промежутков не раньше notBefore, в которые помещается задача длительностью duration.
+     * Пересечение проверяется включительно (задачи не могут стыковаться вплотную), поэтому промежуток
+     * начинается через минуту после окончания предыдущего интервала и заканчивается за минуту до следующего.
+     * Интервалы отсортированы и по началу, и по концу, так что обход идёт от notBefore вперёд
+     * и пропускает только слишком короткие промежутки: O(log N + k).
+     */
+    List<TimeSlot> findGaps(Duration duration, LocalDateTime notBefore, int limit) {
+        checkGapQuery(duration, notBefore, limit);
+        return firstFitting(gaps(notBefore), duration, limit);
+    }
+
+    // Все свободные промежутки от notBefore по порядку; последний — открытый (end == null)
+    Iterator<TimeSlot> gaps(LocalDateTime notBefore) {
+        LocalDateTime start = notBefore;
+        Map.Entry<LocalDateTime, Slot> previous = byStart.floorEntry(notBefore);
+        if (previous != null && !previous.getValue().end().isBefore(notBefore)) {
+            start = previous.getValue().end().plus(SLOT_STEP); // notBefore попадает внутрь занятого интервала
+        }
+        LocalDateTime firstStart = start;
+        Iterator<Slot> slots = byStart.tailMap(notBefore, false).values().iterator();
+        return new Iterator<>() {
+            private LocalDateTime candidate = firstStart;
+            private TimeSlot next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !finished) {
+                    if (!slots.hasNext()) {
+                        next = new TimeSlot(candidate, null); // После последней задачи шкала свободна
+                        finished = true;
+                        break;
+                    }
+                    Slot slot = slots.next();
+                    LocalDateTime latestEnd = slot.start().minus(SLOT_STEP);
+                    if (candidate.isBefore(latestEnd)) {
+                        next = new TimeSlot(candidate, latestEnd);
+                    }
+                    LocalDateTime afterSlot = slot.end().plus(SLOT_STEP);
+                    candidate = afterSlot.isAfter(candidate) ? afterSlot : candidate;
+                }
+                return next != null;
+            }
+
+            @Override
+            public TimeSlot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TimeSlot gap = next;
+                next = null;
+                return gap;
+            }
+        };
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    // Окончание последнего интервала (интервалы не пересекаются, поэтому это самый поздний конец) или null
+    LocalDateTime lastEnd() {
+        return byStart.isEmpty() ? null : byStart.lastEntry().getValue().end();
+    }
+
+    // Первые limit промежутков из gaps, в которые помещается задача длительностью duration
+    static List<TimeSlot> firstFitting(Iterator<TimeSlot> gaps, Duration duration, int limit) {
+        List<TimeSlot> result = new ArrayList<>();
+        while (result.size() < limit && gaps.hasNext()) {
+            TimeSlot gap = gaps.next();
+            if (gap.end() == null || !gap.start().plus(duration).isAfter(gap.end())) {
+                result.add(gap);
+            }
+        }
+        return result;
+    }
+
+    // Первый найденный промежуток; его может не быть, только если шкалу до горизонта поиска заняли повторения
+    static TimeSlot first(List<TimeSlot> gaps) {
+        if (gaps.isEmpty()) {
+            throw new IllegalArgumentException("Свободный промежуток не найден.");
+        }
+        return gaps.get(0);
+    }
+
+    // Общая проверка аргументов поиска промежутков (нужна и колоночной шкале CompactTimeline)
+    static void checkGapQuery(Duration duration, LocalDateTime notBefore, int limit) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Продолжительность должна быть положительной: " + duration);
+        }
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого искать свободный промежуток.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество промежутков должно быть положительным: " + limit);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package ru.yandex.practicum.service;
 
 public class Managers {
+    // Сколько последних просмотренных задач хранит история по умолчанию
+    public static final int DEFAULT_HISTORY_CAPACITY = 1000;
+    // Сколько записей суммарно хранят истории всех клиентов
+    public static final long DEFAULT_HISTORY_MEMORY_CAP = 100_000;
+    // Сколько клиентов одновременно хранят свою историю
+    public static final int DEFAULT_HISTORY_MAX_CLIENTS = 10_000;
 
     private Managers() {
     }
@@ -10,7 +16,48 @@ public class Managers {
         return new InMemoryTaskManager(historyManager);
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(getConcurrentHistory());
+    }
+
+    // Для сервера со многими клиентами: у каждого клиента своя история просмотров
+    public static TaskManager getMultiClient() {
+        return new ConcurrentTaskManager(getClientHistories());
+    }
+
+    public static TaskManager getSharded() {
+        return new ShardedTaskManager(getConcurrentHistory());
+    }
+
+    public static TaskManager getCompact() {
+        return new CompactTaskManager(getDefaultHistory());
+    }
+
+    // Записи задач и строки хранятся в прямых буферах вне кучи
+    public static TaskManager getOffHeap() {
+        return new CompactTaskManager(getDefaultHistory(), new OffHeapTaskRecords(16), new OffHeapStringArena());
+    }
+
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return getDefaultHistory(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    // История для менеджеров, которые читают задачи из многих потоков
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    // Просмотры записываются в историю фоновым потоком, а не в потоке, читающем задачу
+    public static HistoryManager getAsyncHistory() {
+        return new AsyncHistoryManager(getDefaultHistory());
+    }
+
+    public static HistoryRegistry getClientHistories() {
+        return new HistoryRegistry(DEFAULT_HISTORY_CAPACITY, DEFAULT_HISTORY_MEMORY_CAP,
+                DEFAULT_HISTORY_MAX_CLIENTS);
     }
 }
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Одно повторение повторяющейся задачи: id и название задачи, начало и окончание этого повторения.
+ */
+public record Occurrence(int taskId, String title, LocalDateTime start, LocalDateTime end) {
+}
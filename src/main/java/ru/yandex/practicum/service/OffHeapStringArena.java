@@ -0,0 +1,117 @@
+package ru.yandex.practicum.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Строки вне кучи: UTF-8 байты с длиной в прямых {@link ByteBuffer} блоках по 4 МБ.
+ * <p>
+ * Место выделяется кусками размером в степень двойки (от 16 байт), для каждого размера есть свой список
+ * свободных кусков; ссылка на следующий свободный кусок хранится в самом куске. Номер строки кодирует блок
+ * и смещение в нём с точностью до 8 байт, так что адресуется до 16 ГБ строк. В отличие от {@link StringTable},
+ * одинаковые строки не объединяются: для этого понадобился бы словарь в куче.
+ */
+class OffHeapStringArena implements StringStore {
+    private static final int SLAB_BITS = 22;
+    private static final int SLAB_SIZE = 1 << SLAB_BITS;
+    private static final int ALIGNMENT_BITS = 3;
+    private static final int OFFSET_BITS = SLAB_BITS - ALIGNMENT_BITS;
+    private static final int MIN_BLOCK_BITS = 4;
+    private static final int LENGTH = 0;
+    private static final int NEXT_FREE = 4; // У свободного куска после длины — номер следующего свободного
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final int[] freeHeads = new int[SLAB_BITS + 1];
+    private int position = SLAB_SIZE; // Свободное место в последнем блоке; первый блок создаётся при первой строке
+    private int size;
+
+    OffHeapStringArena() {
+        Arrays.fill(freeHeads, NONE);
+    }
+
+    @Override
+    public int acquire(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        if (needed > SLAB_SIZE) {
+            throw new IllegalArgumentException("Строка слишком длинная для хранения: " + bytes.length + " байт");
+        }
+        int blockBits = blockBits(needed);
+        int id = freeHeads[blockBits];
+        if (id != NONE) {
+            freeHeads[blockBits] = slab(id).getInt(offset(id) + NEXT_FREE);
+        } else {
+            id = bump(1 << blockBits);
+        }
+        ByteBuffer slab = slab(id);
+        slab.putInt(offset(id) + LENGTH, bytes.length);
+        slab.put(offset(id) + Integer.BYTES, bytes);
+        size++;
+        return id;
+    }
+
+    @Override
+    public void release(int id) {
+        if (id == NONE) {
+            return;
+        }
+        ByteBuffer slab = slab(id);
+        int blockBits = blockBits(Integer.BYTES + slab.getInt(offset(id) + LENGTH));
+        slab.putInt(offset(id) + NEXT_FREE, freeHeads[blockBits]);
+        freeHeads[blockBits] = id;
+        size--;
+    }
+
+    @Override
+    public String get(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        ByteBuffer slab = slab(id);
+        byte[] bytes = new byte[slab.getInt(offset(id) + LENGTH)];
+        slab.get(offset(id) + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int slabCount() {
+        return slabs.size();
+    }
+
+    // Кусок в конце последнего блока; хвост блока, куда кусок не помещается, не используется
+    private int bump(int blockSize) {
+        if (position + blockSize > SLAB_SIZE) {
+            if (slabs.size() == 1 << (Integer.SIZE - 1 - OFFSET_BITS)) {
+                throw new IllegalStateException("Превышен объём хранилища строк.");
+            }
+            slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE).order(ByteOrder.nativeOrder()));
+            position = 0;
+        }
+        int id = (slabs.size() - 1) << OFFSET_BITS | position >>> ALIGNMENT_BITS;
+        position += blockSize;
+        return id;
+    }
+
+    private static int blockBits(int bytes) {
+        return Math.max(MIN_BLOCK_BITS, Integer.SIZE - Integer.numberOfLeadingZeros(bytes - 1));
+    }
+
+    private ByteBuffer slab(int id) {
+        return slabs.get(id >>> OFFSET_BITS);
+    }
+
+    private static int offset(int id) {
+        return (id & ((1 << OFFSET_BITS) - 1)) << ALIGNMENT_BITS;
+    }
+}
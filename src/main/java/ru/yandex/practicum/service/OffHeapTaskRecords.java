@@ -0,0 +1,196 @@
+package ru.yandex.practicum.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Записи задач вне кучи: записи по 40 байт в прямых {@link ByteBuffer} блоках по 65 536 записей.
+ * <p>
+ * Индекс id → номер записи — тоже прямой буфер (4 байта на каждый выданный id). Освобождённые записи
+ * образуют список свободных: номер следующей свободной записи хранится в самой записи, поэтому повторное
+ * использование не требует памяти в куче. В куче остаются только ссылки на блоки, сколько бы ни было задач.
+ */
+class OffHeapTaskRecords implements TaskRecords {
+    private static final int RECORD_SIZE = 40;
+    private static final int SLAB_SHIFT = 16;
+    private static final int RECORDS_PER_SLAB = 1 << SLAB_SHIFT;
+    private static final int NO_RECORD = -1;
+
+    // Смещения полей внутри записи
+    private static final int START = 0;
+    private static final int VERSION = 8;
+    private static final int EPIC_ID = 16;
+    private static final int DURATION = 20;
+    private static final int TITLE = 24;
+    private static final int DESCRIPTION = 28;
+    private static final int TYPE = 32;
+    private static final int STATUS = 33;
+    private static final int NEXT_FREE = 0; // У свободной записи на месте начала — номер следующей свободной
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private ByteBuffer index; // id - 1 → номер записи + 1; 0 — записи нет
+    private int recordCount;
+    private int freeHead = NO_RECORD;
+
+    OffHeapTaskRecords(int expectedTasks) {
+        index = allocate(Math.max(expectedTasks, 16) * Integer.BYTES);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id > 0 && id <= index.capacity() / Integer.BYTES && index.getInt((id - 1) * Integer.BYTES) != 0;
+    }
+
+    @Override
+    public void allocate(int id, byte type) {
+        ensureIndexCapacity(id);
+        int record;
+        if (freeHead != NO_RECORD) {
+            record = freeHead;
+            freeHead = slab(record).getInt(offset(record) + NEXT_FREE);
+        } else {
+            record = recordCount++;
+            if (record >> SLAB_SHIFT == slabs.size()) {
+                slabs.add(allocate(RECORDS_PER_SLAB * RECORD_SIZE));
+            }
+        }
+        ByteBuffer slab = slab(record);
+        int offset = offset(record);
+        for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+            slab.putLong(offset + i, 0);
+        }
+        slab.put(offset + TYPE, type);
+        index.putInt((id - 1) * Integer.BYTES, record + 1);
+    }
+
+    @Override
+    public void free(int id) {
+        int record = record(id);
+        slab(record).putInt(offset(record) + NEXT_FREE, freeHead);
+        freeHead = record;
+        index.putInt((id - 1) * Integer.BYTES, 0);
+    }
+
+    @Override
+    public byte getType(int id) {
+        int record = record(id);
+        return slab(record).get(offset(record) + TYPE);
+    }
+
+    @Override
+    public byte getStatus(int id) {
+        int record = record(id);
+        return slab(record).get(offset(record) + STATUS);
+    }
+
+    @Override
+    public void setStatus(int id, byte status) {
+        int record = record(id);
+        slab(record).put(offset(record) + STATUS, status);
+    }
+
+    @Override
+    public long getStartMinute(int id) {
+        int record = record(id);
+        return slab(record).getLong(offset(record) + START);
+    }
+
+    @Override
+    public void setStartMinute(int id, long minute) {
+        int record = record(id);
+        slab(record).putLong(offset(record) + START, minute);
+    }
+
+    @Override
+    public int getDurationMinutes(int id) {
+        int record = record(id);
+        return slab(record).getInt(offset(record) + DURATION);
+    }
+
+    @Override
+    public void setDurationMinutes(int id, int minutes) {
+        int record = record(id);
+        slab(record).putInt(offset(record) + DURATION, minutes);
+    }
+
+    @Override
+    public int getEpicId(int id) {
+        int record = record(id);
+        return slab(record).getInt(offset(record) + EPIC_ID);
+    }
+
+    @Override
+    public void setEpicId(int id, int epicId) {
+        int record = record(id);
+        slab(record).putInt(offset(record) + EPIC_ID, epicId);
+    }
+
+    @Override
+    public int getTitle(int id) {
+        int record = record(id);
+        return slab(record).getInt(offset(record) + TITLE);
+    }
+
+    @Override
+    public void setTitle(int id, int title) {
+        int record = record(id);
+        slab(record).putInt(offset(record) + TITLE, title);
+    }
+
+    @Override
+    public int getDescription(int id) {
+        int record = record(id);
+        return slab(record).getInt(offset(record) + DESCRIPTION);
+    }
+
+    @Override
+    public void setDescription(int id, int description) {
+        int record = record(id);
+        slab(record).putInt(offset(record) + DESCRIPTION, description);
+    }
+
+    @Override
+    public long getVersion(int id) {
+        int record = record(id);
+        return slab(record).getLong(offset(record) + VERSION);
+    }
+
+    @Override
+    public void setVersion(int id, long version) {
+        int record = record(id);
+        slab(record).putLong(offset(record) + VERSION, version);
+    }
+
+    // Занятые и свободные записи вместе: столько записей выделено в блоках
+    int recordCount() {
+        return recordCount;
+    }
+
+    private int record(int id) {
+        return index.getInt((id - 1) * Integer.BYTES) - 1;
+    }
+
+    private ByteBuffer slab(int record) {
+        return slabs.get(record >> SLAB_SHIFT);
+    }
+
+    private static int offset(int record) {
+        return (record & (RECORDS_PER_SLAB - 1)) * RECORD_SIZE;
+    }
+
+    private void ensureIndexCapacity(int maxId) {
+        int capacity = index.capacity() / Integer.BYTES;
+        if (maxId <= capacity) {
+            return;
+        }
+        ByteBuffer grown = allocate(Math.max(maxId, capacity * 2) * Integer.BYTES);
+        grown.put(0, index, 0, index.capacity());
+        index = grown;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Курсор постраничного обхода отсортированного списка: ключ сортировки последней выданной задачи.
+ * Следующая страница начинается строго после этого ключа, поэтому удаление самой задачи курсор не ломает.
+ */
+public record PrioritizedCursor(LocalDateTime startTime, int id) {
+    private static final String SEPARATOR = "_";
+
+    public static PrioritizedCursor of(Task task) {
+        return new PrioritizedCursor(task.getStartTime(), task.getId());
+    }
+
+    // Строковое представление для передачи клиенту, например "2024-11-01T09:00_12" или "null_12"
+    public String encode() {
+        return startTime + SEPARATOR + id;
+    }
+
+    public static PrioritizedCursor decode(String value) {
+        int separator = value.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Некорректный курсор: " + value);
+        }
+        try {
+            String start = value.substring(0, separator);
+            int id = Integer.parseInt(value.substring(separator + 1));
+            return new PrioritizedCursor("null".equals(start) ? null : LocalDateTime.parse(start), id);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+
+/**
+ * Неизменяемый снимок отсортированного по времени списка задач.
+ * Версия увеличивается при каждом изменении списка, поэтому по ней можно кэшировать производные данные
+ * (например, уже сериализованный ответ), пока задачи не изменятся.
+ */
+public record PrioritizedSnapshot(long version, List<Task> tasks) {
+}
@@ -0,0 +1,313 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.utils.IntObjectMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.BiPredicate;
+
+/**
+ * Повторяющиеся задачи, хранимые правилами: повторения не создаются, пока их не запросят.
+ * <p>
+ * Повторения правила — арифметическая прогрессия: k-е начинается в start + k * interval. Поэтому пересечение
+ * с интервалом [a, b] проверяется за O(1): достаточно проверить последнее повторение, начатое не позже b
+ * (продолжительность меньше интервала, так что более ранние закончились ещё раньше). Два бесконечных правила
+ * пересекаются, если разность их начал может попасть в [-d1, d2]; все достижимые разности — это один класс
+ * вычетов по НОД интервалов, так что проверка тоже O(1). Если хотя бы одно из правил конечно, перебираются
+ * повторения конечного правила в общем промежутке.
+ * <p>
+ * Время считается в секундах от эпохи (UTC). Пересечения включительные, как у {@link IntervalIndex}.
+ */
+class RecurrenceIndex {
+    // Дальше этого горизонта от начала поиска свободные промежутки между бесконечными повторениями не ищутся
+    static final Duration SEARCH_HORIZON = Duration.ofDays(3653);
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final IntObjectMap<Rule> rules = new IntObjectMap<>();
+
+    // Правило в секундах; lastIndex — номер последнего повторения (UNBOUNDED, если конца нет)
+    private record Rule(RecurringTask task, long start, long duration, long interval, long lastIndex) {
+
+        static Rule of(RecurringTask task) {
+            long start = seconds(task.getStartTime());
+            long interval = task.getInterval().getSeconds();
+            long lastIndex = task.getUntil() == null ? UNBOUNDED
+                    : -Math.floorDiv(-(seconds(task.getUntil()) - start), interval) - 1;
+            return new Rule(task, start, task.getDuration().getSeconds(), interval, lastIndex);
+        }
+
+        long startOf(long index) {
+            return start + index * interval;
+        }
+
+        // Номер первого повторения, которое заканчивается не раньше time
+        long firstEndingAtOrAfter(long time) {
+            return Math.max(0, -Math.floorDiv(-(time - duration - start), interval));
+        }
+
+        // Пересекается ли какое-нибудь повторение с интервалом [from, to] включительно
+        boolean overlaps(long from, long to) {
+            if (to < start) {
+                return false;
+            }
+            long index = Math.min((to - start) / interval, lastIndex);
+            return startOf(index) + duration >= from;
+        }
+
+        boolean overlaps(Rule other) {
+            if (lastIndex == UNBOUNDED && other.lastIndex == UNBOUNDED) {
+                long gcd = gcd(interval, other.interval);
+                return Math.floorMod(start - other.start + duration, gcd) <= duration + other.duration;
+            }
+            Rule bounded = lastIndex != UNBOUNDED ? this : other;
+            Rule rest = bounded == this ? other : this;
+            for (long index = bounded.firstEndingAtOrAfter(rest.start); index <= bounded.lastIndex; index++) {
+                long occurrenceStart = bounded.startOf(index);
+                if (rest.overlaps(occurrenceStart, occurrenceStart + bounded.duration)) {
+                    return true;
+                }
+                if (rest.lastIndex != UNBOUNDED && occurrenceStart > rest.startOf(rest.lastIndex) + rest.duration) {
+                    return false; // Второе правило уже закончилось
+                }
+            }
+            return false;
+        }
+    }
+
+    // Проверяет правило и возвращает задачу, с которой пересекается её повторение, или null
+    RecurringTask findOverlap(RecurringTask task) {
+        Rule rule = Rule.of(task);
+        for (Rule other : rules.values()) {
+            if (other.task().getId() != task.getId() && rule.overlaps(other)) {
+                return other.task();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Пересекается ли правило с обычными задачами. occupied проверяет интервал по шкале; повторения
+     * перебираются только до lastTimelineEnd — окончания последней задачи на шкале (null — шкала пуста).
+     */
+    static boolean overlapsTimeline(RecurringTask task, LocalDateTime lastTimelineEnd,
+                                    BiPredicate<LocalDateTime, LocalDateTime> occupied) {
+        if (lastTimelineEnd == null) {
+            return false;
+        }
+        Rule rule = Rule.of(task);
+        long last = seconds(lastTimelineEnd);
+        for (long index = 0; index <= rule.lastIndex() && rule.startOf(index) <= last; index++) {
+            long start = rule.startOf(index);
+            if (occupied.test(dateTime(start), dateTime(start + rule.duration()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // id повторяющейся задачи, одно из повторений которой пересекается с интервалом [start, end], или 0
+    int findOverlap(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || rules.isEmpty()) {
+            return 0;
+        }
+        long from = seconds(start);
+        long to = seconds(end);
+        for (Rule rule : rules.values()) {
+            if (rule.overlaps(from, to)) {
+                return rule.task().getId();
+            }
+        }
+        return 0;
+    }
+
+    // Проверяет поля правила; IllegalArgumentException, если повторения невозможно построить
+    static void validate(RecurringTask task) {
+        Duration duration = task.getDuration();
+        Duration interval = task.getInterval();
+        if (task.getStartTime() == null || duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("У повторяющейся задачи должны быть начало и продолжительность.");
+        }
+        if (interval == null || interval.compareTo(duration) <= 0) {
+            throw new IllegalArgumentException("Интервал повторения должен быть больше продолжительности: " +
+                    interval);
+        }
+        if (task.getUntil() != null && !task.getUntil().isAfter(task.getStartTime())) {
+            throw new IllegalArgumentException("Окончание повторений должно быть позже первого начала.");
+        }
+    }
+
+    void add(RecurringTask task) {
+        rules.put(task.getId(), Rule.of(task));
+    }
+
+    RecurringTask remove(int id) {
+        Rule rule = rules.remove(id);
+        return rule == null ? null : rule.task();
+    }
+
+    RecurringTask get(int id) {
+        Rule rule = rules.get(id);
+        return rule == null ? null : rule.task();
+    }
+
+    List<RecurringTask> tasks() {
+        List<RecurringTask> result = new ArrayList<>(rules.size());
+        rules.values().forEach(rule -> result.add(rule.task()));
+        return result;
+    }
+
+    void clear() {
+        rules.clear();
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    // Повторения с началом в [from, to), по времени начала, а при равенстве — по id
+    List<Occurrence> occurrences(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Некорректный промежуток повторений: " + from + " - " + to);
+        }
+        long lower = seconds(from);
+        long upper = seconds(to);
+        List<Occurrence> result = new ArrayList<>();
+        for (Rule rule : rules.values()) {
+            long index = Math.max(0, -Math.floorDiv(-(lower - rule.start()), rule.interval()));
+            for (; index <= rule.lastIndex() && rule.startOf(index) < upper; index++) {
+                result.add(occurrence(rule, index));
+            }
+        }
+        result.sort(Comparator.comparing(Occurrence::start).thenComparingInt(Occurrence::taskId));
+        return result;
+    }
+
+    /**
+     * Вырезает повторения из свободных промежутков шкалы (с минутным зазором, как между задачами).
+     * Повторения всех правил идут одним потоком через очередь с приоритетом по началу и создаются по мере
+     * обхода. Между бесконечными повторениями промежутки ищутся не дальше {@link #SEARCH_HORIZON} от начала
+     * первого промежутка: после этого итератор заканчивается, даже если промежутков больше нет.
+     */
+    Iterator<TimeSlot> subtract(Iterator<TimeSlot> gaps) {
+        if (rules.isEmpty()) {
+            return gaps;
+        }
+        return new Iterator<>() {
+            private final PriorityQueue<long[]> upcoming = new PriorityQueue<>(
+                    Comparator.<long[]>comparingLong(entry -> rules.get((int) entry[0]).startOf(entry[1])));
+            private TimeSlot gap;
+            private LocalDateTime cursor;
+            private LocalDateTime horizon;
+            private TimeSlot next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !finished) {
+                    if (gap == null) {
+                        if (!gaps.hasNext()) {
+                            finished = true;
+                            break;
+                        }
+                        gap = gaps.next();
+                        cursor = gap.start();
+                        if (horizon == null) {
+                            horizon = cursor.plus(SEARCH_HORIZON);
+                            long from = seconds(cursor.minus(IntervalIndex.SLOT_STEP));
+                            rules.forEach((rule, id) -> enqueue(id, rule.firstEndingAtOrAfter(from)));
+                        }
+                    }
+                    if (cursor.isAfter(horizon) && !upcoming.isEmpty()) {
+                        // Впереди ещё повторения, значит, любой найденный дальше промежуток конечен и лежит
+                        // за горизонтом. Проверяем каждый шаг: если повторения идут почти вплотную, свободных
+                        // кусков нет вовсе и проверка по выданным промежуткам не сработала бы никогда
+                        finished = true;
+                        break;
+                    }
+                    Occurrence occurrence = peek();
+                    LocalDateTime pieceEnd = occurrence == null ? null : occurrence.start().minus(IntervalIndex.SLOT_STEP);
+                    if (pieceEnd != null && (gap.end() == null || !pieceEnd.isAfter(gap.end()))) {
+                        // Повторение внутри промежутка: свободна часть до него, дальше — после него
+                        if (cursor.isBefore(pieceEnd)) {
+                            next = new TimeSlot(cursor, pieceEnd);
+                        }
+                        LocalDateTime afterOccurrence = occurrence.end().plus(IntervalIndex.SLOT_STEP);
+                        cursor = afterOccurrence.isAfter(cursor) ? afterOccurrence : cursor;
+                        if (gap.end() != null && cursor.isAfter(gap.end())) {
+                            gap = null; // Повторение доходит до конца промежутка
+                        } else {
+                            advance();
+                        }
+                    } else {
+                        if (gap.end() == null || cursor.isBefore(gap.end())) {
+                            next = new TimeSlot(cursor, gap.end());
+                        }
+                        gap = null;
+                    }
+                    if (next != null && next.end() != null && next.start().isAfter(horizon)) {
+                        next = null;
+                        finished = true;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public TimeSlot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TimeSlot slot = next;
+                next = null;
+                return slot;
+            }
+
+            private void enqueue(int id, long index) {
+                if (index <= rules.get(id).lastIndex()) {
+                    upcoming.add(new long[]{id, index});
+                }
+            }
+
+            private Occurrence peek() {
+                long[] entry = upcoming.peek();
+                return entry == null ? null : occurrence(rules.get((int) entry[0]), entry[1]);
+            }
+
+            private void advance() {
+                long[] entry = upcoming.poll();
+                enqueue((int) entry[0], entry[1] + 1);
+            }
+        };
+    }
+
+    private static Occurrence occurrence(Rule rule, long index) {
+        long start = rule.startOf(index);
+        return new Occurrence(rule.task().getId(), rule.task().getTitle(), dateTime(start),
+                dateTime(start + rule.duration()));
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime dateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
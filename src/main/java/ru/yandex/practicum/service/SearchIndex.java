@@ -0,0 +1,314 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.utils.IntObjectMap;
+import ru.yandex.practicum.utils.LinkedIntSet;
+import ru.yandex.practicum.utils.SortedIntSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс по словам названия и описания задач.
+ * <p>
+ * Слова приводятся к нижнему регистру («ё» считается «е»), поэтому русский и английский текст ищутся одинаково.
+ * Словари отсортированы, так что слова с заданным префиксом — это один непрерывный диапазон ключей:
+ * запрос «разраб» находит и «разработка», и «разработчик». Каждое слово запроса должно найтись в задаче;
+ * кандидаты берутся из самого редкого слова запроса, а остальные проверяются по словам самой задачи.
+ * Ранжирование: совпадение в названии важнее, чем в описании, полное слово важнее префикса.
+ * <p>
+ * Списки задач по словам упорядочены по id ({@link SortedIntSet}), поэтому кандидаты перебираются от лучших
+ * по самому редкому слову к худшим, а внутри — по возрастанию id, и перебор останавливается, как только
+ * оставшиеся кандидаты не могут войти в первые limit. Для префиксов из одной-двух букв, которыми начинаются
+ * тысячи слов, хранятся готовые списки задач, так что первые нажатия при вводе с подсказками не сливают списки
+ * всех этих слов. Отдельного индекса n-грамм нет: поиск по началу слова покрывает ввод с подсказками без
+ * многократного роста словаря.
+ */
+class SearchIndex {
+    private static final int TITLE_EXACT = 4;
+    private static final int TITLE_PREFIX = 3;
+    private static final int DESCRIPTION_EXACT = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+    // Для префиксов не длиннее этого хранятся собственные списки задач
+    private static final int SHORT_PREFIX = 2;
+
+    private final NavigableMap<String, SortedIntSet> titlePostings = new TreeMap<>();
+    private final NavigableMap<String, SortedIntSet> descriptionPostings = new TreeMap<>();
+    private final Map<String, SortedIntSet> titleShortPrefixes = new HashMap<>();
+    private final Map<String, SortedIntSet> descriptionShortPrefixes = new HashMap<>();
+    // Слова каждой задачи: нужны для удаления из словарей и для проверки кандидатов
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    private record Document(String[] titleTerms, String[] descriptionTerms) {
+    }
+
+    record Match(int id, int score) {
+        // По убыванию релевантности, при равенстве — по id
+        static final Comparator<Match> ORDER = Comparator.comparingInt(Match::score).reversed()
+                .thenComparingInt(Match::id);
+    }
+
+    // Индексирует задачу заново (старые слова удаляются)
+    void add(Task task) {
+        remove(task.getId());
+        Document document = new Document(tokenize(task.getTitle()), tokenize(task.getDescription()));
+        documents.put(task.getId(), document);
+        addPostings(titlePostings, document.titleTerms(), task.getId());
+        addPostings(descriptionPostings, document.descriptionTerms(), task.getId());
+        addPostings(titleShortPrefixes, shortPrefixes(document.titleTerms()), task.getId());
+        addPostings(descriptionShortPrefixes, shortPrefixes(document.descriptionTerms()), task.getId());
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document != null) {
+            removePostings(titlePostings, document.titleTerms(), id);
+            removePostings(descriptionPostings, document.descriptionTerms(), id);
+            removePostings(titleShortPrefixes, shortPrefixes(document.titleTerms()), id);
+            removePostings(descriptionShortPrefixes, shortPrefixes(document.descriptionTerms()), id);
+        }
+    }
+
+    // Не больше limit id задач, содержащих все слова запроса, по убыванию релевантности (при равенстве — по id)
+    List<Integer> search(String query, int limit) {
+        return matches(query, limit).stream().map(Match::id).toList();
+    }
+
+    List<Match> matches(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        String rarest = terms[0];
+        int rarestCount = Integer.MAX_VALUE;
+        for (String term : terms) {
+            int count = countPostings(titlePostings, titleShortPrefixes, term)
+                    + countPostings(descriptionPostings, descriptionShortPrefixes, term);
+            if (count < rarestCount) {
+                rarest = term;
+                rarestCount = count;
+            }
+        }
+
+        // Наибольший вклад остальных слов запроса: оценка любой задачи не выше вклада самого редкого плюс он
+        int otherTerms = 0;
+        for (String term : terms) {
+            if (!term.equals(rarest)) {
+                otherTerms += bestPossible(term);
+            }
+        }
+
+        // Лучшие limit совпадений; в голове — худшее из них, его вытесняет более релевантное
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.ORDER.reversed());
+        LinkedIntSet seen = new LinkedIntSet();
+        collectTier(exact(titlePostings, rarest), TITLE_EXACT + otherTerms, terms, limit, best, seen);
+        collectTier(prefixed(titlePostings, titleShortPrefixes, rarest), TITLE_PREFIX + otherTerms, terms, limit,
+                best, seen);
+        collectTier(exact(descriptionPostings, rarest), DESCRIPTION_EXACT + otherTerms, terms, limit, best, seen);
+        collectTier(prefixed(descriptionPostings, descriptionShortPrefixes, rarest), DESCRIPTION_PREFIX + otherTerms,
+                terms, limit, best, seen);
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(Match.ORDER);
+        return matches;
+    }
+
+    /**
+     * Проверяет кандидатов одного уровня — задач, где самое редкое слово запроса совпало одинаково (например,
+     * префиксом в названии). Кандидаты идут по возрастанию id (слиянием отсортированных списков), а оценка любого
+     * из них не выше maxScore, поэтому как только очередной кандидат не может обойти худшее из limit найденных
+     * совпадений, не смогут и все следующие: уровень дальше не читается. Так префикс из одной-двух букв
+     * не заставляет оценивать всех задач, в которых он встречается.
+     */
+    private void collectTier(List<SortedIntSet> postings, int maxScore, String[] terms, int limit,
+                             PriorityQueue<Match> best, LinkedIntSet seen) {
+        PriorityQueue<Cursor> merge = new PriorityQueue<>(Math.max(1, postings.size()),
+                Comparator.comparingInt(Cursor::current));
+        for (SortedIntSet ids : postings) {
+            Cursor cursor = new Cursor(ids.iterator());
+            if (cursor.advance()) {
+                merge.add(cursor);
+            }
+        }
+        while (!merge.isEmpty()) {
+            Cursor cursor = merge.poll();
+            int id = cursor.current();
+            if (cursor.advance()) {
+                merge.add(cursor);
+            }
+            if (best.size() == limit && !outranks(maxScore, id, best.peek())) {
+                return;
+            }
+            if (!seen.add(id)) {
+                continue; // Уже оценена на более высоком уровне или по другому слову с тем же префиксом
+            }
+            Document document = documents.get(id);
+            int score = score(document.titleTerms(), document.descriptionTerms(), terms);
+            if (score > 0) {
+                best.add(new Match(id, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    // Встала бы задача с такими оценкой и id выше, чем worst
+    private static boolean outranks(int score, int id, Match worst) {
+        return score > worst.score() || score == worst.score() && id < worst.id();
+    }
+
+    // Позиция в отсортированном списке id при слиянии
+    private static final class Cursor {
+        private final PrimitiveIterator.OfInt ids;
+        private int current;
+
+        Cursor(PrimitiveIterator.OfInt ids) {
+            this.ids = ids;
+        }
+
+        boolean advance() {
+            if (!ids.hasNext()) {
+                return false;
+            }
+            current = ids.nextInt();
+            return true;
+        }
+
+        int current() {
+            return current;
+        }
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    // Сумма лучших совпадений по каждому слову запроса; 0, если какое-то слово не найдено
+    static int score(String[] titleTerms, String[] descriptionTerms, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = Math.max(match(titleTerms, term, TITLE_EXACT, TITLE_PREFIX),
+                    match(descriptionTerms, term, DESCRIPTION_EXACT, DESCRIPTION_PREFIX));
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int match(String[] documentTerms, String term, int exact, int prefix) {
+        int best = 0;
+        for (String documentTerm : documentTerms) {
+            if (documentTerm.equals(term)) {
+                return exact;
+            }
+            if (documentTerm.startsWith(term)) {
+                best = prefix;
+            }
+        }
+        return best;
+    }
+
+    // Все слова словаря, начинающиеся с prefix, образуют диапазон [prefix, prefix + Character.MAX_VALUE)
+    private static NavigableMap<String, SortedIntSet> withPrefix(NavigableMap<String, SortedIntSet> postings,
+                                                                 String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static int countPostings(NavigableMap<String, SortedIntSet> postings,
+                                     Map<String, SortedIntSet> shortPrefixes, String prefix) {
+        if (prefix.length() <= SHORT_PREFIX) {
+            SortedIntSet ids = shortPrefixes.get(prefix);
+            return ids == null ? 0 : ids.size();
+        }
+        int count = 0;
+        for (SortedIntSet ids : withPrefix(postings, prefix).values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    // Наибольший вклад слова запроса в оценку, какой вообще встречается в словарях
+    private int bestPossible(String term) {
+        if (titlePostings.containsKey(term)) {
+            return TITLE_EXACT;
+        }
+        if (!withPrefix(titlePostings, term).isEmpty()) {
+            return TITLE_PREFIX;
+        }
+        if (descriptionPostings.containsKey(term)) {
+            return DESCRIPTION_EXACT;
+        }
+        return withPrefix(descriptionPostings, term).isEmpty() ? 0 : DESCRIPTION_PREFIX;
+    }
+
+    private static List<SortedIntSet> exact(NavigableMap<String, SortedIntSet> postings, String term) {
+        SortedIntSet ids = postings.get(term);
+        return ids == null ? List.of() : List.of(ids);
+    }
+
+    /**
+     * Списки задач со словами, начинающимися с prefix. Для короткого префикса — один готовый список (в нём есть
+     * и задачи с самим словом prefix: они уже оценены на уровне точных совпадений и пропускаются), иначе —
+     * списки всех слов диапазона, кроме самого prefix.
+     */
+    private static List<SortedIntSet> prefixed(NavigableMap<String, SortedIntSet> postings,
+                                               Map<String, SortedIntSet> shortPrefixes, String prefix) {
+        if (prefix.length() <= SHORT_PREFIX) {
+            SortedIntSet ids = shortPrefixes.get(prefix);
+            return ids == null ? List.of() : List.of(ids);
+        }
+        return new ArrayList<>(postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    // Различные префиксы слов длиной до SHORT_PREFIX
+    private static String[] shortPrefixes(String[] terms) {
+        Set<String> prefixes = new HashSet<>();
+        for (String term : terms) {
+            for (int length = 1; length <= Math.min(SHORT_PREFIX, term.length()); length++) {
+                prefixes.add(term.substring(0, length));
+            }
+        }
+        return prefixes.toArray(String[]::new);
+    }
+
+    private static void addPostings(Map<String, SortedIntSet> postings, String[] terms, int id) {
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new SortedIntSet()).add(id);
+        }
+    }
+
+    private static void removePostings(Map<String, SortedIntSet> postings, String[] terms, int id) {
+        for (String term : terms) {
+            SortedIntSet ids = postings.get(term);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Разбивает текст на слова из букв и цифр без повторов
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
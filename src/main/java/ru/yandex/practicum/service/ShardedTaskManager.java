@@ -0,0 +1,688 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static ru.yandex.practicum.service.ConcurrentTaskManager.detach;
+
+/**
+ * Потокобезопасный менеджер задач, разделённый на независимые шарды, чтобы запись масштабировалась по ядрам.
+ * <p>
+ * Каждый шард — отдельный {@link InMemoryTaskManager} со своей блокировкой чтения-записи. Эпик и его подзадачи
+ * всегда лежат в одном шарде, поэтому агрегаты эпика пересчитываются под одной блокировкой. Новые задачи
+ * и эпики попадают в «домашний» шард потока, так что потоки, пишущие одновременно, обычно не конкурируют.
+ * <p>
+ * Номер шарда закодирован в id: шард {@code s} из {@code n} выдаёт id {@code s + 1, s + 1 + n, s + 1 + 2n...},
+ * поэтому id уникальны глобально, а шард задачи находится по id без общей таблицы.
+ * <p>
+ * Пересечения по времени проверяются по общей шкале всех шардов под отдельной короткой блокировкой:
+ * интервал резервируется на шкале до записи в шард. Задачи без времени и эпики эту блокировку не берут.
+ * Блокировки берутся только в порядке «шкала, затем шард», что исключает взаимные блокировки.
+ * <p>
+ * Эпики меняются в шарде на месте, поэтому читающие методы отдают их копии, снятые под блокировкой чтения шарда,
+ * как и {@link ConcurrentTaskManager}.
+ * <p>
+ * Зависимости могут связывать задачи разных шардов, поэтому граф зависимостей общий и защищён своей блокировкой.
+ * Она берётся последней, под ней читаются только шарды.
+ */
+public class ShardedTaskManager implements TaskManager {
+    // Порядок getAllTasks у InMemoryTaskManager: задачи, подзадачи, эпики; внутри типа — по id
+    private static final Comparator<Task> TYPE_AND_ID = Comparator.comparing(Task::getType)
+            .thenComparingInt(Task::getId);
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    private final Shard[] shards;
+    private final HistoryManager historyManager;
+    private final TaskEventBus eventBus = new TaskEventBus();
+    private final IntervalIndex timeline = new IntervalIndex();
+    private final Lock timelineLock = new ReentrantLock();
+    // Правила повторяющихся задач — часть общей шкалы и защищены той же блокировкой
+    private final RecurrenceIndex recurrences = new RecurrenceIndex();
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private final Lock dependencyLock = new ReentrantLock();
+    private final AtomicInteger nextHomeShard = new AtomicInteger();
+    private final ThreadLocal<Shard> homeShard;
+    private volatile PrioritizedSnapshot prioritizedSnapshot;
+
+    public ShardedTaskManager(HistoryManager historyManager) {
+        this(historyManager, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTaskManager(HistoryManager historyManager, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество шардов должно быть положительным: " + shardCount);
+        }
+        this.historyManager = SynchronizedHistoryManager.wrap(historyManager);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, new InMemoryTaskManager(this.historyManager, eventBus));
+        }
+        // Потоки получают домашние шарды по кругу: пока потоков не больше шардов, они пишут в разные шарды
+        this.homeShard = ThreadLocal.withInitial(() ->
+                shards[Math.floorMod(nextHomeShard.getAndIncrement(), shards.length)]);
+    }
+
+    private static final class Shard {
+        final int index;
+        final InMemoryTaskManager tasks;
+        final AtomicInteger allocated = new AtomicInteger();
+        final Lock readLock;
+        final Lock writeLock;
+
+        Shard(int index, InMemoryTaskManager tasks) {
+            this.index = index;
+            this.tasks = tasks;
+            ReadWriteLock lock = new ReentrantReadWriteLock();
+            this.readLock = lock.readLock();
+            this.writeLock = lock.writeLock();
+        }
+
+        int allocateId(int shardCount) {
+            return allocated.getAndIncrement() * shardCount + index + 1;
+        }
+
+        <R> R read(Supplier<R> action) {
+            readLock.lock();
+            try {
+                return action.get();
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        <R> R write(Supplier<R> action) {
+            writeLock.lock();
+            try {
+                return action.get();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void write(Runnable action) {
+            writeLock.lock();
+            try {
+                action.run();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private Shard shardOf(int id) {
+        return shards[Math.floorMod(id - 1, shards.length)];
+    }
+
+    // Подзадача живёт в шарде своего эпика, остальные задачи — в домашнем шарде потока
+    private Shard shardFor(Task task) {
+        return task.getType() == TaskType.SUBTASK ? shardOf(((Subtask) task).getEpicId()) : homeShard.get();
+    }
+
+    // Вызывается под блокировкой шкалы
+    private boolean overlapsTimeline(Task task) {
+        return timeline.findOverlap(task) != null || overlapsRecurring(task);
+    }
+
+    private boolean overlapsRecurring(Task task) {
+        return recurrences.findOverlap(task.getStartTime(), task.getEndTime()) != 0;
+    }
+
+    private static boolean isTimed(Task task) {
+        return task.getType() != TaskType.EPIC && task.getStartTime() != null && task.getEndTime() != null;
+    }
+
+    @Override
+    public int addTask(Task task) {
+        if (task.getType() == TaskType.RECURRING) {
+            return addRecurringTask((RecurringTask) task);
+        }
+        Shard shard = shardFor(task);
+        task.setId(shard.allocateId(shards.length));
+        if (isTimed(task)) {
+            timelineLock.lock();
+            try {
+                if (overlapsTimeline(task)) {
+                    task.setId(0);
+                    throw new IllegalArgumentException("Новая задача пересекается по времени выполнения " +
+                            "с существующей задачей.");
+                }
+                timeline.add(task); // Резерв на шкале: параллельная задача на то же время уже не пройдёт
+            } finally {
+                timelineLock.unlock();
+            }
+        }
+        try {
+            return shard.write(() -> shard.tasks.addTaskWithAssignedId(task));
+        } catch (RuntimeException e) {
+            releaseTimeline(List.of(task.getId()));
+            throw e;
+        }
+    }
+
+    /**
+     * Пакет проверяется по общей шкале одним проходом и вставляется под блокировкой шкалы, чтобы ни одна
+     * задача со временем не вклинилась между проверкой и вставкой. Задачи раскладываются по шардам как обычно.
+     */
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> batch) {
+        List<Task> timedTasks = new ArrayList<>();
+        for (Task task : batch) {
+            if (task == null || task.getType() == null) {
+                throw new IllegalArgumentException("Пакет содержит пустую задачу.");
+            }
+            if (task.getType() == TaskType.RECURRING) {
+                throw new IllegalArgumentException("Повторяющиеся задачи добавляются по одной.");
+            }
+            if (isTimed(task)) {
+                timedTasks.add(task);
+            }
+        }
+        timedTasks.sort(Comparator.comparing(Task::getStartTime));
+
+        timelineLock.lock();
+        try {
+            if (timeline.findOverlap(timedTasks) != null || timedTasks.stream().anyMatch(this::overlapsRecurring)) {
+                throw new IllegalArgumentException("Задачи пакета пересекаются по времени выполнения между собой " +
+                        "или с существующими задачами.");
+            }
+            List<Integer> ids = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                Shard shard = shardFor(task);
+                task.setId(shard.allocateId(shards.length));
+                timeline.add(task);
+                ids.add(shard.write(() -> shard.tasks.addTaskWithAssignedId(task)));
+            }
+            return ids;
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Shard shard = shardOf(id);
+        return shard.read(() -> detach(shard.tasks.getTaskById(id)));
+    }
+
+    @Override
+    public Task getTaskById(int id, TaskType type) {
+        Shard shard = shardOf(id);
+        return shard.read(() -> detach(shard.tasks.getTaskById(id, type)));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        List<Task> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.read(() -> detach(shard.tasks.getAllTasks())));
+        }
+        all.sort(TYPE_AND_ID);
+        return all;
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        List<Epic> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.read(() -> detach(shard.tasks.getAllEpics())));
+        }
+        all.sort(BY_ID);
+        return all;
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        List<Subtask> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.read(shard.tasks::getAllSubtasks));
+        }
+        all.sort(BY_ID);
+        return all;
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, Status status) {
+        List<Task> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.read(() -> detach(shard.tasks.getByStatus(type, status))));
+        }
+        all.sort(BY_ID);
+        return all;
+    }
+
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> all = new ArrayList<>();
+        for (Shard shard : shards) {
+            all.addAll(shard.read(() -> detach(shard.tasks.getByStatus(status))));
+        }
+        all.sort(TYPE_AND_ID);
+        return all;
+    }
+
+    @Override
+    public int countByStatus(TaskType type, Status status) {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.read(() -> shard.tasks.countByStatus(type, status));
+        }
+        return count;
+    }
+
+    // Каждый шард отдаёт лучшие limit совпадений с оценками, общий результат — лучшие limit из них
+    @Override
+    public List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество результатов должно быть положительным: " + limit);
+        }
+        List<SearchIndex.Match> matches = new ArrayList<>();
+        for (Shard shard : shards) {
+            matches.addAll(shard.read(() -> shard.tasks.searchMatches(query, limit)));
+        }
+        return matches.stream()
+                .sorted(SearchIndex.Match.ORDER)
+                .limit(limit)
+                .map(SearchIndex.Match::id)
+                .toList();
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        Shard shard = shardOf(id);
+        List<Integer> removedIds = shard.write(() -> {
+            List<Integer> ids = new ArrayList<>();
+            ids.add(id);
+            shard.tasks.getSubtasksForEpic(id).forEach(subtask -> ids.add(subtask.getId())); // Уйдут вместе с эпиком
+            shard.tasks.removeTaskById(id);
+            return ids;
+        });
+        releaseTimeline(removedIds);
+        withDependencies(() -> removedIds.forEach(dependencies::remove));
+    }
+
+    @Override
+    public void removeAllTasks() {
+        removeFromAllShards(InMemoryTaskManager::removeAllTasks);
+    }
+
+    @Override
+    public void removeAllEpics() {
+        removeFromAllShards(InMemoryTaskManager::removeAllEpics);
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        removeFromAllShards(InMemoryTaskManager::removeAllSubtasks);
+    }
+
+    // Массовое удаление редкое, поэтому шкала после него просто собирается заново из оставшихся задач
+    private void removeFromAllShards(Consumer<InMemoryTaskManager> action) {
+        timelineLock.lock();
+        try {
+            for (Shard shard : shards) {
+                shard.write(() -> action.accept(shard.tasks));
+            }
+            timeline.clear();
+            for (Shard shard : shards) {
+                shard.read(shard.tasks::getPrioritizedTasks).forEach(timeline::add);
+            }
+        } finally {
+            timelineLock.unlock();
+        }
+        withDependencies(() -> dependencies.removeIf(id -> findTask(id) == null));
+    }
+
+    private void releaseTimeline(List<Integer> ids) {
+        timelineLock.lock();
+        try {
+            ids.forEach(timeline::remove);
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    /**
+     * Если ни старая, ни новая версия задачи не занимают время, обновление выполняется только под блокировкой
+     * шарда. Иначе проверка по шкале, запись в шард и перенос интервала на шкале выполняются под блокировкой
+     * шкалы; шкала меняется только после успешной записи, поэтому отклонённое обновление её не трогает.
+     * <p>
+     * Подзадачу можно перевести только в эпик того же шарда: перенос в эпик другого шарда отклоняется.
+     */
+    @Override
+    public void updateTask(Task updatedTask) {
+        if (updatedTask.getType() == TaskType.RECURRING) {
+            throw new IllegalArgumentException("Повторяющуюся задачу нельзя изменить: её можно удалить и добавить заново.");
+        }
+        Shard shard = shardOf(updatedTask.getId());
+        if (updatedTask.getType() == TaskType.SUBTASK && shardFor(updatedTask) != shard) {
+            // id подзадачи задаёт шард её эпика, так что перенести её в эпик другого шарда нельзя
+            throw new IllegalArgumentException("Подзадачу нельзя перенести в эпик " +
+                    ((Subtask) updatedTask).getEpicId() + ": он хранится в другом шарде.");
+        }
+        boolean updated = shard.write(() -> {
+            Task existing = shard.tasks.findTask(updatedTask.getId());
+            if (isTimed(updatedTask) || existing != null && isTimed(existing)) {
+                return false;
+            }
+            shard.tasks.updateTask(updatedTask);
+            return true;
+        });
+        if (updated) {
+            refreshDependencies(updatedTask.getId());
+            return;
+        }
+
+        timelineLock.lock();
+        try {
+            if (isTimed(updatedTask) && overlapsTimeline(updatedTask)) {
+                throw new IllegalArgumentException("Обновленная задача пересекается по времени выполнения " +
+                        "с существующей задачей.");
+            }
+            shard.write(() -> shard.tasks.updateTask(updatedTask));
+            timeline.remove(updatedTask.getId());
+            if (isTimed(updatedTask)) {
+                timeline.add(updatedTask);
+            }
+        } finally {
+            timelineLock.unlock();
+        }
+        refreshDependencies(updatedTask.getId());
+    }
+
+    // Сроки берутся из шарда под блокировкой графа, поэтому при гонке обновлений побеждает последнее записанное
+    private void refreshDependencies(int id) {
+        withDependencies(() -> {
+            Task task = findTask(id);
+            if (task != null && task.getType() != TaskType.EPIC) {
+                dependencies.update(task);
+            }
+        });
+    }
+
+    private Task findTask(int id) {
+        Shard shard = shardOf(id);
+        return shard.read(() -> shard.tasks.findTask(id));
+    }
+
+    private <R> R withDependencies(Supplier<R> action) {
+        dependencyLock.lock();
+        try {
+            return action.get();
+        } finally {
+            dependencyLock.unlock();
+        }
+    }
+
+    private void withDependencies(Runnable action) {
+        dependencyLock.lock();
+        try {
+            action.run();
+        } finally {
+            dependencyLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksForEpic(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard.read(() -> shard.tasks.getSubtasksForEpic(epicId));
+    }
+
+    @Override
+    public Map<Epic, List<Subtask>> getEpicAndSubtasks(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard.read(() -> detach(shard.tasks.getEpicAndSubtasks(epicId)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return detachEpics(historyManager.getHistory());
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return detachEpics(historyManager.getHistory(limit));
+    }
+
+    // История хранит живые эпики шардов: каждый копируется под блокировкой чтения своего шарда
+    private List<Task> detachEpics(List<Task> history) {
+        List<Task> result = new ArrayList<>(history.size());
+        for (Task task : history) {
+            if (task instanceof Epic epic) {
+                Shard shard = shardOf(epic.getId());
+                result.add(shard.read(epic::copy));
+            } else {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TaskEventBus getEventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return addTask(subtask);
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return addTask(epic);
+    }
+
+    @Override
+    public Epic getEpicById(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard.read(() -> detach(shard.tasks.getEpicById(epicId)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return getPrioritizedSnapshot().tasks();
+    }
+
+    /**
+     * Снимки шардов сливаются в общий список. Версии шардов только растут, поэтому их сумма меняется
+     * тогда и только тогда, когда изменился хотя бы один шард, и служит версией общего снимка.
+     */
+    @Override
+    public PrioritizedSnapshot getPrioritizedSnapshot() {
+        List<PrioritizedSnapshot> parts = new ArrayList<>(shards.length);
+        long version = 0;
+        for (Shard shard : shards) {
+            PrioritizedSnapshot part = shard.read(shard.tasks::getPrioritizedSnapshot);
+            parts.add(part);
+            version += part.version();
+        }
+        PrioritizedSnapshot snapshot = prioritizedSnapshot;
+        if (snapshot == null || snapshot.version() != version) {
+            List<Task> merged = new ArrayList<>();
+            parts.forEach(part -> merged.addAll(part.tasks()));
+            merged.sort(InMemoryTaskManager.PRIORITY_ORDER); // Сортировка слиянием быстро сливает готовые отрезки
+            snapshot = new PrioritizedSnapshot(version, List.copyOf(merged));
+            prioritizedSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        List<Task> merged = new ArrayList<>();
+        for (Shard shard : shards) {
+            merged.addAll(shard.read(() -> shard.tasks.getPrioritizedTasks(from, to)));
+        }
+        merged.sort(InMemoryTaskManager.PRIORITY_ORDER);
+        return merged;
+    }
+
+    // Первые limit задач общего списка находятся среди первых limit задач каждого шарда
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit) {
+        List<Task> merged = new ArrayList<>();
+        for (Shard shard : shards) {
+            merged.addAll(shard.read(() -> shard.tasks.getPrioritizedPage(from, to, after, limit)));
+        }
+        merged.sort(InMemoryTaskManager.PRIORITY_ORDER);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(Duration duration, LocalDateTime notBefore) {
+        return IntervalIndex.first(findFreeSlots(duration, notBefore, 1));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime notBefore, int count) {
+        timelineLock.lock();
+        try {
+            if (recurrences.isEmpty()) {
+                return timeline.findGaps(duration, notBefore, count);
+            }
+            IntervalIndex.checkGapQuery(duration, notBefore, count);
+            return IntervalIndex.firstFitting(recurrences.subtract(timeline.gaps(notBefore)), duration, count);
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    /**
+     * Места вычисляются и применяются под блокировкой шкалы, поэтому другие потоки не займут их между
+     * расчётом и обновлением. Задачи обновляются с версией, прочитанной при расчёте: задачу без времени можно
+     * изменить и под одной блокировкой шарда, и если это случилось, уже перенесённые задачи возвращаются назад.
+     */
+    @Override
+    public List<Task> autoSchedule(List<Integer> taskIds, LocalDateTime notBefore, WorkingHours workingHours) {
+        if (notBefore == null) {
+            throw new IllegalArgumentException("Не задано время, с которого расставлять задачи.");
+        }
+        timelineLock.lock();
+        try {
+            List<Task> unscheduled = AutoScheduler.collect(taskIds,
+                    id -> shardOf(id).read(() -> shardOf(id).tasks.findTask(id)));
+            List<LocalDateTime> starts = AutoScheduler.schedule(recurrences.subtract(timeline.gaps(notBefore)),
+                    unscheduled, workingHours);
+            return AutoScheduler.apply(unscheduled, starts, this::updateTask);
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    // Id повторяющейся задачи выдаёт домашний шард потока, хотя хранится она не в шарде, а на общей шкале
+    @Override
+    public int addRecurringTask(RecurringTask task) {
+        RecurrenceIndex.validate(task);
+        timelineLock.lock();
+        try {
+            if (recurrences.findOverlap(task) != null || RecurrenceIndex.overlapsTimeline(task, timeline.lastEnd(),
+                    (start, end) -> timeline.findOverlap(start, end, 0) != null)) {
+                throw new IllegalArgumentException("Повторения задачи пересекаются по времени выполнения " +
+                        "с существующими задачами.");
+            }
+            task.setId(homeShard.get().allocateId(shards.length));
+            task.setVersion(1);
+            recurrences.add(task);
+        } finally {
+            timelineLock.unlock();
+        }
+        eventBus.publish(TaskEventType.CREATED, task.getId(), TaskType.RECURRING, task.getVersion());
+        return task.getId();
+    }
+
+    @Override
+    public void removeRecurringTask(int id) {
+        RecurringTask task;
+        timelineLock.lock();
+        try {
+            task = recurrences.remove(id);
+        } finally {
+            timelineLock.unlock();
+        }
+        if (task != null) {
+            eventBus.publish(TaskEventType.REMOVED, id, TaskType.RECURRING, task.getVersion());
+        }
+    }
+
+    @Override
+    public List<RecurringTask> getRecurringTasks() {
+        timelineLock.lock();
+        try {
+            return recurrences.tasks();
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Occurrence> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        timelineLock.lock();
+        try {
+            return recurrences.occurrences(from, to);
+        } finally {
+            timelineLock.unlock();
+        }
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        withDependencies(() -> dependencies.addDependency(dependencyTask(taskId), dependencyTask(dependsOnId)));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        withDependencies(() -> dependencies.removeDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return withDependencies(() -> dependencies.dependenciesOf(taskId));
+    }
+
+    @Override
+    public LocalDateTime getEarliestStart(int taskId) {
+        return withDependencies(() -> {
+            Task task = findTask(taskId);
+            if (task == null) {
+                return null;
+            }
+            return dependencies.contains(taskId) ? dependencies.earliestStart(taskId) : task.getStartTime();
+        });
+    }
+
+    // Подзадачи эпика лежат в его шарде; ведущие предшественники на пути могут быть в других шардах
+    @Override
+    public CriticalPath getCriticalPath(int epicId) {
+        Shard shard = shardOf(epicId);
+        List<Subtask> epicSubtasks = shard.read(() -> shard.tasks.getSubtasksForEpic(epicId));
+        return withDependencies(() -> dependencies.criticalPath(epicSubtasks));
+    }
+
+    private Task dependencyTask(int id) {
+        Task task = findTask(id);
+        if (task == null || task.getType() == TaskType.EPIC) {
+            throw new IllegalArgumentException("Задача с id " + id + " не найдена или является эпиком.");
+        }
+        return task;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+import ru.yandex.practicum.utils.LinkedIntSet;
+
+/**
+ * Вторичный индекс: для каждой пары (тип, статус) — множество id задач в порядке добавления.
+ * Выборка «все подзадачи IN_PROGRESS» читает только одну корзину, а подсчёт выполняется за O(1).
+ * Статус эпика вычисляется по подзадачам, поэтому менеджер переиндексирует эпик после каждого их изменения.
+ */
+class StatusIndex {
+    private final LinkedIntSet[][] buckets = new LinkedIntSet[TaskType.values().length][Status.values().length];
+
+    StatusIndex() {
+        for (LinkedIntSet[] byStatus : buckets) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LinkedIntSet();
+            }
+        }
+    }
+
+    // Добавляет задачу или переносит её в корзину текущего статуса
+    void update(Task task) {
+        remove(task.getId(), task.getType());
+        if (task.getStatus() != null) {
+            buckets[task.getType().ordinal()][task.getStatus().ordinal()].add(task.getId());
+        }
+    }
+
+    // Прежний статус не хранится: id ищется во всех корзинах типа, их всего три
+    void remove(int id, TaskType type) {
+        for (LinkedIntSet ids : buckets[type.ordinal()]) {
+            if (ids.remove(id)) {
+                return;
+            }
+        }
+    }
+
+    void clear(TaskType type) {
+        for (LinkedIntSet ids : buckets[type.ordinal()]) {
+            ids.clear();
+        }
+    }
+
+    LinkedIntSet ids(TaskType type, Status status) {
+        return buckets[type.ordinal()][status.ordinal()];
+    }
+
+    int count(TaskType type, Status status) {
+        return ids(type, status).size();
+    }
+}
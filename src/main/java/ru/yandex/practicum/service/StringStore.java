@@ -0,0 +1,18 @@
+package ru.yandex.practicum.service;
+
+/**
+ * Хранилище строк {@link CompactTaskManager}: задача ссылается на название и описание по номеру.
+ * Каждому acquire соответствует release, после которого номер может быть выдан другой строке.
+ */
+interface StringStore {
+    int NONE = -1; // Номер для null
+
+    int acquire(String value);
+
+    void release(int id);
+
+    String get(int id);
+
+    // Количество строк, на которые есть ссылки
+    int size();
+}
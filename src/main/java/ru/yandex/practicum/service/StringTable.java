@@ -0,0 +1,61 @@
+package ru.yandex.practicum.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Таблица строк с подсчётом ссылок: одинаковые названия и описания хранятся один раз, а задачи ссылаются
+ * на них по номеру. Номер строки, на которую больше никто не ссылается, используется повторно.
+ */
+class StringTable implements StringStore {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] values = new String[16];
+    private int[] references = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int used;
+
+    // Возвращает номер строки, увеличивая число ссылок на неё
+    @Override
+    public int acquire(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = freeCount > 0 ? freeIds[--freeCount] : used++;
+            if (id == values.length) {
+                values = Arrays.copyOf(values, id * 2);
+                references = Arrays.copyOf(references, id * 2);
+            }
+            values[id] = value;
+            ids.put(value, id);
+        }
+        references[id]++;
+        return id;
+    }
+
+    @Override
+    public void release(int id) {
+        if (id == NONE || --references[id] > 0) {
+            return;
+        }
+        ids.remove(values[id]);
+        values[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    @Override
+    public String get(int id) {
+        return id == NONE ? null : values[id];
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+}
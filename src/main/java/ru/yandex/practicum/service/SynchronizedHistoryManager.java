@@ -0,0 +1,41 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+
+// Просмотры фиксируются под блокировкой чтения (или блокировкой шарда), поэтому историю нужно защищать отдельно
+class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+
+    SynchronizedHistoryManager(HistoryManager delegate) {
+        this.delegate = delegate;
+    }
+
+    // Потокобезопасную историю оборачивать не нужно
+    static HistoryManager wrap(HistoryManager historyManager) {
+        return historyManager instanceof ConcurrentHistoryManager || historyManager instanceof AsyncHistoryManager
+                || historyManager instanceof HistoryRegistry ? historyManager
+                : new SynchronizedHistoryManager(historyManager);
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        return delegate.getHistory(limit);
+    }
+}
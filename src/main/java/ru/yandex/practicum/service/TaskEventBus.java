@@ -0,0 +1,161 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.TaskType;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Шина событий об изменении задач на кольцевом буфере фиксированного размера.
+ * <p>
+ * Поля событий лежат в заранее выделенных параллельных массивах, поэтому публикация ничего не создаёт
+ * и не ждёт получателей: писатель просто перезаписывает самую старую ячейку. Каждый подписчик читает
+ * со своей позиции независимо от остальных. Если он отстал больше чем на ёмкость буфера, пропущенные
+ * события ему не доставляются, а сообщается их количество ({@link TaskEventListener#onMissed}).
+ * Ячейка защищена номером события (seqlock): на время записи номер сбрасывается, так что читатель
+ * замечает и ячейку, которую перезаписали, пока он её читал.
+ * <p>
+ * Публикация синхронизирована, поскольку в одну шину пишут все шарды {@link ShardedTaskManager};
+ * запись в ячейку занимает несколько наносекунд, так что писатели почти не конкурируют.
+ * Читать можно из любых потоков.
+ */
+public class TaskEventBus {
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final long WRITING = -1;
+    private static final TaskEventType[] EVENT_TYPES = TaskEventType.values();
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+
+    private final int mask;
+    private final AtomicLongArray sequences; // номер события в ячейке или WRITING
+    private final byte[] eventTypes;
+    private final byte[] taskTypes;
+    private final int[] taskIds;
+    private final long[] versions;
+    private final AtomicLong published = new AtomicLong(); // номер последнего опубликованного события
+
+    public TaskEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TaskEventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ёмкость буфера должна быть степенью двойки: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.eventTypes = new byte[capacity];
+        this.taskTypes = new byte[capacity];
+        this.taskIds = new int[capacity];
+        this.versions = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, WRITING); // Пустая ячейка не совпадёт ни с одним номером
+        }
+    }
+
+    synchronized void publish(TaskEventType type, int taskId, TaskType taskType, long version) {
+        long sequence = published.get() + 1;
+        int index = (int) (sequence & mask);
+        sequences.set(index, WRITING);
+        VarHandle.storeStoreFence(); // Сброс номера виден раньше новых полей
+        eventTypes[index] = (byte) type.ordinal();
+        taskTypes[index] = (byte) taskType.ordinal();
+        taskIds[index] = taskId;
+        versions[index] = version;
+        sequences.set(index, sequence);
+        published.set(sequence);
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Подписка начинает с событий, опубликованных после её создания
+    public Subscription subscribe() {
+        return new Subscription(published.get());
+    }
+
+    /**
+     * Запускает подписчика в отдельном потоке-демоне: он ждёт новые события, засыпая на короткое время,
+     * и передаёт их listener. Поток останавливается при закрытии подписки.
+     */
+    public Subscription startConsumer(String name, TaskEventListener listener) {
+        Subscription subscription = subscribe();
+        Thread thread = new Thread(() -> {
+            long idleNanos = TimeUnit.MICROSECONDS.toNanos(50);
+            while (!subscription.isClosed()) {
+                if (subscription.poll(listener) == 0) {
+                    LockSupport.parkNanos(idleNanos);
+                }
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    // Позиция одного подписчика в буфере
+    public class Subscription implements AutoCloseable {
+        private volatile long next;
+        private volatile boolean closed;
+
+        private Subscription(long lastSeen) {
+            this.next = lastSeen + 1;
+        }
+
+        /**
+         * Передаёт listener все события, накопившиеся с прошлого вызова, и возвращает их количество.
+         * Вызывается одним потоком на подписку.
+         */
+        public int poll(TaskEventListener listener) {
+            long last = published.get();
+            long sequence = next;
+            int delivered = 0;
+            while (sequence <= last) {
+                if (last - sequence >= capacity()) {
+                    long oldest = last - capacity() + 1;
+                    listener.onMissed(oldest - sequence);
+                    sequence = oldest;
+                }
+                int index = (int) (sequence & mask);
+                if (sequences.get(index) != sequence) {
+                    last = published.get(); // Ячейку уже перезаписывают: пропуск учтёт проверка выше
+                    continue;
+                }
+                TaskEventType type = EVENT_TYPES[eventTypes[index]];
+                TaskType taskType = TASK_TYPES[taskTypes[index]];
+                int taskId = taskIds[index];
+                long version = versions[index];
+                VarHandle.loadLoadFence(); // Поля прочитаны раньше повторной проверки номера
+                if (sequences.get(index) != sequence) {
+                    continue; // Ячейку перезаписали во время чтения: проверяем её заново
+                }
+                listener.onEvent(sequence, type, taskId, taskType, version);
+                delivered++;
+                sequence++;
+            }
+            next = sequence;
+            return delivered;
+        }
+
+        // Сколько опубликованных событий подписчик ещё не прочитал
+        public long lag() {
+            return published.get() - next + 1;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.TaskType;
+
+/**
+ * Получатель событий шины {@link TaskEventBus}. Поля события передаются примитивами, без объекта-обёртки;
+ * саму задачу при необходимости можно получить у менеджера по id.
+ */
+public interface TaskEventListener {
+    void onEvent(long sequence, TaskEventType type, int taskId, TaskType taskType, long version);
+
+    // Получатель отстал больше чем на ёмкость буфера, и missed событий были перезаписаны
+    default void onMissed(long missed) {
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.service;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    REMOVED,
+    EPIC_ROLLUP_CHANGED // Статус или время эпика пересчитаны после изменения его подзадач
+}
@@ -1,9 +1,15 @@
 package ru.yandex.practicum.service;
 
 import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Subtask;
 import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -13,14 +19,26 @@ import java.util.Map;
 public interface TaskManager {
     int addTask(Task task); // Добавление задачи
 
+    List<Integer> addAll(Collection<? extends Task> tasks); // Добавление пачки задач: всё или ничего
+
     Task getTaskById(int id); // Получение задачи по ID
 
+    Task getTaskById(int id, TaskType type); // Получение задачи по ID, только если она нужного типа
+
     List<Task> getAllTasks(); // Получение всех задач
 
     List<Epic> getAllEpics(); // Получение всех эпиков
 
     List<Subtask> getAllSubtasks(); // Получение всех подзадач
 
+    List<Task> getByStatus(TaskType type, Status status); // Задачи нужного типа с заданным статусом
+
+    List<Task> getByStatus(Status status); // Задачи всех типов с заданным статусом
+
+    int countByStatus(TaskType type, Status status); // Количество задач нужного типа с заданным статусом
+
+    List<Integer> search(String query, int limit); // id задач по тексту названия и описания, по релевантности
+
     void removeTaskById(int id); // Удаление задачи по ID
 
     void removeAllTasks(); // Удаление всех задач
@@ -29,7 +47,12 @@ public interface TaskManager {
 
     void removeAllSubtasks(); // Удаление всех подзадач
 
-    void updateTask(Task updatedTask); // Обновление задачи
+    // Версия для updateTask: обновить задачу, только если она существует, какой бы ни была её версия
+    long ANY_VERSION = -2;
+
+    // Обновление задачи; с ненулевой версией — только существующей задачи с той же версией
+    // (иначе TaskVersionConflictException)
+    void updateTask(Task updatedTask);
 
     List<Subtask> getSubtasksForEpic(int epicId); // Получение подзадач эпика
 
@@ -37,13 +60,52 @@ public interface TaskManager {
 
     List<Task> getHistory(); // Получение истории
 
+    List<Task> getHistory(int limit); // Последние limit просмотров истории, от старых к новым
+
+    TaskEventBus getEventBus(); // Шина событий об изменениях задач
+
     int addSubtask(Subtask subtask);
 
     int addEpic(Epic epic);
 
     Epic getEpicById(int epicId);
 
-    List<Task> getPrioritizedTasks();
+    List<Task> getPrioritizedTasks(); // Неизменяемый список задач, отсортированный по времени начала
+
+    PrioritizedSnapshot getPrioritizedSnapshot(); // Тот же список вместе с номером версии
+
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to); // Задачи с началом в [from, to)
+
+    // Страница из limit задач после курсора (null — с начала диапазона)
+    List<Task> getPrioritizedPage(LocalDateTime from, LocalDateTime to, PrioritizedCursor after, int limit);
+
+    TimeSlot findFreeSlot(Duration duration, LocalDateTime notBefore); // Ближайший свободный промежуток
+
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime notBefore, int count); // Первые count промежутков
+
+    // Ставит задачи без времени начала в самые ранние свободные места после notBefore (в рабочие часы, если
+    // они заданы) в порядке taskIds; всё или ничего. Возвращает обновлённые задачи
+    List<Task> autoSchedule(List<Integer> taskIds, LocalDateTime notBefore, WorkingHours workingHours);
+
+    // Задача taskId не может начаться раньше окончания dependsOnId; зависимость, замыкающая цикл, отклоняется
+    void addDependency(int taskId, int dependsOnId);
+
+    void removeDependency(int taskId, int dependsOnId); // Удаление зависимости
+
+    List<Integer> getDependencies(int taskId); // id задач, от которых зависит задача
+
+    LocalDateTime getEarliestStart(int taskId); // Самое раннее начало с учётом зависимостей (null — не определено)
+
+    CriticalPath getCriticalPath(int epicId); // Цепочка задач, определяющая самое раннее окончание эпика
+
+    // Повторяющаяся задача; её повторения проверяются на пересечения по правилу, без создания экземпляров
+    int addRecurringTask(RecurringTask task);
+
+    void removeRecurringTask(int id); // Удаление повторяющейся задачи со всеми повторениями
+
+    List<RecurringTask> getRecurringTasks(); // Все повторяющиеся задачи
+
+    List<Occurrence> getOccurrences(LocalDateTime from, LocalDateTime to); // Повторения с началом в [from, to)
 }
 
 
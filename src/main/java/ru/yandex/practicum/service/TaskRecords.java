@@ -0,0 +1,44 @@
+package ru.yandex.practicum.service;
+
+/**
+ * Записи фиксированного размера для {@link CompactTaskManager}: поля задачи по её id.
+ * Строки хранятся отдельно ({@link StringStore}), в записи лежат только их номера. Время — в минутах от эпохи.
+ */
+interface TaskRecords {
+    boolean contains(int id);
+
+    // Создаёт запись с нулевыми полями; тип задачи с данным id не меняется до её удаления
+    void allocate(int id, byte type);
+
+    void free(int id);
+
+    byte getType(int id);
+
+    byte getStatus(int id);
+
+    void setStatus(int id, byte status);
+
+    long getStartMinute(int id);
+
+    void setStartMinute(int id, long minute);
+
+    int getDurationMinutes(int id);
+
+    void setDurationMinutes(int id, int minutes);
+
+    int getEpicId(int id);
+
+    void setEpicId(int id, int epicId);
+
+    int getTitle(int id);
+
+    void setTitle(int id, int title);
+
+    int getDescription(int id);
+
+    void setDescription(int id, int description);
+
+    long getVersion(int id);
+
+    void setVersion(int id, long version);
+}
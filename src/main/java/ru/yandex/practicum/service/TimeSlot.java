@@ -0,0 +1,10 @@
+package ru.yandex.practicum.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Свободный промежуток на шкале времени: start — самое раннее допустимое начало новой задачи,
+ * end — самое позднее допустимое окончание (null, если после промежутка задач больше нет).
+ */
+public record TimeSlot(LocalDateTime start, LocalDateTime end) {
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Task;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченный журнал просмотров для многих писателей и одного читателя (MPSC) на кольцевом буфере.
+ * <p>
+ * Писатель получает номер просмотра, кладёт задачу в ячейку {@code номер mod размер} и публикует номер
+ * в {@code published}. Номера задают общий порядок просмотров. Читатель переносит просмотры строго по номерам
+ * и останавливается на первом неопубликованном; читать одновременно могут только под общей блокировкой
+ * владельца журнала. Запись и чтение не выделяют память.
+ */
+final class ViewLog {
+    private final Task[] views;
+    private final AtomicLongArray published; // Номер просмотра, опубликованного в ячейке, или -1
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long drained; // Просмотры с меньшими номерами уже перенесены
+
+    ViewLog(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Размер журнала должен быть степенью двойки: " + size);
+        }
+        this.views = new Task[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+    }
+
+    // Номер для следующего просмотра без проверки места: писатель сам дожидается места через fits
+    long claim() {
+        return nextSequence.getAndIncrement();
+    }
+
+    // Номер для следующего просмотра, если в журнале есть место, иначе -1
+    long tryClaim() {
+        while (true) {
+            long sequence = nextSequence.get();
+            if (sequence - drained >= views.length) {
+                return -1;
+            }
+            if (nextSequence.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    // Свободна ли уже ячейка для просмотра с этим номером
+    boolean fits(long sequence) {
+        return sequence - drained < views.length;
+    }
+
+    void publish(long sequence, Task task) {
+        int slot = (int) (sequence & mask);
+        views[slot] = task;
+        published.set(slot, sequence); // Публикация: запись задачи видна тому, кто прочитает номер
+    }
+
+    // Выданные, но ещё не перенесённые просмотры (включая те, что пишутся прямо сейчас)
+    int depth() {
+        return (int) (nextSequence.get() - drained);
+    }
+
+    // Переносит не больше limit опубликованных просмотров по порядку номеров; возвращает их число
+    int drain(int limit, Consumer<Task> sink) {
+        long sequence = drained;
+        long upTo = sequence + limit;
+        while (sequence < upTo) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence) {
+                break;
+            }
+            sink.accept(views[slot]);
+            views[slot] = null;
+            sequence++;
+        }
+        int count = (int) (sequence - drained);
+        drained = sequence;
+        return count;
+    }
+
+    /**
+     * Переносит все просмотры, номера которых выданы к началу вызова, дожидаясь их публикации (писатель
+     * публикует сразу после получения номера, так что ожидание короткое). Просмотры, начатые позже, не ждёт.
+     */
+    void drainAll(Consumer<Task> sink) {
+        long upTo = nextSequence.get();
+        while (drained < upTo) {
+            drain((int) Math.min(upTo - drained, Integer.MAX_VALUE), sink);
+            if (drained < upTo) {
+                Thread.yield(); // Не крутимся вхолостую: писатель может стоять в очереди на процессор
+            }
+        }
+    }
+}
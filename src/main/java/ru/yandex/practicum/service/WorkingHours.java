@@ -0,0 +1,22 @@
+package ru.yandex.practicum.service;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * Рабочие часы для автоматической расстановки задач: каждый день задача должна начаться не раньше start
+ * и закончиться не позже end.
+ */
+public record WorkingHours(LocalTime start, LocalTime end) {
+
+    public WorkingHours {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Начало рабочего дня должно быть раньше его окончания: " +
+                    start + " - " + end);
+        }
+    }
+
+    public Duration length() {
+        return Duration.between(start, end);
+    }
+}
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.utils;
+
+import java.util.Arrays;
+
+/**
+ * Отображение int → неотрицательный int с открытой адресацией, без упаковки и без выделения памяти
+ * на вставку и удаление (память выделяется только при росте таблицы).
+ * <p>
+ * В отличие от {@link IntObjectMap}, удалённые записи не помечаются: при удалении следующие за ней записи
+ * той же цепочки сдвигаются назад (backward shift deletion). Поэтому таблица не засоряется метками и частые
+ * пары «удалить — вставить» не приводят к перестроениям. Ключи и значения лежат в двух параллельных массивах;
+ * значение хранится со сдвигом на единицу, а 0 означает пустую ячейку.
+ */
+public class IntIntMap {
+    public static final int MISSING = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values; // значение + 1; 0 — ячейка пуста
+    private int size;
+
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntMap(int expectedSize) {
+        // Заполнение не выше 50%
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) - 1) << 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    // Позиция ключа в таблице или -1, если ключа нет
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Значение по ключу или MISSING
+    public int get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? MISSING : values[slot] - 1;
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    // Возвращает прежнее значение или MISSING
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                int old = values[slot] - 1;
+                values[slot] = value + 1;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+        if (++size * 2 > keys.length) {
+            rebuild(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    // Возвращает удалённое значение или MISSING
+    public int remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return MISSING;
+        }
+        int old = values[slot] - 1;
+        int mask = keys.length - 1;
+        int hole = slot;
+        // Сдвигаем назад записи, которые без дыры не нашлись бы: их исходная позиция не лежит между дырой и ними
+        for (int next = (hole + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = 0;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
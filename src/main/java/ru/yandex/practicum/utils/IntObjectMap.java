@@ -0,0 +1,206 @@
+package ru.yandex.practicum.utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Отображение int → объект с открытой адресацией без упаковки ключей и без объекта-узла на каждую запись.
+ * <p>
+ * Записи хранятся в плотных параллельных массивах {@code keys}/{@code values} в порядке добавления (поэтому
+ * обход детерминирован, как у {@link java.util.LinkedHashMap}), а хэш-таблица {@code slots} с линейным
+ * пробированием хранит только номера записей. На запись уходит примерно 4 байта ключа, 4–8 байт ссылки
+ * и 8 байт таблицы (заполнение не выше 50%), против ~48 байт у {@link java.util.HashMap}
+ * (узел 32 байта, {@link Integer} 16 байт и ячейка таблицы). Удалённые записи помечаются {@code null}
+ * и вычищаются при следующем перестроении. Значения {@code null} не поддерживаются.
+ *
+ * @param <V> тип значений
+ */
+public class IntObjectMap<V> {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int[] slots; // номер записи + 1, EMPTY или DELETED
+    private int used; // занятые ячейки плотных массивов, включая удалённые
+    private int size; // живые записи
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        slots = new int[capacity * 2];
+    }
+
+    // Как и в HashMap, последовательные id попадают в соседние ячейки: это дружелюбно к кэшу процессора
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    // Возвращает позицию в таблице slots для ключа или -1, если ключа нет
+    private int findSlot(int key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != DELETED && keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slots[slot] - 1];
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int index = slots[slot] - 1;
+            V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        if (used == keys.length) {
+            rebuild(size * 2 > keys.length ? keys.length * 2 : keys.length);
+        }
+        keys[used] = key;
+        values[used] = value;
+        used++;
+        insertSlot(key, used);
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        int index = slots[slot] - 1;
+        V old = (V) values[index];
+        values[index] = null;
+        slots[slot] = DELETED;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, used, null);
+        Arrays.fill(slots, EMPTY);
+        used = 0;
+        size = 0;
+    }
+
+    // Обходит записи в порядке добавления: action.accept(value, key)
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super V> action) {
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                action.accept((V) values[i], keys[i]);
+            }
+        }
+    }
+
+    // Представление значений в порядке добавления (без копирования)
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<>() {
+                    private int index = advance(0);
+
+                    private int advance(int from) {
+                        while (from < used && values[from] == null) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < used;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (index >= used) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) values[index];
+                        index = advance(index + 1);
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void insertSlot(int key, int entry) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != EMPTY && slots[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+    }
+
+    // Уплотняет записи (выкидывая удалённые) и заново строит таблицу без DELETED-меток
+    private void rebuild(int capacity) {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int live = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                newKeys[live] = keys[i];
+                newValues[live] = values[i];
+                live++;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        used = live;
+        slots = new int[capacity * 2];
+        for (int i = 0; i < used; i++) {
+            insertSlot(keys[i], i + 1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Множество int без упаковки, сохраняющее порядок добавления (аналог {@link java.util.LinkedHashSet}).
+ * <p>
+ * Устроено так же, как {@link IntObjectMap}: элементы лежат в плотном массиве в порядке добавления,
+ * а таблица с открытой адресацией хранит их номера. Добавление, удаление и проверка — O(1);
+ * удалённые элементы вычищаются перестроением, когда их становится больше, чем живых.
+ */
+public class LinkedIntSet {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] elements;
+    private boolean[] removed;
+    private int[] slots; // номер элемента + 1, EMPTY или DELETED
+    private int used;
+    private int size;
+
+    public LinkedIntSet() {
+        elements = new int[DEFAULT_CAPACITY];
+        removed = new boolean[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY * 2];
+    }
+
+    private static int hash(int value) {
+        return value ^ (value >>> 16);
+    }
+
+    private int findSlot(int value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != DELETED && elements[entry - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean contains(int value) {
+        return findSlot(value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (findSlot(value) >= 0) {
+            return false;
+        }
+        if (used == elements.length) {
+            rebuild(size * 2 > elements.length ? elements.length * 2 : elements.length);
+        }
+        elements[used] = value;
+        removed[used] = false;
+        used++;
+        insertSlot(value, used);
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = findSlot(value);
+        if (slot < 0) {
+            return false;
+        }
+        removed[slots[slot] - 1] = true;
+        slots[slot] = DELETED;
+        size--;
+        if (size * 2 < used && used > DEFAULT_CAPACITY) {
+            rebuild(elements.length); // Не даём удалённым элементам замедлять обход
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        used = 0;
+        size = 0;
+    }
+
+    // Обходит элементы в порядке добавления
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                action.accept(elements[i]);
+            }
+        }
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(toArray());
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int index = 0;
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                result[index++] = elements[i];
+            }
+        }
+        return result;
+    }
+
+    private void insertSlot(int value, int entry) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY && slots[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+    }
+
+    private void rebuild(int capacity) {
+        int[] newElements = new int[capacity];
+        int live = 0;
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                newElements[live++] = elements[i];
+            }
+        }
+        elements = newElements;
+        removed = new boolean[capacity];
+        used = live;
+        slots = new int[capacity * 2];
+        for (int i = 0; i < used; i++) {
+            insertSlot(elements[i], i + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
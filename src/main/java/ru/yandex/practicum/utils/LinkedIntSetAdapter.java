@@ -0,0 +1,39 @@
+package ru.yandex.practicum.utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// Сериализует LinkedIntSet обычным JSON-массивом чисел, как раньше сериализовался List<Integer>
+public class LinkedIntSetAdapter extends TypeAdapter<LinkedIntSet> {
+    @Override
+    public void write(JsonWriter out, LinkedIntSet value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int element : value.toArray()) {
+            out.value(element);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public LinkedIntSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        LinkedIntSet set = new LinkedIntSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            set.add(in.nextInt());
+        }
+        in.endArray();
+        return set;
+    }
+}
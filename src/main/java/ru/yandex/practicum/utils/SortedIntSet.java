@@ -0,0 +1,140 @@
+package ru.yandex.practicum.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Множество int без упаковки, которое обходится по возрастанию.
+ * <p>
+ * Элементы лежат в отсортированном массиве. Добавление числа больше всех имеющихся — дописывание в конец,
+ * проверка и удаление — двоичный поиск. Удалённый элемент только помечается и возвращается на место
+ * за O(log n), если его добавят снова; помеченные вычищаются перестроением, когда их становится больше,
+ * чем живых. Вставка в середину сдвигает хвост массива.
+ */
+public class SortedIntSet {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] elements = new int[DEFAULT_CAPACITY];
+    private boolean[] removed = new boolean[DEFAULT_CAPACITY];
+    private int used;
+    private int size;
+
+    public boolean contains(int value) {
+        int index = Arrays.binarySearch(elements, 0, used, value);
+        return index >= 0 && !removed[index];
+    }
+
+    public boolean add(int value) {
+        if (used == 0 || value > elements[used - 1]) {
+            ensureCapacity();
+            elements[used] = value;
+            removed[used] = false;
+            used++;
+            size++;
+            return true;
+        }
+        int index = Arrays.binarySearch(elements, 0, used, value);
+        if (index >= 0) {
+            if (!removed[index]) {
+                return false;
+            }
+            removed[index] = false; // Элемент удаляли: возвращаем его на прежнее место
+            size++;
+            return true;
+        }
+        ensureCapacity();
+        int insertAt = -index - 1;
+        System.arraycopy(elements, insertAt, elements, insertAt + 1, used - insertAt);
+        System.arraycopy(removed, insertAt, removed, insertAt + 1, used - insertAt);
+        elements[insertAt] = value;
+        removed[insertAt] = false;
+        used++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(elements, 0, used, value);
+        if (index < 0 || removed[index]) {
+            return false;
+        }
+        removed[index] = true;
+        size--;
+        if (size * 2 < used && used > DEFAULT_CAPACITY) {
+            compact(); // Не даём удалённым элементам замедлять обход
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Обходит элементы по возрастанию; множество нельзя менять во время обхода
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = skipRemoved(0);
+
+            @Override
+            public boolean hasNext() {
+                return index < used;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= used) {
+                    throw new NoSuchElementException();
+                }
+                int value = elements[index];
+                index = skipRemoved(index + 1);
+                return value;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                result[count++] = elements[i];
+            }
+        }
+        return result;
+    }
+
+    private int skipRemoved(int index) {
+        while (index < used && removed[index]) {
+            index++;
+        }
+        return index;
+    }
+
+    private void ensureCapacity() {
+        if (used == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+            removed = Arrays.copyOf(removed, removed.length * 2);
+        }
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                elements[live++] = elements[i];
+            }
+        }
+        Arrays.fill(removed, 0, used, false);
+        used = live;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -16,6 +16,7 @@ import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -74,4 +75,74 @@ class HistoryHandlerRestTest {
         assertFalse(history.isEmpty(), "История не должна быть пустой.");
     }
 
+    @Test
+    void testHistoryIsSeparatePerClient() throws IOException, InterruptedException {
+        for (int i = 1; i <= 2; i++) {
+            Task task = new Task("Task " + i, "Description", Status.NEW, null, null);
+            HttpRequest create = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .build();
+            assertEquals(201, client.send(create, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        viewTask("alice", 1);
+        viewTask("bob", 2);
+        viewTask("bob", 1);
+
+        assertEquals(List.of(1.0), historyIds("alice"));
+        assertEquals(List.of(2.0, 1.0), historyIds("bob"));
+        assertTrue(historyIds(null).isEmpty(), "Просмотры клиентов не попадают в общую историю.");
+    }
+
+    @Test
+    void testLongTokensGetSeparateHistories() throws IOException, InterruptedException {
+        Task task = new Task("Task", "Description", Status.NEW, null, null);
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                .build();
+        assertEquals(201, client.send(create, HttpResponse.BodyHandlers.ofString()).statusCode());
+        // Токены длиннее 256 символов (обычные JWT) тоже должны давать отдельные разделы
+        String alice = "Bearer " + "a".repeat(600);
+        String bob = "Bearer " + "b".repeat(600);
+
+        HttpRequest view = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/1"))
+                .header("Authorization", alice)
+                .GET()
+                .build();
+        assertEquals(200, client.send(view, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        assertEquals(List.of(1.0), historyIdsForToken(alice));
+        assertTrue(historyIdsForToken(bob).isEmpty(), "Просмотры одного клиента не видны другому.");
+        assertTrue(historyIds(null).isEmpty(), "Просмотры клиентов не попадают в общую историю.");
+    }
+
+    private void viewTask(String clientId, int taskId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + taskId))
+                .header("X-Client-Id", clientId)
+                .GET()
+                .build();
+        assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private List<Object> historyIds(String clientId) throws IOException, InterruptedException {
+        return historyIds(clientId == null ? null : "X-Client-Id", clientId);
+    }
+
+    private List<Object> historyIdsForToken(String token) throws IOException, InterruptedException {
+        return historyIds("Authorization", token);
+    }
+
+    private List<Object> historyIds(String header, String value) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history")).GET();
+        if (header != null) {
+            builder.header(header, value);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<?> history = gson.fromJson(response.body(), List.class);
+        return history.stream().<Object>map(task -> ((Map<?, ?>) task).get("id")).toList();
+    }
 }
@@ -1,6 +1,9 @@
 package yandex.practicum.http.handler;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,9 +14,11 @@ import ru.yandex.practicum.model.Task;
 
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -81,4 +86,108 @@ public class PrioritizedTasksHandlerRestTest {
                 "не соответствует приоритету.");
     }
 
+    @Test
+    public void testGetPrioritizedTasksPageByPage() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("Task " + i, "Description", Status.NEW, Duration.ofMinutes(30),
+                    start.plusHours(i));
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .header("Content-Type", "application/json")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> firstPage = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2024-11-04T10:00&limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, firstPage.statusCode());
+        JsonObject first = JsonParser.parseString(firstPage.body()).getAsJsonObject();
+        assertEquals(2, first.getAsJsonArray("tasks").size(), "Первая страница должна содержать 2 задачи.");
+        assertEquals("Task 1", first.getAsJsonArray("tasks").get(0).getAsJsonObject().get("title").getAsString());
+
+        String cursor = URLEncoder.encode(first.get("nextCursor").getAsString(), StandardCharsets.UTF_8);
+        HttpResponse<String> secondPage = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2024-11-04T10:00&limit=2&cursor=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonObject second = JsonParser.parseString(secondPage.body()).getAsJsonObject();
+        assertEquals(2, second.getAsJsonArray("tasks").size(), "Вторая страница должна содержать 2 задачи.");
+        assertEquals("Task 3", second.getAsJsonArray("tasks").get(0).getAsJsonObject().get("title").getAsString());
+
+        HttpResponse<String> range = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2024-11-04T10:00&to=2024-11-04T12:00"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Type taskListType = new TypeToken<List<Task>>() {}.getType();
+        List<Task> tasksInRange = gson.fromJson(range.body(), taskListType);
+        assertEquals(2, tasksInRange.size(), "В диапазон должны попасть задачи, начинающиеся в 10:00 и 11:00.");
+
+        HttpResponse<String> badRequest = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=yesterday"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badRequest.statusCode());
+    }
+
+    @Test
+    public void testGetFreeSlots() throws Exception {
+        Task task = new Task("Task", "Description", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 4, 10, 0));
+        client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/free-slots?duration=PT90M"
+                        + "&notBefore=2024-11-04T09:00&limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray slots = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, slots.size(), "До задачи в 10:00 полтора часа не помещаются, после неё шкала свободна.");
+        assertEquals("2024-11-04T11:01:00", slots.get(0).getAsJsonObject().get("start").getAsString());
+
+        HttpResponse<String> badRequest = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/free-slots?duration=90"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badRequest.statusCode());
+    }
+
+    @Test
+    public void testAutoSchedule() throws Exception {
+        Task fixed = new Task("Fixed", "Description", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 4, 10, 0));
+        Task unscheduled = new Task("Unscheduled", "Description", Status.NEW, Duration.ofMinutes(90), null);
+        for (Task task : List.of(fixed, unscheduled)) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .header("Content-Type", "application/json")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/auto-schedule"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"taskIds\": [2], \"notBefore\": \"2024-11-04T09:00\","
+                        + " \"workStart\": \"09:00\", \"workEnd\": \"18:00\"}"))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray scheduled = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals("2024-11-04T11:01:00", scheduled.get(0).getAsJsonObject().get("startTime").getAsString(),
+                "Полтора часа не помещаются до задачи в 10:00, поэтому задача встаёт после неё.");
+
+        HttpResponse<String> alreadyScheduled = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized/auto-schedule"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"taskIds\": [2]}"))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, alreadyScheduled.statusCode());
+    }
 }
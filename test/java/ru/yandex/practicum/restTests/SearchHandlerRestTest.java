@@ -0,0 +1,64 @@
+package yandex.practicum.http.handler;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.http.HttpTaskServer;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchHandlerRestTest {
+    private HttpTaskServer server;
+    private Gson gson;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new HttpTaskServer();
+        gson = HttpTaskServer.getGson();
+        client = HttpClient.newHttpClient();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void testSearch() throws IOException, InterruptedException {
+        for (String title : new String[]{"Купить молоко", "Починить кран", "Купить хлеб"}) {
+            Task task = new Task(title, "Description", Status.NEW, null, null);
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                    .header("Content-Type", "application/json")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/search?q=" + URLEncoder.encode("купить", StandardCharsets.UTF_8)))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(new int[]{1, 3}, gson.fromJson(response.body(), int[].class));
+
+        HttpResponse<String> badRequest = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/search"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badRequest.statusCode());
+    }
+}
@@ -88,6 +88,30 @@ class SubtasksHandlerRestTest {
         assertFalse(subtasks.isEmpty());
     }
 
+    @Test
+    void testGetSubtasksByStatus() throws IOException, InterruptedException {
+        testCreateSubtask();
+
+        HttpResponse<String> newSubtasks = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/subtasks?status=new"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, newSubtasks.statusCode());
+        assertEquals(1, gson.fromJson(newSubtasks.body(), List.class).size());
+
+        HttpResponse<String> doneSubtasks = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/subtasks?status=DONE"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(gson.fromJson(doneSubtasks.body(), List.class).isEmpty());
+
+        HttpResponse<String> badStatus = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics?status=LATER"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badStatus.statusCode());
+    }
+
     @Test
     void testDeleteSubtask() throws IOException, InterruptedException {
         Epic epic = new Epic("Epic 1", "Description");
@@ -196,4 +196,116 @@ class TasksHandlerRestTest {
         Map<?, ?> responseBody = gson.fromJson(response.body(), Map.class);
         assertEquals("Задача с id 999 не найдена.", responseBody.get("message"));
     }
+
+    @Test
+    void testCreateTasksBatch() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 5, 9, 0);
+        List<Task> batch = List.of(
+                new Task("Task 1", "Description 1", Status.NEW, Duration.ofMinutes(30), start.plusHours(1)),
+                new Task("Task 2", "Description 2", Status.NEW, Duration.ofMinutes(30), start));
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch)))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode(), "Пакет задач должен быть создан.");
+        assertEquals(2, countTasks());
+
+        List<Task> overlapping = List.of(
+                new Task("Task 3", "Description 3", Status.NEW, Duration.ofMinutes(30), start.plusHours(3)),
+                new Task("Task 4", "Description 4", Status.NEW, Duration.ofMinutes(30), start.plusMinutes(15)));
+        HttpResponse<String> rejected = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(overlapping)))
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(406, rejected.statusCode(), "Пересекающийся пакет должен быть отклонён.");
+        assertEquals(2, countTasks(), "Ни одна задача пакета не должна добавиться.");
+    }
+
+    @Test
+    void testConditionalRequests() throws IOException, InterruptedException {
+        Task task = new Task("Task 1", "Description", Status.NEW, null, null);
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        int taskId = ((Double) gson.fromJson(created.body(), Map.class).get("id")).intValue();
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + taskId))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> notModified = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + taskId))
+                .header("If-None-Match", etag)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode());
+        assertTrue(notModified.body().isEmpty(), "Ответ 304 не должен содержать тело.");
+
+        Task update = new Task("Task 1", "Updated", Status.IN_PROGRESS, null, null);
+        update.setId(taskId);
+        HttpResponse<String> updated = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Match", etag)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+        assertNotEquals(etag, updated.headers().firstValue("ETag").orElseThrow());
+
+        HttpResponse<String> stale = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Match", etag)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(412, stale.statusCode(), "Запись по устаревшей версии должна отклоняться.");
+
+        HttpResponse<String> changed = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + taskId))
+                .header("If-None-Match", etag)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changed.statusCode());
+        assertEquals("Updated", gson.fromJson(changed.body(), Task.class).getDescription());
+        HttpResponse<String> any = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Match", "*")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, any.statusCode(), "If-Match: * обновляет существующую задачу при любой версии.");
+
+        HttpResponse<String> deleted = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/" + taskId))
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, deleted.statusCode());
+        String current = updated.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Match", current)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(412, missing.statusCode(), "Условное обновление удалённой задачи не должно её создавать.");
+        HttpResponse<String> anyMissing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Match", "*")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(update)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(412, anyMissing.statusCode(), "If-Match: * требует, чтобы задача существовала.");
+        assertEquals(0, countTasks());
+    }
+
+    private int countTasks() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return gson.fromJson(response.body(), Task[].class).length;
+    }
 }
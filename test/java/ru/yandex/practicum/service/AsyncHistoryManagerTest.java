@@ -0,0 +1,94 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+    private AsyncHistoryManager history;
+
+    @AfterEach
+    void tearDown() {
+        history.close();
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Description", Status.NEW, null, null);
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void testHistoryIsFlushedOnRead() {
+        history = new AsyncHistoryManager(new InMemoryHistoryManager());
+        for (int i = 0; i < AsyncHistoryManager.DEFAULT_QUEUE_SIZE / 2; i++) { // Без переполнения очереди
+            history.add(task(i % 5 + 1));
+        }
+        history.add(task(2));
+
+        assertEquals(List.of(4, 5, 1, 3, 2), ids(history.getHistory()), "Чтение должно видеть все просмотры.");
+        history.add(task(1));
+        history.remove(1);
+        assertEquals(List.of(4, 5, 3, 2), ids(history.getHistory()),
+                "Просмотр из очереди не должен вернуть удалённую задачу.");
+        assertEquals(0, history.getQueueDepth());
+        assertEquals(0, history.getDroppedViews());
+    }
+
+    @Test
+    void testWorkerAppliesViewsInBackground() throws InterruptedException {
+        InMemoryHistoryManager delegate = new InMemoryHistoryManager();
+        history = new AsyncHistoryManager(delegate);
+        for (int id = 1; id <= 1_000; id++) {
+            history.add(task(id));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (history.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        history.close(); // После остановки потока историю можно читать напрямую
+        assertEquals(1_000, delegate.getHistory().size(), "Фоновый поток должен перенести просмотры без чтения.");
+    }
+
+    @Test
+    void testViewsAreDroppedWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryHistoryManager delegate = new InMemoryHistoryManager() {
+            @Override
+            public void add(Task task) {
+                applying.countDown();
+                try {
+                    release.await(); // Фоновый поток «завис» на первом просмотре
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.add(task);
+            }
+        };
+        history = new AsyncHistoryManager(delegate, 4);
+        history.add(task(1));
+        assertTrue(applying.await(10, TimeUnit.SECONDS));
+
+        for (int id = 2; id <= 11; id++) {
+            history.add(task(id)); // Первый просмотр ещё занимает ячейку: поместятся только три
+        }
+        assertEquals(4, history.getQueueDepth());
+        assertEquals(7, history.getDroppedViews());
+
+        release.countDown();
+        assertEquals(List.of(1, 2, 3, 4), ids(history.getHistory()));
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTaskManagerTest extends TaskManagerTest<CompactTaskManager> {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 1, 9, 0);
+
+    @Override
+    protected CompactTaskManager createTaskManager() {
+        return new CompactTaskManager(new InMemoryHistoryManager());
+    }
+
+    @Override
+    protected TaskManager createTaskManagerRejectingPlacementOf(String title) {
+        return new CompactTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public void updateTask(Task updatedTask) {
+                if (updatedTask.getTitle().equals(title) && updatedTask.getStartTime() != null) {
+                    throw new TaskVersionConflictException("Задача с id " + updatedTask.getId() + " уже изменена");
+                }
+                super.updateTask(updatedTask);
+            }
+        };
+    }
+
+    @Test
+    void testReadsReturnIndependentViews() {
+        int taskId = taskManager.addTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30), START));
+
+        Task view = taskManager.getTaskById(taskId);
+        view.setStatus(Status.DONE);
+        view.setStartTime(START.plusHours(5));
+
+        Task stored = taskManager.getTaskById(taskId);
+        assertEquals(Status.NEW, stored.getStatus(), "Изменение копии не должно менять хранимую задачу.");
+        assertEquals(START, stored.getStartTime());
+        assertEquals(START.plusMinutes(30), stored.getEndTime());
+    }
+
+    @Test
+    void testEpicFieldsAreBuiltFromSubtasks() {
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        int firstId = taskManager.addSubtask(new Subtask("First", "Description", Status.DONE, epicId,
+                Duration.ofMinutes(30), START));
+        taskManager.addSubtask(new Subtask("Second", "Description", Status.NEW, epicId,
+                Duration.ofMinutes(60), START.plusHours(2)));
+
+        Epic epic = taskManager.getEpicById(epicId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(START, epic.getStartTime());
+        assertEquals(START.plusHours(3), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+        assertEquals(List.of(firstId, firstId + 1), epic.getSubtaskIds().stream().boxed().toList());
+
+        Subtask moved = new Subtask("First", "Description", Status.DONE, epicId, Duration.ofMinutes(30),
+                START.plusHours(4));
+        moved.setId(firstId);
+        taskManager.updateTask(moved);
+        assertEquals(START.plusHours(2), taskManager.getEpicById(epicId).getStartTime(),
+                "Начало эпика должно следовать за подзадачами.");
+
+        taskManager.removeTaskById(epicId);
+        assertTrue(taskManager.getAllSubtasks().isEmpty(), "Подзадачи удаляются вместе с эпиком.");
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void testPrioritizedOrderAndPaging() {
+        List<Task> batch = new ArrayList<>();
+        batch.add(new Task("Late", "Description", Status.NEW, Duration.ofMinutes(30), START.plusHours(3)));
+        batch.add(new Task("Untimed", "Description", Status.NEW, null, null));
+        batch.add(new Task("Early", "Description", Status.NEW, Duration.ofMinutes(30), START));
+        batch.add(new Task("Middle", "Description", Status.NEW, Duration.ofMinutes(30), START.plusHours(1)));
+        List<Integer> ids = taskManager.addAll(batch);
+
+        assertEquals(List.of(ids.get(2), ids.get(3), ids.get(0), ids.get(1)),
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Задачи со временем идут по началу, задачи без времени — в конце.");
+        assertEquals(List.of(ids.get(3)), taskManager.getPrioritizedTasks(START.plusMinutes(1), START.plusHours(3))
+                .stream().map(Task::getId).toList());
+
+        List<Task> firstPage = taskManager.getPrioritizedPage(null, null, null, 3);
+        List<Task> secondPage = taskManager.getPrioritizedPage(null, null,
+                PrioritizedCursor.of(firstPage.get(2)), 3);
+        assertEquals(List.of(ids.get(1)), secondPage.stream().map(Task::getId).toList());
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addAll(List.of(
+                new Task("Overlap", "Description", Status.NEW, Duration.ofMinutes(30), START.plusMinutes(30)))),
+                "Соприкосновение с существующей задачей считается пересечением.");
+        assertEquals(START.plusMinutes(31), taskManager.findFreeSlot(Duration.ofMinutes(20), START).start());
+        assertEquals(START.plusMinutes(91), taskManager.findFreeSlot(Duration.ofMinutes(40), START).start());
+    }
+
+    @Test
+    void testStringsAreStoredOnce() {
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task("Daily standup", "Team sync", Status.NEW, null, null));
+        }
+        assertEquals(2, taskManager.distinctStrings(), "Одинаковые строки должны храниться один раз.");
+
+        taskManager.removeAllTasks();
+        assertEquals(0, taskManager.distinctStrings(), "Строки без ссылок должны освобождаться.");
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Description", Status.NEW, null, null);
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> ids(List<Task> history) {
+        return history.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void testKeepsSingleThreadedOrderingThroughSmallLog() {
+        ConcurrentHistoryManager history = new ConcurrentHistoryManager(3, 2); // Журнал переполняется на каждом третьем просмотре
+        for (int id : new int[]{1, 2, 3, 1, 4, 2, 5}) {
+            history.add(task(id));
+        }
+        history.add(null);
+
+        assertEquals(List.of(4, 2, 5), ids(history.getHistory()), "Последний просмотр побеждает, старые вытесняются.");
+        history.add(task(4));
+        history.remove(2);
+        assertEquals(List.of(5, 4), ids(history.getHistory()));
+        assertEquals(List.of(4), ids(history.getHistory(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentHistoryManager(3, 3));
+    }
+
+    @Test
+    void testParallelViewsKeepPerThreadOrderAndConsistentSnapshots() throws Exception {
+        int threads = 8;
+        int viewsPerThread = 50_000;
+        int idsPerThread = 200;
+        ConcurrentHistoryManager history = new ConcurrentHistoryManager(10_000, 64);
+        List<List<Integer>> expected = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * idsPerThread;
+            LinkedHashSet<Integer> lastViews = new LinkedHashSet<>();
+            expected.add(new ArrayList<>());
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                start.await();
+                for (int i = 0; i < viewsPerThread; i++) {
+                    int id = base + 1 + random.nextInt(idsPerThread);
+                    history.add(task(id));
+                    lastViews.remove(id);
+                    lastViews.add(id);
+                }
+                expected.get(thread).addAll(lastViews);
+                return null;
+            }));
+        }
+        Future<Integer> reader = executor.submit(() -> {
+            start.await();
+            int snapshots = 0;
+            while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                List<Integer> snapshot = ids(history.getHistory());
+                assertEquals(snapshot.size(), new HashSet<>(snapshot).size(), "В снимке не должно быть повторов.");
+                snapshots++;
+            }
+            return snapshots;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        executor.shutdown();
+
+        // Задачи каждого потока идут в истории в порядке их последних просмотров этим потоком
+        List<Integer> all = ids(history.getHistory());
+        assertEquals(threads * idsPerThread, all.size());
+        for (int t = 0; t < threads; t++) {
+            Set<Integer> own = new HashSet<>(expected.get(t));
+            assertEquals(expected.get(t), all.stream().filter(own::contains).toList(), "Поток " + t);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 16;
+    private static final int TASKS_PER_THREAD = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 1, 0, 0);
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager(new InMemoryHistoryManager());
+    }
+
+    @Test
+    void testConcurrentAddsProduceUniqueIds() throws Exception {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    // Каждому потоку и задаче — свой непересекающийся слот
+                    LocalDateTime slot = START.plusMinutes(10L * (thread * TASKS_PER_THREAD + i));
+                    if (i % 2 == 0) {
+                        ids.add(taskManager.addTask(new Task("Task", "Description", Status.NEW,
+                                Duration.ofMinutes(5), slot)));
+                    } else {
+                        Status status = i % 3 == 0 ? Status.DONE : Status.NEW;
+                        ids.add(taskManager.addSubtask(new Subtask("Subtask", "Description", status, epicId,
+                                Duration.ofMinutes(5), slot)));
+                    }
+                    taskManager.getTaskById(ids.get(ids.size() - 1));
+                    taskManager.getAllTasks();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Integer> allIds = new HashSet<>();
+        for (Future<List<Integer>> future : futures) {
+            allIds.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        int total = THREADS * TASKS_PER_THREAD;
+        assertEquals(total, allIds.size(), "Идентификаторы задач должны быть уникальны.");
+        assertEquals(total + 1, taskManager.getAllTasks().size(), "Все задачи и эпик должны быть сохранены.");
+        assertEquals(total, taskManager.getPrioritizedTasks().size(), "Все задачи должны попасть в список.");
+        assertEquals(taskManager.getAllSubtasks().size(), taskManager.getSubtasksForEpic(epicId).size(),
+                "Все подзадачи должны быть привязаны к эпику.");
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpicById(epicId).getStatus(),
+                "Статус эпика должен учитывать все подзадачи.");
+        assertEquals(total, taskManager.getHistory().size(), "Каждый просмотр должен попасть в историю.");
+    }
+
+    @Test
+    void testConcurrentOverlappingAddsAcceptOnlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    taskManager.addTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30),
+                            START));
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, accepted.get(), "Только одна из пересекающихся задач должна быть добавлена.");
+        assertEquals(THREADS - 1, rejected.get(), "Остальные задачи должны быть отклонены.");
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testReturnedEpicIsNotChangedByLaterWrites() {
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        Epic read = (Epic) taskManager.getTaskById(epicId);
+        List<Task> history = taskManager.getHistory();
+
+        taskManager.addSubtask(new Subtask("Subtask", "Description", Status.DONE, epicId, Duration.ofMinutes(5),
+                START));
+
+        assertTrue(read.getSubtaskIds().isEmpty(), "Прочитанный эпик не должен меняться после чтения.");
+        assertEquals(Status.NEW, read.getStatus());
+        assertNull(((Epic) history.get(0)).getStartTime());
+        Epic fresh = taskManager.getEpicById(epicId);
+        assertEquals(1, fresh.getSubtaskIds().size());
+        assertEquals(Status.DONE, fresh.getStatus());
+        assertEquals(START.plusMinutes(5), fresh.getEndTime());
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 4, 9, 0);
+
+    private static Subtask subtask(int id, int minutes, LocalDateTime start) {
+        Subtask subtask = new Subtask("Subtask " + id, "Description", Status.NEW, 1, Duration.ofMinutes(minutes),
+                start);
+        subtask.setId(id);
+        return subtask;
+    }
+
+    @Test
+    void testStartTimeOutweighsEarlierPredecessor() {
+        DependencyGraph graph = new DependencyGraph();
+        Task first = subtask(2, 60, START);
+        Task second = subtask(3, 30, START.plusHours(3));
+        graph.addDependency(second, first);
+
+        assertEquals(START.plusHours(3), graph.earliestStart(3), "Собственное время начала позже окончания " +
+                "предшественника, поэтому задача начинается в своё время.");
+        assertEquals(List.of(3), graph.criticalPath(List.of(first, second)).taskIds(),
+                "Предшественник, закончившийся раньше, не входит в критический путь.");
+
+        graph.update(subtask(2, 240, START));
+        assertEquals(START.plusHours(4), graph.earliestStart(3));
+        assertEquals(List.of(2, 3), graph.criticalPath(List.of(first, second)).taskIds());
+
+        graph.removeDependency(3, 2);
+        assertEquals(0, graph.size(), "Задачи без зависимостей не должны оставаться в графе.");
+    }
+
+    @Test
+    void testLargeEpicRecomputesOnlyDownstream() {
+        // Эпик из 20 цепочек по 500 подзадач; изменение в начале одной цепочки затрагивает только её
+        int chains = 20;
+        int chainLength = 500;
+        DependencyGraph graph = new DependencyGraph();
+        List<Task> epicSubtasks = new ArrayList<>();
+        for (int chain = 0; chain < chains; chain++) {
+            Task previous = null;
+            for (int i = 0; i < chainLength; i++) {
+                int id = 2 + chain * chainLength + i;
+                Task current = subtask(id, 10 + chain, i == 0 ? START : null);
+                if (previous != null) {
+                    graph.addDependency(current, previous);
+                }
+                epicSubtasks.add(current);
+                previous = current;
+            }
+        }
+        int lastOfLongest = 1 + chains * chainLength;
+        assertEquals(lastOfLongest, graph.criticalPath(epicSubtasks).taskIds().get(chainLength - 1));
+
+        graph.update(subtask(2, 10_000, START)); // Первая подзадача самой короткой цепочки стала очень долгой
+        CriticalPath path = graph.criticalPath(epicSubtasks);
+
+        assertEquals(chainLength, path.taskIds().size());
+        assertEquals(2, path.taskIds().get(0));
+        assertEquals(1 + chainLength, path.taskIds().get(chainLength - 1));
+        assertEquals(START.plusMinutes(10_000 + 10L * (chainLength - 1)), path.earliestFinish());
+    }
+}
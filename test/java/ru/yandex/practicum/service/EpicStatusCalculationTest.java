@@ -10,6 +10,7 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class EpicStatusCalculationTest {
     private InMemoryTaskManager manager;
@@ -80,5 +81,54 @@ public class EpicStatusCalculationTest {
         assertEquals(Status.IN_PROGRESS, manager.getEpicById(epicId).getStatus(),
                 "Статус эпика должен быть IN_PROGRESS.");
     }
-}
 
+    @Test
+    public void testEpicRecalculatedOnSubtaskUpdateAndRemoval() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = manager.addEpic(epic);
+
+        Subtask subtask1 = new Subtask("Subtask 1", "Description 1", Status.NEW, epicId,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0));
+        Subtask subtask2 = new Subtask("Subtask 2", "Description 2", Status.NEW, epicId,
+                Duration.ofMinutes(45), LocalDateTime.of(2024, 11, 1, 11, 0));
+        manager.addSubtask(subtask1);
+        manager.addSubtask(subtask2);
+
+        subtask1.setStatus(Status.DONE);
+        manager.updateTask(subtask1);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика должен быть IN_PROGRESS.");
+
+        Subtask moved = new Subtask("Subtask 2", "Description 2", Status.DONE, epicId,
+                Duration.ofMinutes(60), LocalDateTime.of(2024, 11, 1, 12, 0));
+        moved.setId(subtask2.getId());
+        manager.updateTask(moved);
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть DONE.");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Продолжительность должна быть пересчитана.");
+        assertEquals(LocalDateTime.of(2024, 11, 1, 13, 0), epic.getEndTime(), "Окончание должно быть пересчитано.");
+
+        manager.removeTaskById(subtask1.getId());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration(), "Продолжительность должна уменьшиться.");
+        assertEquals(LocalDateTime.of(2024, 11, 1, 12, 0), epic.getStartTime(), "Начало должно сдвинуться.");
+
+        manager.removeTaskById(subtask2.getId());
+        assertEquals(Status.NEW, epic.getStatus(), "Эпик без подзадач должен быть NEW.");
+        assertNull(epic.getDuration(), "У эпика без подзадач нет продолжительности.");
+        assertNull(epic.getStartTime(), "У эпика без подзадач нет времени начала.");
+    }
+
+    @Test
+    public void testEpicUpdateKeepsSubtasks() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Subtask 1", "Description 1", Status.DONE, epicId,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0)));
+
+        Epic renamed = new Epic("Renamed epic", "Description");
+        renamed.setId(epicId);
+        manager.updateTask(renamed);
+
+        assertEquals(1, manager.getSubtasksForEpic(epicId).size(), "Подзадачи должны остаться за эпиком.");
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus(), "Статус эпика должен сохраниться.");
+        assertEquals(Duration.ofMinutes(30), manager.getEpicById(epicId).getDuration());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.exceptions.ManagerLoadException;
 import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
 import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Subtask;
 import ru.yandex.practicum.model.Task;
@@ -179,4 +180,23 @@ class FileBackedTaskManagerTest extends ru.yandex.practicum.service.TaskManagerT
             tempFile.delete();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRecurringTaskIsSavedAsSingleRow() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 10, 0);
+        int id = taskManager.addRecurringTask(new RecurringTask("Stand-up", "Description", Status.NEW,
+                Duration.ofMinutes(15), start, Duration.ofDays(1), start.plusDays(30)));
+
+        assertEquals(2, java.nio.file.Files.readAllLines(tempFile.toPath()).size(),
+                "Правило хранится одной строкой, без повторений.");
+        FileBackedTaskManager loaded = new FileBackedTaskManager(tempFile, new InMemoryHistoryManager());
+        RecurringTask restored = loaded.getRecurringTasks().get(0);
+        assertEquals(id, restored.getId());
+        assertEquals(Duration.ofDays(1), restored.getInterval());
+        assertEquals(start.plusDays(30), restored.getUntil());
+        assertEquals(30, loaded.getOccurrences(start, start.plusDays(60)).size());
+        assertThrows(IllegalArgumentException.class, () -> loaded.addTask(new Task("Clash", "Description",
+                Status.NEW, Duration.ofMinutes(10), start.plusDays(3).plusMinutes(5))));
+        assertTrue(loaded.addTask(new Task("After", "Description", Status.NEW, null, null)) > id);
+    }
+}
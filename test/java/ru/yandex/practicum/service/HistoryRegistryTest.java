@@ -0,0 +1,90 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryRegistryTest {
+
+    private static Task task(int id) {
+        Task task = new Task("Task " + id, "Description", Status.NEW, null, null);
+        task.setId(id);
+        return task;
+    }
+
+    private static void view(HistoryRegistry registry, String client, int... ids) {
+        HistoryRegistry.ClientScope scope = HistoryRegistry.withClient(client);
+        try {
+            for (int id : ids) {
+                registry.add(task(id));
+            }
+        } finally {
+            scope.close();
+        }
+    }
+
+    private static List<Integer> history(HistoryRegistry registry, String client) {
+        HistoryRegistry.ClientScope scope = HistoryRegistry.withClient(client);
+        try {
+            return registry.getHistory().stream().map(Task::getId).toList();
+        } finally {
+            scope.close();
+        }
+    }
+
+    @Test
+    void testClientsHaveSeparateHistories() {
+        HistoryRegistry registry = new HistoryRegistry(10, 100, 10);
+        view(registry, "alice", 1, 2);
+        view(registry, "bob", 3, 1);
+        view(registry, null, 4);
+
+        assertEquals(List.of(1, 2), history(registry, "alice"));
+        assertEquals(List.of(3, 1), history(registry, "bob"));
+        assertEquals(List.of(4), history(registry, null), "Без клиента используется общая история.");
+        assertTrue(history(registry, "carol").isEmpty());
+        assertEquals(2, registry.getPartitionCount(), "Чтение не должно создавать раздел.");
+
+        registry.remove(1);
+        assertEquals(List.of(2), history(registry, "alice"), "Удалённая задача пропадает у всех клиентов.");
+        assertEquals(List.of(3), history(registry, "bob"));
+        assertEquals(3, registry.getTotalEntries());
+    }
+
+    @Test
+    void testLeastRecentlyUsedClientsAreEvictedOverMemoryCap() {
+        HistoryRegistry registry = new HistoryRegistry(3, 6, 10);
+        view(registry, "alice", 1, 2, 3);
+        view(registry, "bob", 1, 2);
+        history(registry, "alice"); // Alice снова активна, дольше всех не обращался Bob
+        view(registry, "carol", 5, 6);
+
+        assertEquals(2, registry.getPartitionCount());
+        assertTrue(history(registry, "bob").isEmpty(), "Вытесняется давно не использованный клиент.");
+        assertEquals(List.of(1, 2, 3), history(registry, "alice"));
+        assertEquals(5, registry.getTotalEntries());
+
+        view(registry, "dave", 1, 2, 3, 4); // Ёмкость раздела — три записи
+        assertEquals(List.of(2, 3, 4), history(registry, "dave"));
+        assertTrue(registry.getTotalEntries() <= 6);
+        assertThrows(IllegalArgumentException.class, () -> new HistoryRegistry(10, 5, 10));
+    }
+
+    @Test
+    void testPartitionCountIsBoundedForManyClients() {
+        HistoryRegistry registry = new HistoryRegistry(10, 100_000, 3);
+        for (int client = 0; client < 1000; client++) {
+            view(registry, "client-" + client, 1); // Каждый новый клиент почти не добавляет записей
+        }
+
+        assertEquals(3, registry.getPartitionCount(), "Число разделов не должно расти вместе с числом клиентов.");
+        assertEquals(3, registry.getTotalEntries());
+        assertEquals(List.of(1), history(registry, "client-999"));
+        assertTrue(history(registry, "client-0").isEmpty(), "Вытесняется давно не использованный клиент.");
+        assertThrows(IllegalArgumentException.class, () -> new HistoryRegistry(10, 100, 0));
+    }
+}
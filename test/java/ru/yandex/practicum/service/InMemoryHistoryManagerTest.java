@@ -6,11 +6,13 @@ import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Task;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class InMemoryHistoryManagerTest  {
     private InMemoryHistoryManager historyManager;
@@ -222,4 +224,73 @@ class InMemoryHistoryManagerTest  {
         assertTrue(history.isEmpty(), "История задач должна быть пустой.");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testOldestViewIsEvictedWhenCapacityIsReached() {
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(3);
+        for (int id = 1; id <= 5; id++) {
+            Task task = new Task("Task " + id, "Description", Status.NEW, null, null);
+            task.setId(id);
+            bounded.add(task);
+            if (id == 3) {
+                bounded.add(bounded.getHistory().get(0)); // Повторный просмотр спасает задачу 1 от вытеснения
+            }
+        }
+
+        assertEquals(List.of(1, 4, 5), bounded.getHistory().stream().map(Task::getId).toList(),
+                "Должны остаться три последних просмотра.");
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0));
+    }
+
+    @Test
+    void testGetHistoryReturnsMostRecentViews() {
+        for (int id = 1; id <= 4; id++) {
+            Task task = new Task("Task " + id, "Description", Status.NEW, null, null);
+            task.setId(id);
+            historyManager.add(task);
+        }
+
+        assertEquals(List.of(3, 4), historyManager.getHistory(2).stream().map(Task::getId).toList(),
+                "Последние просмотры идут от старых к новым, как и вся история.");
+        assertEquals(4, historyManager.getHistory(10).size());
+        assertTrue(historyManager.getHistory(0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> historyManager.getHistory(-1));
+
+        List<Task> recent = historyManager.getHistory(2);
+        recent.remove(0); // Как и getHistory(), возвращается изменяемая копия
+        assertEquals(1, recent.size());
+        assertEquals(4, historyManager.getHistory().size());
+    }
+
+    @Test
+    void testRecordingViewsDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        InMemoryHistoryManager bounded = new InMemoryHistoryManager(100);
+        Task[] tasks = new Task[500];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Description", Status.NEW, null, null);
+            tasks[i].setId(i + 1);
+        }
+        // Прогрев: массивы дорастают до ёмкости, JIT компилирует add
+        for (int i = 0; i < 200_000; i++) {
+            bounded.add(tasks[i % tasks.length]);
+            historyManager.add(tasks[i % tasks.length]);
+        }
+
+        int views = 1_000_000;
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < views; i++) {
+            bounded.add(tasks[(i * 7) % tasks.length]); // Вытеснения и повторные просмотры вперемешку
+            historyManager.add(tasks[(i * 11) % tasks.length]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Несколько килобайт — погрешность самого измерения; узлы и упакованные ключи дали бы ~50 байт на просмотр
+        assertTrue(allocated < 64 * 1024, "Запись просмотров не должна выделять память: " + allocated + " байт");
+        assertEquals(100, bounded.getHistory().size());
+        assertEquals(tasks.length, historyManager.getHistory().size());
+    }
+}
@@ -2,10 +2,12 @@ package ru.yandex.practicum.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
 import ru.yandex.practicum.model.Epic;
 import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Subtask;
 import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -20,6 +22,19 @@ class InMemoryTaskManagerTest extends ru.yandex.practicum.service.TaskManagerTes
         return new InMemoryTaskManager(new InMemoryHistoryManager());
     }
 
+    @Override
+    protected TaskManager createTaskManagerRejectingPlacementOf(String title) {
+        return new InMemoryTaskManager(new InMemoryHistoryManager()) {
+            @Override
+            public void updateTask(Task updatedTask) {
+                if (updatedTask.getTitle().equals(title) && updatedTask.getStartTime() != null) {
+                    throw new TaskVersionConflictException("Задача с id " + updatedTask.getId() + " уже изменена");
+                }
+                super.updateTask(updatedTask);
+            }
+        };
+    }
+
     @BeforeEach
     void setUp() {
         taskManager = createTaskManager();
@@ -243,6 +258,186 @@ class InMemoryTaskManagerTest extends ru.yandex.practicum.service.TaskManagerTes
 
         assertNotNull(taskManager.getTaskById(subtask3Id));
     }
-}
 
+    @Test
+    public void testSubtaskFitsIntoGapOfItsEpic() {
+        Epic epic = new Epic("Epic 1", "Description");
+        int epicId = taskManager.addEpic(epic);
+        taskManager.addSubtask(new Subtask("Subtask 1", "Description 1", Status.NEW, epicId,
+                Duration.ofMinutes(60), LocalDateTime.of(2024, 11, 1, 9, 0)));
+        taskManager.addSubtask(new Subtask("Subtask 2", "Description 2", Status.NEW, epicId,
+                Duration.ofMinutes(60), LocalDateTime.of(2024, 11, 1, 12, 0)));
+
+        Task task = new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 11, 1, 10, 30));
+
+        assertDoesNotThrow(() -> taskManager.addTask(task), "Время эпика не должно блокировать промежутки.");
+        assertFalse(taskManager.getPrioritizedTasks().contains(epic), "Эпики не попадают в отсортированный список.");
+    }
+
+    @Test
+    public void testRejectedUpdateKeepsOldInterval() {
+        Task task1 = new Task("Task 1", "Description 1", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 1, 9, 0));
+        Task task2 = new Task("Task 2", "Description 2", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 1, 11, 0));
+        taskManager.addTask(task1);
+        int task2Id = taskManager.addTask(task2);
+
+        Task moved = new Task("Task 2", "Description 2", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 1, 9, 30));
+        moved.setId(task2Id);
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(moved));
+        assertEquals(2, taskManager.getPrioritizedTasks().size(), "Старая версия задачи должна остаться.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(new Task("Task 3", "Description 3",
+                Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 11, 30))));
+    }
+
+    @Test
+    void testGetTaskByIdWithTypeRejectsOtherTypes() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", Status.NEW, epicId,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0));
+        int subtaskId = taskManager.addSubtask(subtask);
+
+        assertEquals(subtask, taskManager.getTaskById(subtaskId, TaskType.SUBTASK));
+        assertNull(taskManager.getTaskById(epicId, TaskType.SUBTASK), "Эпик не должен находиться как подзадача.");
+        assertNull(taskManager.getTaskById(100, TaskType.TASK), "Несуществующий id должен давать null.");
+        assertEquals(List.of(subtask), taskManager.getHistory(), "В историю попадает только найденная задача.");
+    }
+
+    @Test
+    void testUpdateCannotChangeTaskType() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+
+        Task task = new Task("Task", "Description", Status.NEW, null, null);
+        task.setId(epicId);
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(task));
+        assertEquals(epic, taskManager.getTaskById(epicId), "Эпик должен остаться на месте.");
+        assertTrue(taskManager.getAllTasks().stream().noneMatch(t -> t.getType() == TaskType.TASK));
+    }
+
+    @Test
+    void testRemovedEpicSubtasksAreNotFoundById() {
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+        int subtaskId = taskManager.addSubtask(new Subtask("Subtask", "Description", Status.NEW, epicId,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0)));
+
+        taskManager.removeTaskById(epicId);
+
+        assertNull(taskManager.getTaskById(epicId));
+        assertNull(taskManager.getTaskById(subtaskId), "Подзадачи удалённого эпика не должны находиться.");
+    }
+
+    @Test
+    void testPrioritizedSnapshotIsReusedUntilMutation() {
+        Task task = new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 11, 1, 9, 0));
+        int taskId = taskManager.addTask(task);
+
+        PrioritizedSnapshot first = taskManager.getPrioritizedSnapshot();
+        assertSame(first, taskManager.getPrioritizedSnapshot(), "Без изменений должен возвращаться тот же снимок.");
+        assertSame(first.tasks(), taskManager.getPrioritizedTasks());
+        assertThrows(UnsupportedOperationException.class, () -> first.tasks().clear(), "Снимок неизменяем.");
 
+        taskManager.removeTaskById(taskId);
+        PrioritizedSnapshot second = taskManager.getPrioritizedSnapshot();
+
+        assertTrue(second.version() > first.version(), "После изменения версия должна вырасти.");
+        assertTrue(second.tasks().isEmpty());
+        assertEquals(1, first.tasks().size(), "Старый снимок не должен меняться.");
+    }
+
+    @Test
+    void testPrioritizedRangeAndPages() {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description", Status.NEW, Duration.ofMinutes(30),
+                    start.plusHours(i)));
+        }
+        Task untimed = new Task("Untimed", "Description", Status.NEW, null, null);
+        taskManager.addTask(untimed);
+
+        List<Task> range = taskManager.getPrioritizedTasks(start.plusHours(1), start.plusHours(3));
+        assertEquals(List.of("Task 1", "Task 2"), range.stream().map(Task::getTitle).toList(),
+                "Диапазон включает начало и не включает конец.");
+        assertEquals(4, taskManager.getPrioritizedTasks(start.plusHours(1), null).size(),
+                "Задачи без времени не попадают в диапазон.");
+
+        List<Task> firstPage = taskManager.getPrioritizedPage(null, null, null, 4);
+        List<Task> secondPage = taskManager.getPrioritizedPage(null, null,
+                PrioritizedCursor.of(firstPage.get(3)), 4);
+        assertEquals("Task 3", firstPage.get(3).getTitle());
+        assertEquals(List.of("Task 4", "Untimed"), secondPage.stream().map(Task::getTitle).toList(),
+                "Вторая страница продолжает обход после курсора.");
+
+        taskManager.removeTaskById(firstPage.get(3).getId());
+        assertEquals(secondPage, taskManager.getPrioritizedPage(null, null, PrioritizedCursor.of(firstPage.get(3)), 4),
+                "Курсор должен работать и после удаления задачи, на которой он стоит.");
+        assertTrue(taskManager.getPrioritizedTasks(start.plusHours(3), start).isEmpty(), "from > to даёт пустой ответ.");
+    }
+
+    @Test
+    void testAddAllIsAllOrNothing() {
+        taskManager.addTask(new Task("Existing", "Description", Status.NEW, Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 11, 1, 12, 0)));
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+
+        List<Task> overlapping = List.of(
+                new Task("Task 1", "Description", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0)),
+                new Subtask("Subtask", "Description", Status.DONE, epicId, Duration.ofMinutes(30),
+                        LocalDateTime.of(2024, 11, 1, 12, 30)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addAll(overlapping));
+        assertEquals(2, taskManager.getAllTasks().size(), "Ни одна задача пакета не должна добавиться.");
+
+        List<Task> selfOverlapping = List.of(
+                new Task("Task 1", "Description", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0)),
+                new Task("Task 2", "Description", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 15)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addAll(selfOverlapping),
+                "Задачи внутри пакета тоже не должны пересекаться.");
+
+        List<Task> valid = List.of(
+                new Subtask("Subtask 1", "Description", Status.DONE, epicId, Duration.ofMinutes(30),
+                        LocalDateTime.of(2024, 11, 1, 10, 0)),
+                new Task("Task 1", "Description", Status.NEW, Duration.ofMinutes(30), LocalDateTime.of(2024, 11, 1, 9, 0)),
+                new Subtask("Subtask 2", "Description", Status.NEW, epicId, Duration.ofMinutes(30),
+                        LocalDateTime.of(2024, 11, 1, 14, 0)));
+        List<Integer> ids = taskManager.addAll(valid);
+
+        assertEquals(3, ids.size());
+        assertEquals(5, taskManager.getAllTasks().size());
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика должен учесть подзадачи пакета.");
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        assertEquals(4, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testFindFreeSlots() {
+        LocalDateTime day = LocalDateTime.of(2024, 11, 1, 0, 0);
+        taskManager.addTask(new Task("Task 1", "Description", Status.NEW, Duration.ofMinutes(60), day.withHour(9)));
+        taskManager.addTask(new Task("Task 2", "Description", Status.NEW, Duration.ofMinutes(60), day.withHour(11)));
+        taskManager.addTask(new Task("Task 3", "Description", Status.NEW, Duration.ofMinutes(30), day.withHour(14)));
+
+        TimeSlot slot = taskManager.findFreeSlot(Duration.ofMinutes(90), day.withHour(9).withMinute(30));
+        assertEquals(day.withHour(12).withMinute(1), slot.start(), "Промежуток 10:00-11:00 слишком короткий.");
+        assertEquals(day.withHour(13).withMinute(59), slot.end());
+
+        List<TimeSlot> slots = taskManager.findFreeSlots(Duration.ofMinutes(30), day.withHour(8), 3);
+        assertEquals(List.of(
+                new TimeSlot(day.withHour(8), day.withHour(8).withMinute(59)),
+                new TimeSlot(day.withHour(10).withMinute(1), day.withHour(10).withMinute(59)),
+                new TimeSlot(day.withHour(12).withMinute(1), day.withHour(13).withMinute(59))), slots);
+
+        TimeSlot found = taskManager.findFreeSlots(Duration.ofMinutes(30), day.withHour(13), 5).get(1);
+        assertNull(found.end(), "После последней задачи промежуток не ограничен.");
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("Fits", "Description", Status.NEW,
+                Duration.ofMinutes(30), found.start())), "Задача в найденном промежутке не должна пересекаться.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlot(Duration.ZERO, day));
+    }
+}
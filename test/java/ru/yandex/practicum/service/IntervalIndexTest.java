@@ -0,0 +1,65 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+    private IntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IntervalIndex();
+    }
+
+    private Task task(int id, int hour, int minutes) {
+        Task task = new Task("Task " + id, "Description", Status.NEW, Duration.ofMinutes(minutes),
+                LocalDateTime.of(2024, 11, 1, hour, 0));
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void testFindOverlapWithNeighbours() {
+        index.add(task(1, 8, 60));
+        index.add(task(2, 12, 60));
+
+        assertNull(index.findOverlap(task(3, 10, 60)), "Задача в промежутке не должна пересекаться.");
+        assertEquals(1, index.findOverlap(task(3, 8, 90)).getId(), "Задача должна пересекаться с первой.");
+        assertEquals(2, index.findOverlap(task(3, 11, 90)).getId(), "Задача должна пересекаться со второй.");
+        assertNotNull(index.findOverlap(task(3, 10, 120)), "Соприкосновение границ считается пересечением.");
+    }
+
+    @Test
+    void testTaskDoesNotOverlapItself() {
+        Task task = task(1, 9, 60);
+        index.add(task);
+
+        assertNull(index.findOverlap(task), "Задача не должна пересекаться сама с собой.");
+    }
+
+    @Test
+    void testRemoveUsesIndexedInterval() {
+        Task task = task(1, 9, 60);
+        index.add(task);
+        task.setStartTime(LocalDateTime.of(2024, 11, 1, 15, 0)); // Изменение объекта снаружи
+
+        index.remove(1);
+
+        assertEquals(0, index.size(), "Интервал должен удаляться по id, а не по текущему времени задачи.");
+        assertNull(index.findOverlap(task(2, 9, 30)), "После удаления интервал не должен мешать.");
+    }
+
+    @Test
+    void testTasksWithoutTimeAreIgnored() {
+        index.add(new Task("Task", "Description", Status.NEW, null, null));
+
+        assertEquals(0, index.size(), "Задачи без времени не должны попадать в индекс.");
+    }
+}
@@ -20,4 +20,14 @@ public class ManagersTest {
         assertInstanceOf(InMemoryHistoryManager.class, historyManager, "HistoryManager должен быть экземпляром" +
                 " InMemoryHistoryManager.");
     }
+
+    @Test
+    void getDefaultHistoryShouldBeBounded() {
+        InMemoryHistoryManager historyManager = (InMemoryHistoryManager) Managers.getDefaultHistory();
+        assertEquals(Managers.DEFAULT_HISTORY_CAPACITY, historyManager.getCapacity(),
+                "История по умолчанию должна быть ограничена.");
+        assertEquals(5, ((InMemoryHistoryManager) Managers.getDefaultHistory(5)).getCapacity());
+        assertEquals(Managers.DEFAULT_HISTORY_CAPACITY,
+                ((ConcurrentHistoryManager) Managers.getConcurrentHistory()).getCapacity());
+    }
 }
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTaskManagerTest extends TaskManagerTest<CompactTaskManager> {
+
+    @Override
+    protected CompactTaskManager createTaskManager() {
+        return new CompactTaskManager(new InMemoryHistoryManager(), new OffHeapTaskRecords(16),
+                new OffHeapStringArena());
+    }
+
+    @Test
+    void testManagersCreateOffHeapManager() {
+        TaskManager manager = Managers.getOffHeap();
+        int epicId = manager.addEpic(new Epic("Эпик", "Описание"));
+        int subtaskId = manager.addSubtask(new Subtask("Подзадача", "Описание", Status.DONE, epicId,
+                Duration.ofMinutes(15), LocalDateTime.of(2024, 11, 1, 9, 0)));
+
+        assertEquals("Подзадача", manager.getTaskById(subtaskId).getTitle());
+        assertEquals(Status.DONE, manager.getEpicById(epicId).getStatus());
+    }
+
+    @Test
+    void testFreedRecordsAreReused() {
+        OffHeapTaskRecords records = new OffHeapTaskRecords(4);
+        for (int id = 1; id <= 100; id++) {
+            records.allocate(id, (byte) 1);
+            records.setVersion(id, id);
+        }
+        for (int id = 1; id <= 50; id++) {
+            records.free(id);
+        }
+        for (int id = 101; id <= 150; id++) {
+            records.allocate(id, (byte) 2);
+        }
+
+        assertEquals(100, records.recordCount(), "Освобождённые записи должны использоваться повторно.");
+        assertFalse(records.contains(1));
+        assertTrue(records.contains(150));
+        assertEquals(0, records.getVersion(150), "Повторно выданная запись должна быть очищена.");
+        assertEquals(75, records.getVersion(75));
+        assertEquals(2, records.getType(101));
+    }
+
+    @Test
+    void testStringArenaReusesFreedBlocks() {
+        OffHeapStringArena arena = new OffHeapStringArena();
+        String longText = "Описание ".repeat(10_000);
+        int shortId = arena.acquire("Задача ё");
+        int emptyId = arena.acquire("");
+        int longId = arena.acquire(longText);
+
+        assertEquals("Задача ё", arena.get(shortId));
+        assertEquals("", arena.get(emptyId));
+        assertEquals(longText, arena.get(longId));
+        assertNull(arena.get(arena.acquire(null)));
+
+        arena.release(longId);
+        assertEquals(longId, arena.acquire(longText.toUpperCase()), "Кусок того же размера должен использоваться снова.");
+        assertEquals(3, arena.size());
+        assertEquals(1, arena.slabCount());
+        assertThrows(IllegalArgumentException.class, () -> arena.acquire("x".repeat(1 << 22)));
+    }
+
+    @Test
+    void testRenamedTaskReleasesOldStrings() {
+        int taskId = taskManager.addTask(new Task("Title", "Description", Status.NEW, null, null));
+        Task renamed = new Task("New title", "Description", Status.NEW, null, null);
+        renamed.setId(taskId);
+        taskManager.updateTask(renamed);
+
+        assertEquals(2, taskManager.distinctStrings(), "Строки старой версии задачи должны освобождаться.");
+        taskManager.removeTaskById(taskId);
+        assertEquals(0, taskManager.distinctStrings());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.RecurringTask;
+import ru.yandex.practicum.model.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 4, 0, 0);
+
+    private static RecurringTask rule(int id, long offsetMinutes, long durationMinutes, long intervalMinutes,
+                                      LocalDateTime until) {
+        RecurringTask task = new RecurringTask("Rule " + id, "Description", Status.NEW,
+                Duration.ofMinutes(durationMinutes), START.plusMinutes(offsetMinutes),
+                Duration.ofMinutes(intervalMinutes), until);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void testInfiniteRulesOverlapByIntervalGcd() {
+        RecurrenceIndex index = new RecurrenceIndex();
+        index.add(rule(1, 0, 10, 60, null));
+
+        // Интервалы 60 и 90 минут: начала совпадают по модулю 30 минут, поэтому сдвиг 15 минут безопасен
+        assertNull(index.findOverlap(rule(2, 15, 10, 90, null)));
+        assertNotNull(index.findOverlap(rule(3, 25, 10, 90, null)), "Сдвиг 25 минут даёт пересечение через 120 минут.");
+        // Конечное правило проверяется перебором только своих повторений
+        assertNull(index.findOverlap(rule(4, 25, 10, 90, START.plusMinutes(100))));
+        assertNotNull(index.findOverlap(rule(5, 25, 10, 90, START.plusMinutes(120))));
+    }
+
+    @Test
+    void testSubtractCutsGapsAndStopsAtHorizon() {
+        RecurrenceIndex index = new RecurrenceIndex();
+        index.add(rule(1, 60, 30, 24 * 60, null));
+        Iterator<TimeSlot> gaps = index.subtract(List.of(new TimeSlot(START, START.plusMinutes(120)),
+                new TimeSlot(START.plusHours(5), null)).iterator());
+
+        assertEquals(new TimeSlot(START, START.plusMinutes(59)), gaps.next());
+        assertEquals(new TimeSlot(START.plusMinutes(91), START.plusMinutes(120)), gaps.next());
+        assertEquals(new TimeSlot(START.plusHours(5), START.plusDays(1).plusMinutes(59)), gaps.next());
+        int count = 3;
+        while (gaps.hasNext()) {
+            assertNotNull(gaps.next().end(), "За бесконечным правилом открытого промежутка нет.");
+            count++;
+        }
+        assertTrue(count > 3000 && count < 4000, "Поиск должен остановиться на горизонте: " + count);
+    }
+
+    @Test
+    void testSubtractTerminatesWhenOccurrencesLeaveNoGaps() {
+        RecurrenceIndex index = new RecurrenceIndex();
+        index.add(rule(1, 0, 30, 31, null)); // Между повторениями меньше двух минутных зазоров
+
+        Iterator<TimeSlot> gaps = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> index.subtract(List.of(new TimeSlot(START, null)).iterator()));
+        assertFalse(assertTimeoutPreemptively(Duration.ofSeconds(10), gaps::hasNext),
+                "Поиск должен закончиться на горизонте, даже если свободных кусков нет.");
+    }
+}
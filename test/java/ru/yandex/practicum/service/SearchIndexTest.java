@@ -0,0 +1,71 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+    private static final String[] WORDS = {"ab", "abc", "abd", "b", "ba", "bab", "c", "ca", "cab"};
+
+    @Test
+    void testEarlyStopReturnsSameTopResultsAsFullScan() {
+        SearchIndex index = new SearchIndex();
+        Map<Integer, Task> tasks = new HashMap<>();
+        Random random = new Random(7);
+        for (int id = 1; id <= 2000; id++) {
+            Task task = new Task(randomText(random), randomText(random), Status.NEW, null, null);
+            task.setId(id);
+            tasks.put(id, task);
+            index.add(task);
+        }
+        // Повторная индексация и удаление меняют порядок добавления в списках слов
+        for (int i = 0; i < 500; i++) {
+            int id = 1 + random.nextInt(2000);
+            if (random.nextBoolean()) {
+                Task task = new Task(randomText(random), randomText(random), Status.NEW, null, null);
+                task.setId(id);
+                tasks.put(id, task);
+                index.add(task);
+            } else {
+                tasks.remove(id);
+                index.remove(id);
+            }
+        }
+
+        for (String query : List.of("a", "ab", "b", "c ab", "ab ba", "abc", "ca b", "x")) {
+            for (int limit : new int[]{1, 5, 50, 5000}) {
+                assertEquals(fullScan(tasks, query, limit), index.matches(query, limit),
+                        "Запрос «" + query + "», limit " + limit);
+            }
+        }
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static List<SearchIndex.Match> fullScan(Map<Integer, Task> tasks, String query, int limit) {
+        String[] terms = SearchIndex.tokenize(query);
+        List<SearchIndex.Match> matches = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            int score = SearchIndex.score(SearchIndex.tokenize(task.getTitle()),
+                    SearchIndex.tokenize(task.getDescription()), terms);
+            if (score > 0) {
+                matches.add(new SearchIndex.Match(task.getId(), score));
+            }
+        }
+        return matches.stream().sorted(SearchIndex.Match.ORDER).limit(limit).toList();
+    }
+}
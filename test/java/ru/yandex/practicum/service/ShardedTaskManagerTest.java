@@ -0,0 +1,259 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTaskManagerTest extends TaskManagerTest<ShardedTaskManager> {
+    private static final int SHARDS = 4;
+    private static final int THREADS = 16;
+    private static final int TASKS_PER_THREAD = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 1, 0, 0);
+
+    @Override
+    protected ShardedTaskManager createTaskManager() {
+        return new ShardedTaskManager(new InMemoryHistoryManager(), SHARDS);
+    }
+
+    @Override
+    protected TaskManager createTaskManagerRejectingPlacementOf(String title) {
+        return new ShardedTaskManager(new InMemoryHistoryManager(), SHARDS) {
+            @Override
+            public void updateTask(Task updatedTask) {
+                if (updatedTask.getTitle().equals(title) && updatedTask.getStartTime() != null) {
+                    throw new TaskVersionConflictException("Задача с id " + updatedTask.getId() + " уже изменена");
+                }
+                super.updateTask(updatedTask);
+            }
+        };
+    }
+
+    @Test
+    void testShardCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedTaskManager(new InMemoryHistoryManager(), 0));
+    }
+
+    @Test
+    void testConcurrentAddsProduceUniqueIds() throws Exception {
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            epicIds.add(taskManager.addEpic(new Epic("Epic " + i, "Description")));
+        }
+
+        List<List<Integer>> results = runConcurrently(thread -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                // Каждому потоку и задаче — свой непересекающийся слот
+                LocalDateTime slot = START.plusMinutes(10L * (thread * TASKS_PER_THREAD + i));
+                if (i % 2 == 0) {
+                    ids.add(taskManager.addTask(new Task("Task", "Description", Status.NEW,
+                            Duration.ofMinutes(5), slot)));
+                } else {
+                    int epicId = epicIds.get(i / 2 % epicIds.size());
+                    ids.add(taskManager.addSubtask(new Subtask("Subtask", "Description", Status.DONE, epicId,
+                            Duration.ofMinutes(5), slot)));
+                }
+                taskManager.getTaskById(ids.get(ids.size() - 1));
+            }
+            return ids;
+        });
+
+        Set<Integer> allIds = new HashSet<>();
+        results.forEach(allIds::addAll);
+        int total = THREADS * TASKS_PER_THREAD;
+        assertEquals(total, allIds.size(), "Идентификаторы задач должны быть уникальны.");
+        assertEquals(total + SHARDS, taskManager.getAllTasks().size(), "Все задачи и эпики должны быть сохранены.");
+        assertEquals(total, taskManager.getPrioritizedTasks().size(), "Все задачи должны попасть в список.");
+        for (int epicId : epicIds) {
+            List<Subtask> subtasks = taskManager.getSubtasksForEpic(epicId);
+            assertFalse(subtasks.isEmpty());
+            subtasks.forEach(subtask -> assertEquals(epicId, subtask.getEpicId()));
+            assertEquals(Status.DONE, taskManager.getEpicById(epicId).getStatus(),
+                    "Статус эпика должен учитывать все подзадачи.");
+        }
+        assertEquals(total, taskManager.getHistory().size(), "Каждый просмотр должен попасть в историю.");
+    }
+
+    @Test
+    void testConcurrentOverlappingAddsAcceptOnlyOne() throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        // Потоки пишут в разные шарды, но пересечение проверяется по общей шкале
+        runConcurrently(thread -> {
+            try {
+                taskManager.addTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30),
+                        START.plusMinutes(thread)));
+                accepted.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+            }
+            return List.of();
+        });
+
+        assertEquals(1, accepted.get(), "Только одна из пересекающихся задач должна быть добавлена.");
+        assertEquals(THREADS - 1, rejected.get(), "Остальные задачи должны быть отклонены.");
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testCrossShardUpdateChecksOverlap() {
+        int firstId = addFromNewThread(() -> taskManager.addTask(new Task("First", "Description", Status.NEW,
+                Duration.ofMinutes(30), START)));
+        int secondId = addFromNewThread(() -> taskManager.addTask(new Task("Second", "Description", Status.NEW,
+                Duration.ofMinutes(30), START.plusHours(1))));
+        assertNotEquals(Math.floorMod(firstId - 1, SHARDS), Math.floorMod(secondId - 1, SHARDS),
+                "Задачи из разных потоков должны попасть в разные шарды.");
+
+        Task moved = new Task("Second", "Description", Status.NEW, Duration.ofMinutes(30), START.plusMinutes(10));
+        moved.setId(secondId);
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(moved));
+        assertEquals(START.plusHours(1), taskManager.getTaskById(secondId).getStartTime(),
+                "Отклонённое обновление не должно менять задачу.");
+
+        taskManager.removeTaskById(firstId);
+        taskManager.updateTask(moved);
+        assertEquals(START.plusMinutes(10), taskManager.getTaskById(secondId).getStartTime(),
+                "После удаления первой задачи время освободилось.");
+        assertEquals(START.plusMinutes(41), taskManager.findFreeSlot(Duration.ofMinutes(30), START).start());
+    }
+
+    @Test
+    void testMovingSubtaskToEpicInAnotherShardIsRejected() {
+        int firstEpicId = addFromNewThread(() -> taskManager.addEpic(new Epic("First", "Description")));
+        int secondEpicId = addFromNewThread(() -> taskManager.addEpic(new Epic("Second", "Description")));
+        assertNotEquals(Math.floorMod(firstEpicId - 1, SHARDS), Math.floorMod(secondEpicId - 1, SHARDS),
+                "Эпики из разных потоков должны попасть в разные шарды.");
+        int subtaskId = taskManager.addSubtask(new Subtask("Subtask", "Description", Status.DONE, firstEpicId,
+                Duration.ofMinutes(5), START));
+
+        Subtask moved = new Subtask("Subtask", "Description", Status.DONE, secondEpicId, Duration.ofMinutes(5),
+                START);
+        moved.setId(subtaskId);
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(moved));
+
+        assertEquals(firstEpicId, ((Subtask) taskManager.getTaskById(subtaskId)).getEpicId(),
+                "Отклонённое обновление не должно менять подзадачу.");
+        assertEquals(List.of(subtaskId), taskManager.getSubtasksForEpic(firstEpicId).stream()
+                .map(Task::getId).toList(), "Подзадача должна остаться в прежнем эпике.");
+        assertTrue(taskManager.getSubtasksForEpic(secondEpicId).isEmpty());
+    }
+
+    @Test
+    void testEpicsReadDuringSubtaskUpdatesAreSnapshots() throws Exception {
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        int subtasks = 200;
+        AtomicInteger torn = new AtomicInteger();
+        runConcurrently(4, thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < subtasks; i++) {
+                    Subtask subtask = new Subtask("Subtask", "Description", Status.NEW, epicId, null, null);
+                    taskManager.addSubtask(subtask);
+                    subtask.setStatus(Status.DONE);
+                    taskManager.updateTask(subtask);
+                }
+                return List.of();
+            }
+            for (int i = 0; i < subtasks; i++) {
+                List<Epic> epics = thread == 1 ? taskManager.getAllEpics() : List.of(taskManager.getEpicById(epicId));
+                for (Epic epic : epics) {
+                    int size = epic.getSubtaskIds().size();
+                    Thread.yield(); // Даём писателю изменить эпик после чтения
+                    if (epic.getSubtaskIds().toArray().length != size || epic.getSubtaskIds().size() != size) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }
+            return List.of();
+        });
+
+        assertEquals(0, torn.get(), "Прочитанный эпик не должен меняться вместе с подзадачами в шарде.");
+        assertEquals(subtasks, taskManager.getEpicById(epicId).getSubtaskIds().size());
+        assertEquals(Status.DONE, taskManager.getEpicById(epicId).getStatus());
+    }
+
+    // Параллельные добавления и обновления подзадач в собственных эпиках потоков не теряют записей
+    @Test
+    void testConcurrentWritesToOwnEpics() throws Exception {
+        for (int threads : new int[]{1, 4}) {
+            for (boolean sharded : new boolean[]{false, true}) {
+                TaskManager manager = sharded ? new ShardedTaskManager(new InMemoryHistoryManager(), SHARDS)
+                        : new ConcurrentTaskManager(new InMemoryHistoryManager());
+                int subtasksPerThread = 100;
+                List<List<Integer>> epicIds = runConcurrently(threads, thread -> {
+                    int epicId = manager.addEpic(new Epic("Epic", "Description"));
+                    for (int i = 0; i < subtasksPerThread; i++) {
+                        Subtask subtask = new Subtask("Subtask", "Description", Status.NEW, epicId, null, null);
+                        manager.addSubtask(subtask);
+                        subtask.setStatus(Status.DONE);
+                        manager.updateTask(subtask);
+                    }
+                    return List.of(epicId);
+                });
+                assertEquals(threads * (subtasksPerThread + 1), manager.getAllTasks().size());
+                for (List<Integer> ids : epicIds) {
+                    assertEquals(subtasksPerThread, manager.getSubtasksForEpic(ids.get(0)).size());
+                    assertEquals(Status.DONE, manager.getEpicById(ids.get(0)).getStatus());
+                }
+            }
+        }
+    }
+
+    private interface ThreadTask {
+        List<Integer> run(int thread) throws Exception;
+    }
+
+    private List<List<Integer>> runConcurrently(ThreadTask task) throws Exception {
+        return runConcurrently(THREADS, task);
+    }
+
+    private static List<List<Integer>> runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.run(thread);
+            }));
+        }
+        start.countDown();
+        List<List<Integer>> results = new ArrayList<>();
+        for (Future<List<Integer>> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    // Новый поток получает следующий домашний шард
+    private static int addFromNewThread(Supplier<Integer> action) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(action::get).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Замер пропускной способности записи ShardedTaskManager и ConcurrentTaskManager при 1, 4 и 16 потоках:
+ * каждый поток добавляет эпик с подзадачами и обновляет их. Не входит в набор тестов (surefire запускает
+ * только классы *Test); запускается вручную через main, аргумент — число операций на поток.
+ */
+class ShardedWriteBenchmark {
+    private static final int SHARDS = 16;
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int operationsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            measure(false, 4, operationsPerThread);
+            measure(true, 4, operationsPerThread);
+        }
+        for (int threads : new int[]{1, 4, 16}) {
+            for (boolean sharded : new boolean[]{false, true}) {
+                double perSecond = measure(sharded, threads, operationsPerThread);
+                System.out.printf("%s, потоков: %d, операций в секунду: %.0f%n",
+                        sharded ? "ShardedTaskManager" : "ConcurrentTaskManager", threads, perSecond);
+            }
+        }
+    }
+
+    private static double measure(boolean sharded, int threads, int operationsPerThread) throws Exception {
+        TaskManager manager = sharded ? new ShardedTaskManager(new InMemoryHistoryManager(), SHARDS)
+                : new ConcurrentTaskManager(new InMemoryHistoryManager());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int epicId = manager.addEpic(new Epic("Epic", "Description"));
+                for (int i = 0; i < operationsPerThread / 2; i++) {
+                    Subtask subtask = new Subtask("Subtask", "Description", Status.NEW, epicId, null, null);
+                    manager.addSubtask(subtask);
+                    subtask.setStatus(Status.DONE);
+                    manager.updateTask(subtask);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        if (manager.getAllTasks().size() != threads * (operationsPerThread / 2 + 1)) {
+            throw new IllegalStateException("Часть записей потеряна: " + manager.getAllTasks().size());
+        }
+        return threads * operationsPerThread / seconds;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.Status;
+import ru.yandex.practicum.model.Subtask;
+import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBusTest {
+
+    private record Event(TaskEventType type, int taskId, TaskType taskType) {
+    }
+
+    private static TaskEventListener collectInto(List<Event> events) {
+        return (sequence, type, taskId, taskType, version) -> events.add(new Event(type, taskId, taskType));
+    }
+
+    @Test
+    void testManagerPublishesChanges() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        TaskEventBus.Subscription subscription = taskManager.getEventBus().subscribe();
+
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        int subtaskId = taskManager.addSubtask(new Subtask("Subtask", "Description", Status.DONE, epicId, null, null));
+        Task task = new Task("Task", "Description", Status.NEW, null, null);
+        int taskId = taskManager.addTask(task);
+        taskManager.updateTask(task);
+        taskManager.removeTaskById(epicId);
+
+        List<Event> events = new ArrayList<>();
+        assertEquals(7, subscription.poll(collectInto(events)));
+        assertEquals(List.of(
+                new Event(TaskEventType.CREATED, epicId, TaskType.EPIC),
+                new Event(TaskEventType.CREATED, subtaskId, TaskType.SUBTASK),
+                new Event(TaskEventType.EPIC_ROLLUP_CHANGED, epicId, TaskType.EPIC),
+                new Event(TaskEventType.CREATED, taskId, TaskType.TASK),
+                new Event(TaskEventType.UPDATED, taskId, TaskType.TASK),
+                new Event(TaskEventType.REMOVED, epicId, TaskType.EPIC),
+                new Event(TaskEventType.REMOVED, subtaskId, TaskType.SUBTASK)), events);
+        assertEquals(0, subscription.poll(collectInto(events)), "Повторно события не доставляются.");
+    }
+
+    @Test
+    void testSubscribersAreIndependent() {
+        TaskEventBus bus = new TaskEventBus(8);
+        TaskEventBus.Subscription fast = bus.subscribe();
+        TaskEventBus.Subscription slow = bus.subscribe();
+
+        List<Event> fastEvents = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            bus.publish(TaskEventType.CREATED, i, TaskType.TASK, 1);
+            fast.poll(collectInto(fastEvents)); // Быстрый подписчик успевает за писателем
+        }
+        assertEquals(20, fastEvents.size());
+
+        List<Event> slowEvents = new ArrayList<>();
+        AtomicLong missed = new AtomicLong();
+        slow.poll(new TaskEventListener() {
+            @Override
+            public void onEvent(long sequence, TaskEventType type, int taskId, TaskType taskType, long version) {
+                slowEvents.add(new Event(type, taskId, taskType));
+            }
+
+            @Override
+            public void onMissed(long count) {
+                missed.addAndGet(count);
+            }
+        });
+        assertEquals(12, missed.get(), "Отставший подписчик узнаёт, сколько событий перезаписано.");
+        assertEquals(8, slowEvents.size(), "Доставляются последние события, помещающиеся в буфер.");
+        assertEquals(13, slowEvents.get(0).taskId());
+        assertEquals(0, slow.lag());
+    }
+
+    @Test
+    void testConsumerThreadReceivesEventsInOrder() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(1024);
+        int total = 100_000;
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicLong lastId = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+        TaskEventBus.Subscription consumer = bus.startConsumer("test-consumer", new TaskEventListener() {
+            @Override
+            public void onEvent(long sequence, TaskEventType type, int taskId, TaskType taskType, long version) {
+                if (taskId <= lastId.get() || version != taskId) {
+                    outOfOrder.incrementAndGet(); // Порядок нарушен или прочитана наполовину перезаписанная ячейка
+                }
+                lastId.set(taskId);
+                if (taskId == total) {
+                    done.countDown();
+                }
+            }
+        });
+        try {
+            for (int i = 1; i <= total; i++) {
+                bus.publish(TaskEventType.UPDATED, i, TaskType.TASK, i);
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS), "Подписчик должен дочитать до последнего события.");
+        } finally {
+            consumer.close();
+        }
+        assertEquals(0, outOfOrder.get());
+    }
+}
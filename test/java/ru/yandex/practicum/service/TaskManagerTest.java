@@ -2,24 +2,35 @@ package ru.yandex.practicum.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.exceptions.TaskVersionConflictException;
 import ru.yandex.practicum.model.Epic;
+import ru.yandex.practicum.model.RecurringTask;
 import ru.yandex.practicum.model.Status;
 import ru.yandex.practicum.model.Subtask;
 import ru.yandex.practicum.model.Task;
+import ru.yandex.practicum.model.TaskType;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 abstract class TaskManagerTest<T extends TaskManager> {
     protected T taskManager;
 
     protected abstract T createTaskManager();
 
+    // Менеджер, отклоняющий перенос задачи с этим названием на время, как при конкурентном изменении её версии;
+    // null — реализацию нельзя так подменить, и проверка пропускается
+    protected TaskManager createTaskManagerRejectingPlacementOf(String title) {
+        return null;
+    }
+
     @BeforeEach
     void setUp() throws IOException {
         taskManager = createTaskManager();
@@ -94,5 +105,309 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertNotNull(history, "История не должна быть пустой.");
         assertEquals(1, history.size(), "История должна содержать одну задачу.");
         assertEquals(task, history.get(0), "Задача в истории должна совпадать с добавленной.");
+
+        int secondId = taskManager.addTask(new Task("Task 2", "Description 2", Status.NEW, null, null));
+        taskManager.getTaskById(secondId);
+        assertEquals(List.of(secondId), taskManager.getHistory(1).stream().map(Task::getId).toList(),
+                "Должен вернуться только последний просмотр.");
+    }
+
+    @Test
+    void testStatusIndexFollowsChanges() {
+        Task task = new Task("Task", "Description", Status.DONE, Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 11, 1, 8, 0));
+        taskManager.addTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+        Subtask subtask1 = new Subtask("Subtask 1", "Description", Status.NEW, epicId, Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 11, 1, 9, 0));
+        Subtask subtask2 = new Subtask("Subtask 2", "Description", Status.IN_PROGRESS, epicId, Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 11, 1, 10, 0));
+        taskManager.addSubtask(subtask1);
+        taskManager.addSubtask(subtask2);
+
+        assertEquals(List.of(subtask2), taskManager.getByStatus(TaskType.SUBTASK, Status.IN_PROGRESS));
+        assertEquals(1, taskManager.countByStatus(TaskType.EPIC, Status.IN_PROGRESS), "Статус эпика тоже индексируется.");
+        assertEquals(List.of(task), taskManager.getByStatus(Status.DONE));
+
+        Subtask doneSubtask1 = new Subtask(subtask1.getTitle(), subtask1.getDescription(), Status.DONE, epicId,
+                subtask1.getDuration(), subtask1.getStartTime());
+        doneSubtask1.setId(subtask1.getId());
+        Subtask doneSubtask2 = new Subtask(subtask2.getTitle(), subtask2.getDescription(), Status.DONE, epicId,
+                subtask2.getDuration(), subtask2.getStartTime());
+        doneSubtask2.setId(subtask2.getId());
+        taskManager.updateTask(doneSubtask1);
+        taskManager.updateTask(doneSubtask2);
+
+        assertEquals(0, taskManager.countByStatus(TaskType.SUBTASK, Status.IN_PROGRESS));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, Status.DONE),
+                "Эпик должен перейти в DONE вместе с подзадачами.");
+
+        taskManager.removeTaskById(doneSubtask2.getId());
+        taskManager.removeAllTasks();
+        assertEquals(List.of(doneSubtask1, epic), taskManager.getByStatus(Status.DONE));
+
+        taskManager.removeAllSubtasks();
+        assertEquals(List.of(epic), taskManager.getByStatus(Status.NEW), "Эпик без подзадач снова NEW.");
+        taskManager.removeAllEpics();
+        assertTrue(taskManager.getByStatus(Status.NEW).isEmpty());
+    }
+
+    @Test
+    void testSearchFollowsChanges() {
+        Task task = new Task("Разработка API", "Описать эндпоинты", Status.NEW, null, null);
+        int taskId = taskManager.addTask(task);
+        Epic epic = new Epic("Release", "Подготовка релиза и разработка документации");
+        int epicId = taskManager.addEpic(epic);
+        int subtaskId = taskManager.addSubtask(new Subtask("Write docs", "API reference", Status.NEW, epicId,
+                null, null));
+
+        assertEquals(List.of(taskId, epicId), taskManager.search("РАЗРАБ", 10),
+                "Совпадение в названии должно быть выше совпадения в описании.");
+        assertEquals(List.of(taskId, subtaskId), taskManager.search("api", 10));
+        assertEquals(List.of(subtaskId), taskManager.search("api ref", 10), "Нужны все слова запроса.");
+        assertTrue(taskManager.search("  ", 10).isEmpty());
+
+        Task renamed = new Task("Тестирование", "Описать сценарии", Status.NEW, null, null);
+        renamed.setId(taskId);
+        taskManager.updateTask(renamed);
+        assertEquals(List.of(epicId), taskManager.search("разработка", 10));
+
+        taskManager.removeTaskById(epicId);
+        assertTrue(taskManager.search("docs", 10).isEmpty(), "Подзадачи удалённого эпика не должны находиться.");
+        assertEquals(List.of(taskId), taskManager.search("описать", 10));
+    }
+
+    @Test
+    void testUpdateComparesVersions() {
+        int taskId = taskManager.addTask(new Task("Task", "Description", Status.NEW, null, null));
+        long version = taskManager.getTaskById(taskId).getVersion();
+
+        Task first = new Task("Task", "First editor", Status.IN_PROGRESS, null, null);
+        first.setId(taskId);
+        first.setVersion(version);
+        taskManager.updateTask(first);
+        assertEquals(version + 1, taskManager.getTaskById(taskId).getVersion());
+
+        Task second = new Task("Task", "Second editor", Status.DONE, null, null);
+        second.setId(taskId);
+        second.setVersion(version);
+        assertThrows(TaskVersionConflictException.class, () -> taskManager.updateTask(second));
+        assertEquals("First editor", taskManager.getTaskById(taskId).getDescription(),
+                "Устаревшее обновление не должно перезаписать задачу.");
+
+        Epic epic = new Epic("Epic", "Description");
+        int epicId = taskManager.addEpic(epic);
+        long epicVersion = epic.getVersion();
+        taskManager.addSubtask(new Subtask("Subtask", "Description", Status.DONE, epicId, null, null));
+        assertTrue(taskManager.getEpicById(epicId).getVersion() > epicVersion,
+                "Изменение подзадач меняет поля эпика, а значит и его версию.");
+    }
+
+    @Test
+    void testVersionedUpdateOfRemovedTaskIsRejected() {
+        int taskId = taskManager.addTask(new Task("Task", "Description", Status.NEW, null, null));
+        long version = taskManager.getTaskById(taskId).getVersion();
+        taskManager.removeTaskById(taskId);
+
+        Task stale = new Task("Task", "Updated", Status.DONE, null, null);
+        stale.setId(taskId);
+        stale.setVersion(version);
+        assertThrows(TaskVersionConflictException.class, () -> taskManager.updateTask(stale));
+        assertNull(taskManager.getTaskById(taskId), "Условное обновление не должно создавать удалённую задачу.");
+    }
+
+    @Test
+    void testAnyVersionUpdatesOnlyExistingTask() {
+        int taskId = taskManager.addTask(new Task("Task", "Description", Status.NEW, null, null));
+        Task update = new Task("Task", "Updated", Status.DONE, null, null);
+        update.setId(taskId);
+        update.setVersion(TaskManager.ANY_VERSION);
+        taskManager.updateTask(update);
+        assertEquals("Updated", taskManager.getTaskById(taskId).getDescription());
+
+        taskManager.removeTaskById(taskId);
+        Task missing = new Task("Task", "Recreated", Status.NEW, null, null);
+        missing.setId(taskId);
+        missing.setVersion(TaskManager.ANY_VERSION);
+        assertThrows(TaskVersionConflictException.class, () -> taskManager.updateTask(missing));
+        assertNull(taskManager.getTaskById(taskId), "Обновление с любой версией не должно создавать задачу.");
+    }
+
+    @Test
+    void testAutoScheduleFillsEarliestGapsWithinWorkingHours() {
+        LocalDateTime day = LocalDateTime.of(2024, 11, 4, 0, 0);
+        int fixedId = taskManager.addTask(new Task("Fixed", "Description", Status.NEW, Duration.ofMinutes(60),
+                day.withHour(10)));
+        int shortId = taskManager.addTask(new Task("Short", "Description", Status.NEW, Duration.ofMinutes(45), null));
+        int longId = taskManager.addTask(new Task("Long", "Description", Status.NEW, Duration.ofMinutes(90), null));
+        int smallId = taskManager.addTask(new Task("Small", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        int wholeDayId = taskManager.addSubtask(new Subtask("Whole day", "Description", Status.NEW, epicId,
+                Duration.ofHours(8), null));
+        WorkingHours hours = new WorkingHours(LocalTime.of(9, 0), LocalTime.of(18, 0));
+
+        List<Task> scheduled = taskManager.autoSchedule(List.of(shortId, longId, smallId, wholeDayId),
+                day.withHour(9), hours);
+
+        assertEquals(List.of(day.withHour(9), day.withHour(11).withMinute(1), day.withHour(12).withMinute(32),
+                        day.plusDays(1).withHour(9)),
+                scheduled.stream().map(Task::getStartTime).toList(),
+                "Задачи должны занять самые ранние подходящие места в рабочие часы.");
+        assertEquals(List.of(shortId, fixedId, longId, smallId, wholeDayId),
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(day.plusDays(1).withHour(17), taskManager.getEpicById(epicId).getEndTime());
+    }
+
+    @Test
+    void testAutoScheduleIsAllOrNothing() {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 9, 0);
+        int freeId = taskManager.addTask(new Task("Free", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int timedId = taskManager.addTask(new Task("Timed", "Description", Status.NEW, Duration.ofMinutes(30), start));
+        int noDurationId = taskManager.addTask(new Task("No duration", "Description", Status.NEW, null, null));
+        int hugeId = taskManager.addTask(new Task("Huge", "Description", Status.NEW, Duration.ofHours(10), null));
+        WorkingHours hours = new WorkingHours(LocalTime.of(9, 0), LocalTime.of(18, 0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.autoSchedule(List.of(freeId, timedId), start, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.autoSchedule(List.of(freeId, noDurationId), start, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.autoSchedule(List.of(freeId, hugeId), start, hours));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.autoSchedule(List.of(freeId, freeId), start, null));
+        assertNull(taskManager.getTaskById(freeId).getStartTime(), "Отклонённая расстановка ничего не меняет.");
+
+        Task huge = taskManager.autoSchedule(List.of(hugeId), start, null).get(0);
+        assertEquals(start.plusMinutes(31), huge.getStartTime(), "Без рабочих часов шкала доступна круглые сутки.");
+    }
+
+    @Test
+    void testAutoScheduleRollsBackWhenPlacementIsRejected() {
+        TaskManager manager = createTaskManagerRejectingPlacementOf("Rejected");
+        assumeTrue(manager != null);
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 9, 0);
+        int firstId = manager.addTask(new Task("First", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int rejectedId = manager.addTask(new Task("Rejected", "Description", Status.NEW, Duration.ofMinutes(30),
+                null));
+
+        assertThrows(TaskVersionConflictException.class,
+                () -> manager.autoSchedule(List.of(firstId, rejectedId), start, null));
+
+        assertNull(manager.getTaskById(firstId).getStartTime(), "Уже перенесённая задача должна вернуться назад.");
+        assertEquals("Description", manager.getTaskById(firstId).getDescription());
+        assertNull(manager.getTaskById(rejectedId).getStartTime());
+        assertTrue(manager.getPrioritizedTasks().stream().allMatch(task -> task.getStartTime() == null),
+                "Шкала не должна хранить откаченные места.");
+        assertEquals(start, manager.findFreeSlot(Duration.ofMinutes(30), start).start());
+    }
+
+    @Test
+    void testDependenciesShiftEarliestStartAndCriticalPath() {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 9, 0);
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        int designId = taskManager.addSubtask(new Subtask("Design", "Description", Status.NEW, epicId,
+                Duration.ofHours(2), start));
+        int backendId = taskManager.addSubtask(new Subtask("Backend", "Description", Status.NEW, epicId,
+                Duration.ofHours(3), null));
+        int frontendId = taskManager.addSubtask(new Subtask("Frontend", "Description", Status.NEW, epicId,
+                Duration.ofHours(1), null));
+        int releaseId = taskManager.addSubtask(new Subtask("Release", "Description", Status.NEW, epicId,
+                Duration.ofMinutes(30), null));
+        taskManager.addDependency(backendId, designId);
+        taskManager.addDependency(frontendId, designId);
+        taskManager.addDependency(releaseId, backendId);
+        taskManager.addDependency(releaseId, frontendId);
+
+        assertEquals(start.plusHours(5), taskManager.getEarliestStart(releaseId),
+                "Выпуск ждёт самую долгую ветку: проектирование и бэкенд.");
+        assertEquals(List.of(backendId, frontendId), taskManager.getDependencies(releaseId));
+        CriticalPath path = taskManager.getCriticalPath(epicId);
+        assertEquals(List.of(designId, backendId, releaseId), path.taskIds());
+        assertEquals(start.plusHours(5).plusMinutes(30), path.earliestFinish());
+
+        Subtask longFrontend = new Subtask("Frontend", "Description", Status.NEW, epicId, Duration.ofHours(4), null);
+        longFrontend.setId(frontendId);
+        taskManager.updateTask(longFrontend);
+        assertEquals(List.of(designId, frontendId, releaseId), taskManager.getCriticalPath(epicId).taskIds(),
+                "Изменение продолжительности должно пересчитать зависимые задачи.");
+        assertEquals(start.plusHours(6), taskManager.getEarliestStart(releaseId));
+
+        taskManager.removeTaskById(frontendId);
+        assertEquals(List.of(backendId), taskManager.getDependencies(releaseId));
+        assertEquals(start.plusHours(5), taskManager.getEarliestStart(releaseId));
+    }
+
+    @Test
+    void testDependencyCyclesAreRejected() {
+        int first = taskManager.addTask(new Task("First", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int second = taskManager.addTask(new Task("Second", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int third = taskManager.addTask(new Task("Third", "Description", Status.NEW, Duration.ofMinutes(30), null));
+        int epicId = taskManager.addEpic(new Epic("Epic", "Description"));
+        taskManager.addDependency(second, first);
+        taskManager.addDependency(third, second);
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(first, third));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(first, first));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(first, epicId));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addDependency(first, 999));
+        assertTrue(taskManager.getDependencies(first).isEmpty(), "Отклонённая зависимость не должна остаться.");
+        assertNull(taskManager.getEarliestStart(third), "Без времени начала у цепочки нет опорной точки.");
+
+        taskManager.removeDependency(third, second);
+        taskManager.addDependency(first, third);
+        assertEquals(List.of(third), taskManager.getDependencies(first));
+    }
+
+    @Test
+    void testRecurringTaskBlocksOccurrencesWithoutMaterializingThem() {
+        LocalDateTime monday = LocalDateTime.of(2024, 11, 4, 10, 0);
+        RecurringTask standUp = new RecurringTask("Stand-up", "Description", Status.NEW, Duration.ofMinutes(15),
+                monday, Duration.ofDays(1), null);
+        int standUpId = taskManager.addRecurringTask(standUp);
+
+        assertTrue(taskManager.getAllTasks().isEmpty(), "Повторения не должны создаваться как задачи.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(new Task("Clash", "Description",
+                Status.NEW, Duration.ofMinutes(30), monday.plusDays(400).minusMinutes(20))),
+                "Задача должна пересекаться с повторением через год.");
+        taskManager.addTask(new Task("Between", "Description", Status.NEW, Duration.ofMinutes(30),
+                monday.plusDays(400).plusMinutes(16)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addRecurringTask(new RecurringTask("Review",
+                        "Description", Status.NEW, Duration.ofMinutes(60), monday.plusDays(2).minusMinutes(30),
+                        Duration.ofDays(7), null)),
+                "Еженедельная встреча пересекается с ежедневной.");
+        taskManager.addRecurringTask(new RecurringTask("Review", "Description", Status.NEW, Duration.ofMinutes(60),
+                monday.plusHours(5), Duration.ofDays(7), monday.plusDays(14)));
+
+        List<Occurrence> occurrences = taskManager.getOccurrences(monday.plusDays(6), monday.plusDays(8));
+        assertEquals(List.of(monday.plusDays(6), monday.plusDays(7), monday.plusDays(7).plusHours(5)),
+                occurrences.stream().map(Occurrence::start).toList());
+        assertEquals(standUpId, occurrences.get(0).taskId());
+        assertTrue(taskManager.getOccurrences(monday.plusDays(14).plusHours(1), monday.plusDays(15)).stream()
+                .allMatch(occurrence -> occurrence.taskId() == standUpId), "Повторения заканчиваются в until.");
+
+        assertEquals(monday.plusMinutes(16), taskManager.findFreeSlot(Duration.ofMinutes(30), monday).start(),
+                "Свободный промежуток начинается после повторения.");
+        List<TimeSlot> slots = taskManager.findFreeSlots(Duration.ofHours(23), monday, 2);
+        // В понедельник мешает ещё и еженедельное обсуждение, целые 23 часа свободны только со вторника
+        assertEquals(monday.plusDays(1).plusMinutes(16), slots.get(0).start());
+        assertEquals(monday.plusDays(2).minusMinutes(1), slots.get(0).end());
+
+        taskManager.removeRecurringTask(standUpId);
+        assertEquals(1, taskManager.getRecurringTasks().size());
+        taskManager.addTask(new Task("Free again", "Description", Status.NEW, Duration.ofMinutes(30),
+                monday.plusDays(400).minusMinutes(20)));
+    }
+
+    @Test
+    void testFreeSlotSearchStopsWhenRecurringTaskLeavesNoGaps() {
+        LocalDateTime start = LocalDateTime.of(2024, 11, 4, 10, 0);
+        taskManager.addRecurringTask(new RecurringTask("Busy", "Description", Status.NEW, Duration.ofMinutes(30),
+                start, Duration.ofMinutes(31), null));
+
+        List<TimeSlot> slots = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> taskManager.findFreeSlots(Duration.ofMinutes(10), start, 1));
+        assertTrue(slots.isEmpty(), "Свободных промежутков до горизонта поиска нет.");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlot(Duration.ofMinutes(10), start));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Ключи, кратные 64, попадают в одни цепочки и проверяют сдвиг при удалении
+            int key = random.nextBoolean() ? random.nextInt(2_000) - 1_000 : random.nextInt(100) * 64;
+            if (random.nextInt(3) == 0) {
+                Integer removed = reference.remove(key);
+                assertEquals(removed == null ? IntIntMap.MISSING : removed, map.remove(key));
+            } else {
+                assertEquals(reference.getOrDefault(key, IntIntMap.MISSING), map.put(key, i));
+                reference.put(key, i);
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (int key = -1_000; key < 6_400; key++) {
+            assertEquals(reference.getOrDefault(key, IntIntMap.MISSING), map.get(key), "Ключ " + key);
+        }
+    }
+
+    @Test
+    void testClearAndNegativeValues() {
+        IntIntMap map = new IntIntMap();
+        map.put(0, 0);
+        assertEquals(0, map.get(0), "Нулевые ключ и значение должны храниться.");
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+    private IntObjectMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IntObjectMap<>();
+    }
+
+    @Test
+    void testPutGetRemove() {
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(2, "two"));
+        assertEquals("one", map.put(1, "uno"), "put должен возвращать прежнее значение.");
+
+        assertEquals("uno", map.get(1));
+        assertEquals(2, map.size());
+        assertEquals("two", map.remove(2));
+        assertNull(map.get(2), "Удалённый ключ не должен находиться.");
+        assertFalse(map.containsKey(2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testValuesKeepInsertionOrder() {
+        for (int id = 100; id > 0; id--) {
+            map.put(id, "v" + id);
+        }
+        map.remove(50);
+
+        List<String> expected = new ArrayList<>();
+        for (int id = 100; id > 0; id--) {
+            if (id != 50) {
+                expected.add("v" + id);
+            }
+        }
+        assertEquals(expected, new ArrayList<>(map.values()), "Обход должен идти в порядке добавления.");
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        Map<Integer, String> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        Map<Integer, String> copy = new HashMap<>();
+        map.forEach((value, key) -> copy.put(key, value));
+        assertEquals(reference, copy, "Содержимое должно совпадать с HashMap.");
+    }
+
+    @Test
+    void testClear() {
+        map.put(1, "one");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.values().iterator().hasNext());
+    }
+}
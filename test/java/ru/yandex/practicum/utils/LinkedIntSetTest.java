@@ -0,0 +1,60 @@
+package ru.yandex.practicum.utils;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.http.HttpTaskServer;
+import ru.yandex.practicum.model.Epic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkedIntSetTest {
+
+    @Test
+    void testAddRemoveKeepsInsertionOrder() {
+        LinkedIntSet set = new LinkedIntSet();
+        for (int i = 20; i > 0; i--) {
+            set.add(i);
+        }
+        assertFalse(set.add(5), "Повторное добавление не должно менять множество.");
+
+        for (int i = 20; i > 0; i -= 2) {
+            assertTrue(set.remove(i));
+        }
+
+        assertEquals(10, set.size());
+        assertArrayEquals(new int[]{19, 17, 15, 13, 11, 9, 7, 5, 3, 1}, set.toArray(),
+                "Элементы должны обходиться в порядке добавления.");
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(8));
+    }
+
+    @Test
+    void testRemoveAllLeavesEmptySet() {
+        LinkedIntSet set = new LinkedIntSet();
+        for (int i = 0; i < 10_000; i++) {
+            set.add(i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            set.remove(i);
+        }
+
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.toArray().length);
+        assertTrue(set.add(1));
+        assertEquals("[1]", set.toString());
+    }
+
+    @Test
+    void testEpicJsonKeepsSubtaskIdsArray() {
+        Gson gson = HttpTaskServer.getGson();
+        Epic epic = new Epic("Epic", "Description");
+        epic.getSubtaskIds().add(3);
+        epic.getSubtaskIds().add(2);
+
+        String json = gson.toJson(epic);
+        assertTrue(json.contains("\"subtaskIds\":[3,2]"), "Подзадачи эпика должны сериализоваться массивом.");
+
+        Epic restored = gson.fromJson(json, Epic.class);
+        assertArrayEquals(new int[]{3, 2}, restored.getSubtaskIds().toArray());
+    }
+}
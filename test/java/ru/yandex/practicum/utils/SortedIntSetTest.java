@@ -0,0 +1,59 @@
+package ru.yandex.practicum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedIntSetTest {
+
+    @Test
+    void testElementsAreIteratedInAscendingOrder() {
+        SortedIntSet set = new SortedIntSet();
+        for (int i = 20; i > 0; i--) {
+            set.add(i);
+        }
+        assertFalse(set.add(5), "Повторное добавление не должно менять множество.");
+
+        for (int i = 20; i > 0; i -= 2) {
+            assertTrue(set.remove(i));
+        }
+        assertFalse(set.remove(20));
+        assertTrue(set.add(10), "Удалённый элемент можно добавить снова.");
+
+        assertEquals(11, set.size());
+        assertArrayEquals(new int[]{1, 3, 5, 7, 9, 10, 11, 13, 15, 17, 19}, set.toArray());
+        PrimitiveIterator.OfInt iterator = set.iterator();
+        assertEquals(1, iterator.nextInt());
+        assertEquals(3, iterator.nextInt());
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(8));
+    }
+
+    @Test
+    void testMatchesTreeSetUnderRandomChanges() {
+        SortedIntSet set = new SortedIntSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+        int[] iterated = new int[set.size()];
+        int count = 0;
+        for (PrimitiveIterator.OfInt iterator = set.iterator(); iterator.hasNext(); ) {
+            iterated[count++] = iterator.nextInt();
+        }
+        assertArrayEquals(set.toArray(), iterated);
+    }
+}